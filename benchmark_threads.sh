@@ -0,0 +1,148 @@
+#!/bin/bash
+
+# Compares request handling on platform threads against virtual threads under blocking JDBC load.
+# Needs Java 21 and a reachable database, e.g.
+#
+#   JDBC_DRIVER=org.postgresql.Driver JDBC_URL=jdbc:postgresql://localhost:5432/postgres \
+#   DB_USER=postgres DB_PASSWORD=secret QUERY="SELECT pg_sleep(0.05)" ./benchmark_threads.sh
+#
+# A query that sleeps on the server makes the difference visible: every request holds its thread
+# while it waits, so platform mode stalls at server.tomcat.threads.max (200) concurrent requests.
+
+: "${JDBC_DRIVER:?Set JDBC_DRIVER to the driver class}"
+: "${JDBC_URL:?Set JDBC_URL to the database URL}"
+DB_USER=${DB_USER:-}
+DB_PASSWORD=${DB_PASSWORD:-}
+QUERY=${QUERY:-SELECT 1}
+CONCURRENCY=${CONCURRENCY:-400}
+REQUESTS=${REQUESTS:-8000}
+# Queries on one connection run one at a time, so open one per concurrent client by default
+CONNECTIONS=${CONNECTIONS:-$CONCURRENCY}
+PORT=${PORT:-8081}
+BASE_URL="http://localhost:$PORT"
+RESULTS_DIR=${RESULTS_DIR:-target/benchmark}
+
+echo "=== DB Connector Thread Mode Benchmark ==="
+
+cd "$(dirname "$0")"
+
+echo "Building with the java21 profile..."
+mvn -q -Pjava21 clean package -DskipTests
+if [ $? -ne 0 ]; then
+    echo "Build failed. The java21 profile requires JDK 21."
+    exit 1
+fi
+
+JAR_FILE=$(find target -maxdepth 1 -name "*.jar" -not -name "*sources.jar" -not -name "*javadoc.jar" | head -1)
+if [ -z "$JAR_FILE" ]; then
+    echo "Error: Could not find the JAR file."
+    exit 1
+fi
+
+mkdir -p "$RESULTS_DIR"
+
+wait_for_startup() {
+    for i in $(seq 1 60); do
+        if curl -s -o /dev/null -w "%{http_code}" "$BASE_URL/api/connections/readiness" | grep -q 200; then
+            return 0
+        fi
+        sleep 1
+    done
+    return 1
+}
+
+open_connection() {
+    curl -s -X POST "$BASE_URL/api/dbconnector/action" -H "Content-Type: application/json" -d "{
+        \"action\": \"connect\",
+        \"connection_type\": \"jdbc_odbc\",
+        \"credentials\": {
+            \"driver_class\": \"$JDBC_DRIVER\",
+            \"connection_string\": \"$JDBC_URL\",
+            \"username\": \"$DB_USER\",
+            \"password\": \"$DB_PASSWORD\"
+        }
+    }" | sed -n 's/.*"connectionId":"\([^"]*\)".*/\1/p'
+}
+
+# One line per request: "<http status> <seconds>"
+run_load() {
+    local ids_file=$1
+    local out_file=$2
+    local query_json
+    query_json=$(printf '%s' "$QUERY" | sed 's/\\/\\\\/g; s/"/\\"/g')
+
+    seq 0 $((REQUESTS - 1)) | xargs -P "$CONCURRENCY" -I {} sh -c '
+        id=$(sed -n "$(( {} % '"$CONNECTIONS"' + 1 ))p" '"$ids_file"')
+        curl -s -o /dev/null -w "%{http_code} %{time_total}\n" -X POST '"$BASE_URL"'/api/query/execute \
+            -H "Content-Type: application/json" \
+            -d "{\"connectionId\":\"$id\",\"query\":\"'"$query_json"'\",\"pageSize\":1}"
+    ' > "$out_file"
+}
+
+summarize() {
+    local mode=$1
+    local out_file=$2
+    local elapsed=$3
+    local threads=$4
+    local ok
+    ok=$(awk '$1 == 200' "$out_file" | wc -l)
+    awk '$1 == 200 { print $2 }' "$out_file" | sort -n | awk -v mode="$mode" -v total="$REQUESTS" -v ok="$ok" \
+        -v elapsed="$elapsed" -v threads="$threads" '
+        { latency[NR] = $1 }
+        END {
+            if (NR == 0) { printf "%-9s no successful requests\n", mode; exit }
+            printf "%-9s %8.1f req/s  ok %d/%d  p50 %6.0fms  p95 %6.0fms  p99 %6.0fms  os threads %s\n",
+                mode, ok / elapsed, ok, total,
+                latency[int(NR * 0.50) + 1] * 1000, latency[int(NR * 0.95) + 1] * 1000,
+                latency[int(NR * 0.99) + 1] * 1000, threads
+        }'
+}
+
+run_mode() {
+    local mode=$1
+    shift
+    echo ""
+    echo "=== $mode threads ==="
+    java -jar "$JAR_FILE" --server.port="$PORT" "$@" > "$RESULTS_DIR/$mode.log" 2>&1 &
+    local app_pid=$!
+
+    if ! wait_for_startup; then
+        echo "Application did not start; see $RESULTS_DIR/$mode.log"
+        kill $app_pid 2>/dev/null
+        exit 1
+    fi
+
+    echo "Opening $CONNECTIONS connections..."
+    local ids_file="$RESULTS_DIR/$mode.connections"
+    : > "$ids_file"
+    for i in $(seq 1 "$CONNECTIONS"); do
+        open_connection >> "$ids_file"
+    done
+    if [ "$(grep -c . "$ids_file")" -ne "$CONNECTIONS" ]; then
+        echo "Could not open $CONNECTIONS connections; see $RESULTS_DIR/$mode.log"
+        kill $app_pid
+        exit 1
+    fi
+
+    echo "Running $REQUESTS requests with $CONCURRENCY concurrent clients..."
+    local start end
+    start=$(date +%s.%N)
+    run_load "$ids_file" "$RESULTS_DIR/$mode.latencies"
+    end=$(date +%s.%N)
+    local threads
+    threads=$(ps -o nlwp= -p $app_pid | tr -d ' ')
+
+    kill $app_pid
+    wait $app_pid 2>/dev/null
+
+    summarize "$mode" "$RESULTS_DIR/$mode.latencies" "$(awk -v s="$start" -v e="$end" 'BEGIN { print e - s }')" "$threads" >> "$RESULTS_DIR/summary.txt"
+}
+
+: > "$RESULTS_DIR/summary.txt"
+run_mode platform --app.threads.virtual=false
+run_mode virtual --spring.profiles.active=virtual-threads
+
+echo ""
+echo "=== Results ($CONCURRENCY clients, $CONNECTIONS connections, query: $QUERY) ==="
+cat "$RESULTS_DIR/summary.txt"
+echo "Raw latencies and application logs are in $RESULTS_DIR"
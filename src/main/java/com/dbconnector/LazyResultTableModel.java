@@ -0,0 +1,275 @@
+package com.dbconnector;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Table model over a server-side scroll cursor that holds only a window of the result in memory.
+ * Rows are fetched in blocks around the rows the table asks for, the next blocks in the scroll
+ * direction are prefetched, and the least recently viewed blocks are evicted, so memory stays
+ * bounded however large the result is. Rows not loaded yet show as empty until their block arrives.
+ */
+public class LazyResultTableModel extends AbstractTableModel {
+    private static final int BLOCK_SIZE = 200;
+    private static final int MAX_CACHED_BLOCKS = 50;
+    private static final int PREFETCH_BLOCKS = 2;
+    private static final AtomicInteger cursorSequence = new AtomicInteger();
+
+    private final Connection connection;
+    private final Object connectionLock;
+    private final String query;
+    private final String cursorName;
+    private final ExecutorService loader;
+    private final Deque<Integer> pendingBlocks = new LinkedBlockingDeque<>();
+    private final Set<Integer> queuedBlocks = new HashSet<>();
+
+    // Access-ordered, so iteration starts at the block viewed longest ago
+    private final Map<Integer, Object[][]> blocks = new LinkedHashMap<Integer, Object[][]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+            return size() > MAX_CACHED_BLOCKS;
+        }
+    };
+
+    private String[] columns = new String[0];
+    private int rowCount;
+    private volatile boolean closed;
+    private volatile Statement activeStatement;
+    private volatile int lastBlock = -1;
+
+    public LazyResultTableModel(Connection connection, Object connectionLock, String query) {
+        this.connection = connection;
+        this.connectionLock = connectionLock;
+        this.query = query.trim().replaceAll(";+$", "");
+        this.cursorName = "dbviewer_result_" + cursorSequence.incrementAndGet();
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, cursorName + "-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Declare the cursor, count its rows and load the first block. Call off the event dispatch thread.
+     * The cursor is declared WITH HOLD and its transaction committed straight away, so no transaction
+     * stays open while the result is on screen; the cursor itself lives until close().
+     */
+    public void open() throws SQLException {
+        synchronized (connectionLock) {
+            boolean previousAutoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (Statement stmt = connection.createStatement()) {
+                    activeStatement = stmt;
+                    stmt.execute("DECLARE " + cursorName + " SCROLL CURSOR WITH HOLD FOR " + query);
+
+                    // MOVE reports how many rows it passed, which counts the result without transferring it
+                    rowCount = stmt.executeUpdate("MOVE FORWARD ALL IN " + cursorName);
+                } finally {
+                    activeStatement = null;
+                }
+                if (previousAutoCommit) {
+                    // A held cursor outlives the commit; a transaction the caller opened is left for them to end
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                closed = true;
+                loader.shutdownNow();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(previousAutoCommit);
+            }
+
+            try {
+                try (Statement stmt = connection.createStatement();
+                     ResultSet rs = stmt.executeQuery("FETCH ABSOLUTE 0 FROM " + cursorName)) {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    columns = new String[metaData.getColumnCount()];
+                    for (int i = 1; i <= columns.length; i++) {
+                        columns[i - 1] = metaData.getColumnName(i);
+                    }
+                }
+                if (rowCount > 0) {
+                    loadBlock(0);
+                }
+            } catch (SQLException e) {
+                close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Abort whatever statement the model is running against the database
+     */
+    public void cancel() {
+        Statement statement = activeStatement;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Close the cursor, releasing the result the server held for it. Blocks still queued are dropped.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pendingBlocks.clear();
+        loader.shutdownNow();
+        synchronized (connectionLock) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CLOSE " + cursorName);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        synchronized (blocks) {
+            blocks.clear();
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int block = rowIndex / BLOCK_SIZE;
+        Object[][] rows;
+        synchronized (blocks) {
+            rows = blocks.get(block);
+        }
+
+        if (rows == null) {
+            request(block, true);
+        }
+        if (block != lastBlock) {
+            // JTable only asks for rows it paints, so a new block means the viewport has moved
+            int direction = lastBlock < 0 || block >= lastBlock ? 1 : -1;
+            lastBlock = block;
+            for (int i = 1; i <= PREFETCH_BLOCKS; i++) {
+                request(block + direction * i, false);
+            }
+        }
+
+        if (rows == null) {
+            return null;
+        }
+        int offset = rowIndex - block * BLOCK_SIZE;
+        return offset < rows.length ? rows[offset][columnIndex] : null;
+    }
+
+    /**
+     * Queue a block for loading; blocks the table is waiting on jump ahead of prefetches
+     */
+    private void request(int block, boolean urgent) {
+        if (closed || block < 0 || block * BLOCK_SIZE >= rowCount) {
+            return;
+        }
+        synchronized (blocks) {
+            if (blocks.containsKey(block) || !queuedBlocks.add(block)) {
+                return;
+            }
+        }
+        if (urgent) {
+            pendingBlocks.addFirst(block);
+        } else {
+            pendingBlocks.addLast(block);
+        }
+        try {
+            loader.execute(this::loadNext);
+        } catch (RejectedExecutionException e) {
+            // Closed while the request was being queued
+        }
+    }
+
+    private void loadNext() {
+        Integer block = pendingBlocks.pollFirst();
+        if (block == null || closed) {
+            return;
+        }
+        try {
+            // Skip blocks the viewport has already scrolled away from
+            if (Math.abs(block - lastBlock) > PREFETCH_BLOCKS + 1) {
+                return;
+            }
+            synchronized (connectionLock) {
+                if (!closed) {
+                    loadBlock(block);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (blocks) {
+                queuedBlocks.remove(block);
+            }
+        }
+    }
+
+    private void loadBlock(int block) throws SQLException {
+        int first = block * BLOCK_SIZE;
+        int count = Math.min(BLOCK_SIZE, rowCount - first);
+        Object[][] rows = new Object[count][];
+
+        try (Statement stmt = connection.createStatement()) {
+            activeStatement = stmt;
+            // Positions the cursor just before the block's first row
+            stmt.execute("MOVE ABSOLUTE " + first + " IN " + cursorName);
+            try (ResultSet rs = stmt.executeQuery("FETCH FORWARD " + count + " FROM " + cursorName)) {
+                int row = 0;
+                while (row < count && rs.next()) {
+                    Object[] values = new Object[columns.length];
+                    for (int i = 1; i <= columns.length; i++) {
+                        values[i - 1] = rs.getObject(i);
+                    }
+                    rows[row++] = values;
+                }
+                if (row < count) {
+                    rows = Arrays.copyOf(rows, row);
+                }
+            }
+        } finally {
+            activeStatement = null;
+        }
+
+        synchronized (blocks) {
+            blocks.put(block, rows);
+        }
+        int last = first + rows.length - 1;
+        if (last >= first) {
+            SwingUtilities.invokeLater(() -> fireTableRowsUpdated(first, last));
+        }
+    }
+}
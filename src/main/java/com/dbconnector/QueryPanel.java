@@ -3,13 +3,24 @@ package com.dbconnector;
 import javax.swing.*;
 import java.awt.*;
 import java.sql.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class QueryPanel extends JPanel {
+    // Rows the driver fetches per round trip; the PostgreSQL driver only honours it outside autocommit
+    private static final int FETCH_SIZE = 500;
+    
     private JComboBox<String> tableList;
     private JTextArea queryArea;
     private JButton executeButton;
+    private JButton cancelButton;
     private DatabaseViewer parent;
     private String currentTable = "";
+    private QueryWorker currentWorker;
+    // Open cursor behind the displayed custom query result, closed before the connection is used again
+    private volatile LazyResultTableModel lazyModel;
+    // Held for a worker's whole run so a replaced query has finished with the connection before the next starts
+    private final Object connectionLock = new Object();
     
     public QueryPanel(DatabaseViewer parent) {
         this.parent = parent;
@@ -40,13 +51,21 @@ public class QueryPanel extends JPanel {
         queryArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         JScrollPane queryScroll = new JScrollPane(queryArea);
         
-        // Execute button
+        // Execute and cancel buttons
         executeButton = new JButton("Execute Query");
         executeButton.addActionListener(e -> executeQuery());
         
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelQuery());
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.add(executeButton);
+        buttonPanel.add(cancelButton);
+        
         add(tablePanel, BorderLayout.NORTH);
         add(queryScroll, BorderLayout.CENTER);
-        add(executeButton, BorderLayout.SOUTH);
+        add(buttonPanel, BorderLayout.SOUTH);
     }
     
     public void loadTables() {
@@ -86,40 +105,17 @@ public class QueryPanel extends JPanel {
             return;
         }
         
-        try {
-            ResultPanel resultPanel = parent.getResultPanel();
-            
-            // Get total row count
-            Statement countStmt = connection.createStatement();
-            ResultSet countRs = countStmt.executeQuery("SELECT COUNT(*) FROM " + tableName);
-            if (countRs.next()) {
-                resultPanel.setTotalRows(countRs.getInt(1));
-            }
-            countRs.close();
-            countStmt.close();
-            
-            // Calculate pagination
-            int currentPage = resultPanel.getCurrentPage();
-            int pageSize = resultPanel.getPageSize();
-            int offset = (currentPage - 1) * pageSize;
-            
-            // Load data for current page
-            String query = "SELECT * FROM " + tableName + " LIMIT " + pageSize + " OFFSET " + offset;
-            queryArea.setText(query);
-            
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            // Display results in the result panel
-            resultPanel.displayResults(rs);
-            
-            rs.close();
-            stmt.close();
-            
-        } catch (SQLException ex) {
-            parent.updateStatus("Error loading data: " + ex.getMessage());
-            ex.printStackTrace();
-        }
+        // Calculate pagination
+        ResultPanel resultPanel = parent.getResultPanel();
+        int currentPage = resultPanel.getCurrentPage();
+        int pageSize = resultPanel.getPageSize();
+        int offset = (currentPage - 1) * pageSize;
+        
+        // Load data for current page
+        String query = "SELECT * FROM " + tableName + " LIMIT " + pageSize + " OFFSET " + offset;
+        queryArea.setText(query);
+        
+        startWorker(new QueryWorker(connection, query, "SELECT COUNT(*) FROM " + tableName, true));
     }
     
     public void executeQuery() {
@@ -130,44 +126,225 @@ public class QueryPanel extends JPanel {
             return;
         }
         
-        try {
-            Statement stmt = connection.createStatement();
+        startWorker(new QueryWorker(connection, query, null, false));
+    }
+    
+    /**
+     * Stop the running query; the worker finishes on its own once the driver aborts the statement
+     */
+    public void cancelQuery() {
+        if (currentWorker != null && !currentWorker.isDone()) {
+            cancelButton.setEnabled(false);
+            parent.updateStatus("Cancelling query...");
+            currentWorker.cancelQuery();
+        }
+    }
+    
+    private void startWorker(QueryWorker worker) {
+        // One connection serves the panel, so a new query replaces the one still running
+        if (currentWorker != null && !currentWorker.isDone()) {
+            currentWorker.cancelQuery();
+        }
+        currentWorker = worker;
+        executeButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        parent.updateStatus("Executing query...");
+        worker.execute();
+    }
+    
+    public String getCurrentTable() {
+        return currentTable;
+    }
+    
+    /**
+     * Runs a query off the event dispatch thread. Table pages stream their rows into the result panel,
+     * coalesced by SwingWorker into chunks; custom SELECTs open a LazyResultTableModel instead.
+     */
+    private class QueryWorker extends SwingWorker<Integer, Object[]> {
+        private final Connection connection;
+        private final String query;
+        private final String countQuery;
+        private final boolean tablePage;
+        private volatile Statement statement;
+        private volatile LazyResultTableModel lazyResult;
+        private volatile boolean cancelRequested;
+        private boolean resultSet;
+        private int totalRows = -1;
+        
+        QueryWorker(Connection connection, String query, String countQuery, boolean tablePage) {
+            this.connection = connection;
+            this.query = query;
+            this.countQuery = countQuery;
+            this.tablePage = tablePage;
+        }
+        
+        @Override
+        protected Integer doInBackground() throws SQLException {
+            synchronized (connectionLock) {
+                return cancelRequested ? 0 : runQuery();
+            }
+        }
+        
+        private int runQuery() throws SQLException {
+            LazyResultTableModel previous = lazyModel;
+            if (previous != null) {
+                lazyModel = null;
+                previous.close();
+            }
+            
+            if (countQuery != null) {
+                try (Statement countStmt = connection.createStatement();
+                     ResultSet countRs = countStmt.executeQuery(countQuery)) {
+                    if (countRs.next()) {
+                        totalRows = countRs.getInt(1);
+                    }
+                }
+            }
             
-            // Check if it's a SELECT query
-            if (query.toUpperCase().startsWith("SELECT")) {
-                ResultSet rs = stmt.executeQuery(query);
+            boolean select = query.toUpperCase().startsWith("SELECT");
+            if (select && !tablePage) {
+                // Custom queries can return any number of rows, so only a window of them is held in memory
+                lazyResult = new LazyResultTableModel(connection, connectionLock, query);
+                lazyModel = lazyResult;
+                resultSet = true;
+                if (!cancelRequested) {
+                    lazyResult.open();
+                }
+                return lazyResult.getRowCount();
+            }
+            
+            boolean autoCommit = connection.getAutoCommit();
+            try {
+                if (select && autoCommit) {
+                    // Lets the driver use a cursor instead of reading the whole result into memory
+                    connection.setAutoCommit(false);
+                }
+                statement = connection.createStatement();
+                if (cancelRequested) {
+                    return 0;
+                }
                 
-                // Display results
-                parent.getResultPanel().displayResults(rs);
-                rs.close();
+                if (!select) {
+                    // For non-SELECT queries (INSERT, UPDATE, DELETE, etc.)
+                    return statement.executeUpdate(query);
+                }
                 
-                // Reset pagination for custom queries
-                parent.getResultPanel().setCurrentPage(1);
-                parent.getResultPanel().updatePageInfo("Custom query results");
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery(query)) {
+                    resultSet = true;
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    int columnCount = metaData.getColumnCount();
+                    String[] columns = new String[columnCount];
+                    for (int i = 1; i <= columnCount; i++) {
+                        columns[i - 1] = metaData.getColumnName(i);
+                    }
+                    // Queued ahead of the first chunk, so the columns are in place before any rows arrive
+                    SwingUtilities.invokeLater(() -> parent.getResultPanel().startResults(columns));
+                    
+                    int rowCount = 0;
+                    while (!isCancelled() && rs.next()) {
+                        Object[] row = new Object[columnCount];
+                        for (int i = 1; i <= columnCount; i++) {
+                            row[i - 1] = rs.getObject(i);
+                        }
+                        publish(row);
+                        rowCount++;
+                    }
+                    return rowCount;
+                }
+            } finally {
+                if (statement != null) {
+                    statement.close();
+                }
+                if (select && autoCommit) {
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+        
+        @Override
+        protected void process(List<Object[]> rows) {
+            if (!isCancelled()) {
+                parent.getResultPanel().appendRows(rows);
+            }
+        }
+        
+        @Override
+        protected void done() {
+            // A worker replaced by a newer query leaves the panel to its successor
+            if (currentWorker != this) {
+                return;
+            }
+            executeButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            
+            ResultPanel resultPanel = parent.getResultPanel();
+            if (cancelRequested) {
+                parent.updateStatus("Query cancelled");
+                resultPanel.updatePageInfo("Query cancelled after " + resultPanel.getRowCount() + " rows");
+                return;
+            }
+            
+            int count;
+            try {
+                count = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                parent.updateStatus("Query error: " + cause.getMessage());
+                resultPanel.displayMessage("Error: " + cause.getMessage());
+                cause.printStackTrace();
+                return;
+            }
+            
+            if (tablePage) {
+                resultPanel.setTotalRows(totalRows);
+            } else if (resultSet) {
+                resultPanel.displayLazyResults(lazyResult);
                 
+                // Reset pagination for custom queries
+                resultPanel.setCurrentPage(1);
+                resultPanel.updatePageInfo("Custom query results (" + count + " rows)");
             } else {
-                // For non-SELECT queries (INSERT, UPDATE, DELETE, etc.)
-                int rowsAffected = stmt.executeUpdate(query);
-                parent.getResultPanel().displayMessage("Query executed successfully. Rows affected: " + rowsAffected);
+                resultPanel.displayMessage("Query executed successfully. Rows affected: " + count);
                 
                 // Refresh table data if we're working with the current table
-                if (currentTable != null && !currentTable.isEmpty() && 
+                if (currentTable != null && !currentTable.isEmpty() &&
                     query.toUpperCase().contains(currentTable.toUpperCase())) {
                     loadTableData(currentTable);
                 }
             }
-            
-            stmt.close();
             parent.updateStatus("Query executed successfully");
-            
-        } catch (SQLException ex) {
-            parent.updateStatus("Query error: " + ex.getMessage());
-            parent.getResultPanel().displayMessage("Error: " + ex.getMessage());
-            ex.printStackTrace();
         }
-    }
-    
-    public String getCurrentTable() {
-        return currentTable;
+        
+        /**
+         * Ask the database to abort the statement; Statement.cancel makes its own round trip,
+         * so it is sent from a separate thread rather than the event dispatch thread
+         */
+        void cancelQuery() {
+            cancelRequested = true;
+            cancel(false);
+            Statement running = statement;
+            LazyResultTableModel opening = lazyResult;
+            if (running != null || opening != null) {
+                Thread canceller = new Thread(() -> {
+                    try {
+                        if (running != null) {
+                            running.cancel();
+                        }
+                        if (opening != null) {
+                            opening.cancel();
+                        }
+                    } catch (SQLException ex) {
+                        ex.printStackTrace();
+                    }
+                }, "query-cancel");
+                canceller.setDaemon(true);
+                canceller.start();
+            }
+        }
     }
 }
\ No newline at end of file
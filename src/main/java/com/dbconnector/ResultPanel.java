@@ -6,6 +6,9 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.sql.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
 
 public class ResultPanel extends JPanel {
     private JTable resultTable;
@@ -84,6 +87,44 @@ public class ResultPanel extends JPanel {
         updatePageInfo();
     }
     
+    /**
+     * Replace the table with an empty result that rows are appended to as they arrive
+     */
+    public void startResults(String[] columns) {
+        DefaultTableModel model = new DefaultTableModel();
+        for (String column : columns) {
+            model.addColumn(column);
+        }
+        resultTable.setModel(model);
+    }
+    
+    /**
+     * Append a chunk of rows with a single table event
+     */
+    @SuppressWarnings("unchecked")
+    public void appendRows(List<Object[]> rows) {
+        if (rows.isEmpty() || !(resultTable.getModel() instanceof DefaultTableModel)) {
+            return;
+        }
+        DefaultTableModel model = (DefaultTableModel) resultTable.getModel();
+        int firstRow = model.getRowCount();
+        for (Object[] row : rows) {
+            model.getDataVector().add(new Vector<>(Arrays.asList(row)));
+        }
+        model.fireTableRowsInserted(firstRow, model.getRowCount() - 1);
+    }
+    
+    /**
+     * Show a result that loads its rows on demand as the table scrolls
+     */
+    public void displayLazyResults(LazyResultTableModel model) {
+        resultTable.setModel(model);
+    }
+    
+    public int getRowCount() {
+        return resultTable.getModel().getRowCount();
+    }
+    
     public void displayMessage(String message) {
         DefaultTableModel model = new DefaultTableModel();
         model.addColumn("Message");
@@ -0,0 +1,32 @@
+package com.dbconnector.config;
+
+import com.dbconnector.service.LoggingService;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Serve requests on virtual threads when app.threads.virtual=true. Blocking JDBC calls then park
+ * the virtual thread instead of holding one of Tomcat's platform threads, so request concurrency is
+ * bounded by the connection pools rather than server.tomcat.threads.max.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        // Fails startup on an older JVM rather than silently falling back to platform threads
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor();
+        loggingService.logInfo("Handling requests on virtual threads (Java " + System.getProperty("java.version") + ")");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+}
@@ -1,15 +1,21 @@
 package com.dbconnector.controller;
 
+import com.dbconnector.model.CloudConnectionInfo;
 import com.dbconnector.service.CloudServiceDiscoveryService;
 import com.dbconnector.service.CloudMonitoringService;
 import com.dbconnector.service.EnhancedConnectionPoolService;
 import com.dbconnector.service.MultiCloudManagementService;
+import com.dbconnector.service.PoolAutoscalerService;
+import com.dbconnector.service.WorkloadExecutorService;
 import com.dbconnector.service.LoggingService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -30,20 +36,27 @@ public class CloudManagementController {
     @Autowired
     private MultiCloudManagementService multiCloudService;
     
+    @Autowired
+    private PoolAutoscalerService poolAutoscalerService;
+    
+    @Autowired
+    private WorkloadExecutorService executorService;
+    
     @Autowired
     private LoggingService loggingService;
 
     @PostMapping("/discover")
-    public CompletableFuture<ResponseEntity<Map<String, Object>>> discoverInstances(@RequestBody Map<String, Object> credentials) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> discoverInstances(@RequestParam(defaultValue = "false") boolean refresh) {
         loggingService.logAccess("Starting cloud database instance discovery");
         
-        return discoveryService.discoverAllInstances(credentials)
-            .thenApply(instances -> {
+        return discoveryService.discoverInventory(refresh)
+            .thenApply(snapshot -> {
                 Map<String, Object> response = Map.of(
                     "success", true,
                     "message", "Discovery completed successfully",
-                    "instances", instances,
-                    "totalInstances", instances.values().stream().mapToInt(List::size).sum()
+                    "instances", snapshot.getInstances(),
+                    "totalInstances", snapshot.getInstances().values().stream().mapToInt(List::size).sum(),
+                    "version", snapshot.getVersion()
                 );
                 return ResponseEntity.ok(response);
             })
@@ -57,27 +70,92 @@ public class CloudManagementController {
             });
     }
 
+    @GetMapping("/discover/changes")
+    public ResponseEntity<?> getInventoryChanges(@RequestParam(defaultValue = "0") long since) {
+        loggingService.logAccess("Retrieving inventory changes since version " + since);
+        
+        try {
+            Map<String, Object> changes = discoveryService.getChangesSince(since);
+            
+            Map<String, Object> response = new HashMap<>(changes);
+            response.put("success", true);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            loggingService.logError("Error retrieving inventory changes", e);
+            
+            Map<String, Object> response = Map.of(
+                "success", false,
+                "message", "Failed to retrieve inventory changes: " + e.getMessage()
+            );
+            
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    @GetMapping(value = "/discover/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeInventoryChanges() {
+        loggingService.logAccess("Subscribing to inventory change events");
+        return discoveryService.subscribe();
+    }
+
+    @GetMapping("/discover/instances")
+    public ResponseEntity<?> queryInstances(@RequestParam Map<String, Object> filters) {
+        loggingService.logAccess("Querying instance catalog: " + filters);
+        
+        try {
+            List<CloudServiceDiscoveryService.CloudDatabaseInstance> instances = discoveryService.filterInstances(filters);
+            
+            Map<String, Object> response = Map.of(
+                "success", true,
+                "instances", instances,
+                "count", instances.size()
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            loggingService.logError("Error querying instance catalog", e);
+            
+            Map<String, Object> response = Map.of(
+                "success", false,
+                "message", "Failed to query instances: " + e.getMessage()
+            );
+            
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    @GetMapping("/discover/status")
+    public ResponseEntity<?> getDiscoveryStatus() {
+        loggingService.logAccess("Retrieving discovery cache status");
+        
+        try {
+            Map<String, Object> response = Map.of(
+                "success", true,
+                "providers", discoveryService.getDiscoveryStatus(),
+                "timestamp", System.currentTimeMillis()
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            loggingService.logError("Error retrieving discovery status", e);
+            
+            Map<String, Object> response = Map.of(
+                "success", false,
+                "message", "Failed to retrieve discovery status: " + e.getMessage()
+            );
+            
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     @GetMapping("/discover/{provider}")
-    public ResponseEntity<?> discoverProviderInstances(@PathVariable String provider, 
-                                                       @RequestParam Map<String, Object> credentials) {
+    public ResponseEntity<?> discoverProviderInstances(@PathVariable String provider) {
         loggingService.logAccess("Discovering instances for provider: " + provider);
         
         try {
-            List<CloudServiceDiscoveryService.CloudDatabaseInstance> instances;
-            
-            switch (provider.toLowerCase()) {
-                case "aws":
-                    instances = discoveryService.discoverAWSInstances(credentials);
-                    break;
-                case "azure":
-                    instances = discoveryService.discoverAzureInstances(credentials);
-                    break;
-                case "gcp":
-                    instances = discoveryService.discoverGCPInstances(credentials);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported provider: " + provider);
-            }
+            List<CloudServiceDiscoveryService.CloudDatabaseInstance> instances =
+                discoveryService.getProviderInstances(provider.toLowerCase());
             
             Map<String, Object> response = Map.of(
                 "success", true,
@@ -125,6 +203,56 @@ public class CloudManagementController {
         }
     }
 
+    @GetMapping("/monitoring/connections")
+    public ResponseEntity<?> getConnectionMetrics() {
+        loggingService.logAccess("Retrieving per-connection health metrics");
+        
+        try {
+            Map<String, Object> metrics = monitoringService.getConnectionMetrics();
+            
+            Map<String, Object> response = Map.of(
+                "success", true,
+                "connections", metrics,
+                "timestamp", System.currentTimeMillis()
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            loggingService.logError("Error retrieving connection metrics", e);
+            
+            Map<String, Object> response = Map.of(
+                "success", false,
+                "message", "Failed to retrieve connection metrics: " + e.getMessage()
+            );
+            
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    @GetMapping("/monitoring/executors")
+    public ResponseEntity<?> getExecutorStatistics() {
+        loggingService.logAccess("Retrieving executor statistics");
+        
+        try {
+            Map<String, Object> response = Map.of(
+                "success", true,
+                "executors", executorService.getExecutorStatistics(),
+                "timestamp", System.currentTimeMillis()
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            loggingService.logError("Error retrieving executor statistics", e);
+            
+            Map<String, Object> response = Map.of(
+                "success", false,
+                "message", "Failed to retrieve executor statistics: " + e.getMessage()
+            );
+            
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     @GetMapping("/monitoring/health")
     public ResponseEntity<?> getHealthStatus() {
         loggingService.logAccess("Retrieving health status");
@@ -237,11 +365,35 @@ public class CloudManagementController {
         }
     }
 
+    @GetMapping("/pools/autoscaler")
+    public ResponseEntity<?> getAutoscalerStatus() {
+        loggingService.logAccess("Retrieving pool autoscaler status");
+        
+        try {
+            Map<String, Object> response = Map.of(
+                "success", true,
+                "pools", poolAutoscalerService.getAutoscalerStatus(),
+                "timestamp", System.currentTimeMillis()
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            loggingService.logError("Error retrieving pool autoscaler status", e);
+            
+            Map<String, Object> response = Map.of(
+                "success", false,
+                "message", "Failed to retrieve autoscaler status: " + e.getMessage()
+            );
+            
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     @PostMapping("/multicloud/unified-view")
-    public CompletableFuture<ResponseEntity<Map<String, Object>>> getUnifiedCloudView(@RequestBody Map<String, Object> credentials) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getUnifiedCloudView() {
         loggingService.logAccess("Generating unified multi-cloud view");
         
-        return multiCloudService.getUnifiedCloudView(credentials)
+        return multiCloudService.getUnifiedCloudView()
             .thenApply(unifiedView -> {
                 Map<String, Object> response = Map.of(
                     "success", true,
@@ -259,6 +411,53 @@ public class CloudManagementController {
             });
     }
 
+    @PostMapping("/multicloud/connections")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> manageConnections(@RequestBody List<CloudConnectionInfo> connections) {
+        loggingService.logAccess("Establishing " + connections.size() + " multi-cloud connections");
+        
+        return multiCloudService.establishConnections(connections, result -> { })
+            .thenApply(summary -> {
+                Map<String, Object> response = new HashMap<>(summary);
+                response.put("success", true);
+                return ResponseEntity.ok(response);
+            })
+            .exceptionally(throwable -> {
+                loggingService.logError("Error establishing multi-cloud connections", throwable);
+                Map<String, Object> response = Map.of(
+                    "success", false,
+                    "message", "Failed to establish connections: " + throwable.getMessage()
+                );
+                return ResponseEntity.status(500).body(response);
+            });
+    }
+
+    @PostMapping(value = "/multicloud/connections/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamConnections(@RequestBody List<CloudConnectionInfo> connections) {
+        loggingService.logAccess("Streaming establishment of " + connections.size() + " multi-cloud connections");
+        
+        // One "connection" event per connection as it settles, then a "summary" event
+        SseEmitter emitter = new SseEmitter(0L);
+        multiCloudService.establishConnections(connections, result -> {
+            try {
+                emitter.send(SseEmitter.event().name("connection").data(result));
+            } catch (Exception e) {
+                loggingService.logDebug("Connection stream client went away: " + e.getMessage());
+            }
+        }).whenComplete((summary, throwable) -> {
+            try {
+                if (throwable != null) {
+                    emitter.completeWithError(throwable);
+                    return;
+                }
+                emitter.send(SseEmitter.event().name("summary").data(summary));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
     @PostMapping("/multicloud/compare")
     public ResponseEntity<?> compareCloudProviders(@RequestBody Map<String, Object> request) {
         loggingService.logAccess("Comparing cloud providers");
@@ -2,6 +2,7 @@ package com.dbconnector.controller;
 
 import com.dbconnector.model.ConnectionInfo;
 import com.dbconnector.service.ConnectionStorageService;
+import com.dbconnector.service.ConnectionWarmupService;
 import com.dbconnector.service.LoggingService;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +20,9 @@ public class ConnectionController {
     @Autowired
     private ConnectionStorageService connectionStorageService;
     
+    @Autowired
+    private ConnectionWarmupService connectionWarmupService;
+    
     @Autowired
     private LoggingService loggingService;
 
@@ -50,6 +54,20 @@ public class ConnectionController {
         }
     }
 
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<String, Object>> getReadiness() {
+        Map<String, Object> readiness = connectionWarmupService.getReadiness();
+        HttpStatus status = Boolean.TRUE.equals(readiness.get("ready")) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(readiness);
+    }
+
+    @PostMapping("/warmup")
+    public ResponseEntity<Map<String, Object>> warmUpConnections() {
+        loggingService.logAudit("Starting connection warm-up");
+        connectionWarmupService.warmUp();
+        return ResponseEntity.accepted().body(connectionWarmupService.getReadiness());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getConnection(@PathVariable String id) {
         loggingService.logAccess("Retrieving connection with ID: " + id);
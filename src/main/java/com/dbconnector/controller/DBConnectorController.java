@@ -1,10 +1,14 @@
 package com.dbconnector.controller;
 
+import com.dbconnector.model.ConnectionInfo;
 import com.dbconnector.service.ConnectionService;
+import com.dbconnector.service.ConnectionStorageService;
+import com.dbconnector.service.ConnectionWarmupService;
 import com.dbconnector.service.LocalDatabaseService;
 import com.dbconnector.service.CloudConnectionService;
 import com.dbconnector.service.QueryService;
 import com.dbconnector.service.CustomDriverService;
+import com.dbconnector.service.DriverRegistryService;
 import com.dbconnector.service.SchemaService;
 import com.dbconnector.service.CredentialService;
 import com.dbconnector.service.QueryStorageService;
@@ -40,6 +44,12 @@ public class DBConnectorController {
     private CredentialService credentialService;
     @Autowired
     private QueryStorageService queryStorageService;
+    @Autowired
+    private DriverRegistryService driverRegistryService;
+    @Autowired
+    private ConnectionStorageService connectionStorageService;
+    @Autowired
+    private ConnectionWarmupService connectionWarmupService;
 
     @PostMapping("/action")
     public ResponseEntity<?> handleAction(@RequestBody Map<String, Object> request) {
@@ -90,6 +100,9 @@ public class DBConnectorController {
     private ResponseEntity<?> handleConnect(Map<String, Object> request) {
         // Sample payload: {"action":"connect", "connection_type":"local_db", "credentials":{...}, "credentials_profile_name":"..."}
         String connectionType = (String) request.get("connection_type");
+        if ("saved".equals(connectionType)) {
+            return handleConnectSaved(request);
+        }
         Map<String, Object> credentials = (Map<String, Object>) request.get("credentials");
         String profileName = (String) request.get("credentials_profile_name");
         if (credentials == null && profileName != null) {
@@ -159,21 +172,17 @@ public class DBConnectorController {
                     if (driverClass == null || connStr == null) {
                         return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Missing 'driver_class' or 'connection_string' for jdbc_odbc"));
                     }
-                    // Load the driver if needed
+                    java.util.Properties props = new java.util.Properties();
+                    if (username != null) props.setProperty("user", username);
+                    if (password != null) props.setProperty("password", password);
+                    // Imported JARs come from the driver registry, already loaded; others are on the classpath
                     if (jarFileName != null) {
-                        for (com.dbconnector.service.CustomDriverService.CustomDriverInfo info : customDriverService.getAllCustomDrivers().values()) {
-                            if (info.getJarFilePath().endsWith(jarFileName)) {
-                                localDatabaseService.getClass().getClassLoader().loadClass(info.getDriverClassName());
-                                break;
-                            }
-                        }
+                        java.sql.Driver driver = driverRegistryService.getDriverForJar(jarFileName);
+                        connection = driverRegistryService.connect(driver, connStr, props);
                     } else {
                         Class.forName(driverClass);
+                        connection = java.sql.DriverManager.getConnection(connStr, props);
                     }
-                    java.util.Properties props = new java.util.Properties();
-                    if (username != null) props.setProperty("user", username);
-                    if (password != null) props.setProperty("password", password);
-                    connection = java.sql.DriverManager.getConnection(connStr, props);
                     connectionId = UUID.randomUUID().toString();
                     connectionService.addConnection(connectionId, connection);
                     break;
@@ -187,6 +196,28 @@ public class DBConnectorController {
         }
     }
 
+    private ResponseEntity<?> handleConnectSaved(Map<String, Object> request) {
+        // Sample payload: {"action":"connect", "connection_type":"saved", "connection_id":"..."}
+        String savedId = (String) request.get("connection_id");
+        ConnectionInfo info = savedId != null ? connectionStorageService.getConnection(savedId) : null;
+        if (info == null) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Saved connection not found: " + savedId));
+        }
+        try {
+            // Served from the saved connection's pool, which warm-up has already filled for warm connections
+            if (!connectionService.hasConnection(savedId)) {
+                Connection connection = connectionWarmupService.connect(info);
+                if (!connectionService.addConnectionIfAbsent(savedId, connection)) {
+                    // Connected concurrently by another request; hand this one back to the pool
+                    connection.close();
+                }
+            }
+            return ResponseEntity.ok(Map.of("success", true, "message", "Connected successfully", "connectionId", savedId));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
     private ResponseEntity<?> handleDisconnect(Map<String, Object> request) {
         String connectionId = (String) request.get("connectionId");
         if (connectionId == null) {
@@ -304,6 +335,7 @@ public class DBConnectorController {
                 uniqueId, name, filePath.toString(), className, urlTemplate
             );
             customDriverService.registerCustomDriver(driverInfo);
+            driverRegistryService.preload(uniqueId);
 
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -331,8 +363,9 @@ public class DBConnectorController {
         boolean deleted = false;
         for (CustomDriverService.CustomDriverInfo info : customDriverService.getAllCustomDrivers().values()) {
             if (info.getJarFilePath().endsWith(jarName)) {
-                // Remove from service
+                // Remove from service and close its class loader so the file can be deleted
                 customDriverService.getAllCustomDrivers().remove(info.getId());
+                driverRegistryService.release(info.getId());
                 // Delete file
                 try {
                     Files.deleteIfExists(Paths.get(info.getJarFilePath()));
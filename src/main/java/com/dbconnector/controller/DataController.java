@@ -1,12 +1,16 @@
 package com.dbconnector.controller;
 
+import com.dbconnector.service.DataCopyService;
 import com.dbconnector.service.DataService;
 import com.dbconnector.service.LoggingService;
+import com.dbconnector.service.TableDiffService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,6 +20,12 @@ public class DataController {
     @Autowired
     private DataService dataService;
     
+    @Autowired
+    private DataCopyService dataCopyService;
+    
+    @Autowired
+    private TableDiffService tableDiffService;
+    
     @Autowired
     private LoggingService loggingService;
 
@@ -39,6 +49,73 @@ public class DataController {
         }
     }
 
+    /**
+     * Table page with server-side filters and sorting, e.g.
+     * {"filters": [{"column": "status", "op": "in", "values": ["open", "held"]}], "sort": [{"column": "id", "direction": "desc"}]}.
+     * Pages ordered by the primary key carry a nextKey; sending it back as "after" fetches the next page by key.
+     */
+    @PostMapping("/table/query")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<?> queryTableData(@RequestBody Map<String, Object> request) {
+        String connectionId = (String) request.get("connectionId");
+        String tableName = (String) request.get("tableName");
+        String schema = (String) request.get("schema");
+        int page = request.get("page") instanceof Number ? ((Number) request.get("page")).intValue() : 1;
+        int pageSize = request.get("pageSize") instanceof Number ? ((Number) request.get("pageSize")).intValue() : 50;
+        
+        List<DataService.TableFilter> filters = new ArrayList<>();
+        if (request.get("filters") instanceof List) {
+            for (Map<String, Object> filter : (List<Map<String, Object>>) request.get("filters")) {
+                filters.add(DataService.TableFilter.fromMap(filter));
+            }
+        }
+        List<DataService.SortKey> sort = new ArrayList<>();
+        if (request.get("sort") instanceof List) {
+            for (Map<String, Object> key : (List<Map<String, Object>>) request.get("sort")) {
+                sort.add(DataService.SortKey.fromMap(key));
+            }
+        }
+        
+        List<Object> after = request.get("after") instanceof List ? (List<Object>) request.get("after") : null;
+        
+        loggingService.logAccess("Querying table data: " + tableName);
+        
+        try {
+            Map<String, Object> result = dataService.getTableData(connectionId, tableName, schema, page, pageSize,
+                filters, sort, after);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            loggingService.logError("Error querying table data", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error querying table data: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Grouped, optionally pivoted and rolled-up aggregates computed by the database, e.g.
+     * {"groupBy": ["region"], "aggregates": [{"function": "sum", "column": "amount"}], "pivot": {"column": "year"}, "rollup": true}
+     */
+    @PostMapping("/aggregate")
+    public ResponseEntity<?> aggregate(@RequestBody Map<String, Object> request) {
+        loggingService.logAccess("Aggregating table data: " + request.get("tableName"));
+        
+        try {
+            return ResponseEntity.ok(dataService.aggregate(DataService.AggregateRequest.fromMap(request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            loggingService.logError("Error aggregating table data", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error aggregating table data: " + e.getMessage()
+            ));
+        }
+    }
+
     @PostMapping("/insert")
     public ResponseEntity<?> insertRow(@RequestBody Map<String, Object> request) {
         String connectionId = (String) request.get("connectionId");
@@ -145,4 +222,84 @@ public class DataController {
             ));
         }
     }
+
+    @PostMapping("/copy")
+    public ResponseEntity<?> startCopy(@RequestBody Map<String, Object> request) {
+        try {
+            return ResponseEntity.ok(dataCopyService.startCopy(DataCopyService.CopyRequest.fromMap(request)));
+        } catch (Exception e) {
+            loggingService.logError("Error starting copy", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error starting copy: " + e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/copy")
+    public ResponseEntity<?> getCopyJobs() {
+        return ResponseEntity.ok(Map.of("success", true, "jobs", dataCopyService.getJobs()));
+    }
+
+    @GetMapping("/copy/{jobId}")
+    public ResponseEntity<?> getCopyJob(@PathVariable String jobId) {
+        Map<String, Object> job = dataCopyService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(404).body(Map.of("success", false, "message", "Copy job not found"));
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @DeleteMapping("/copy/{jobId}")
+    public ResponseEntity<?> cancelCopy(@PathVariable String jobId) {
+        boolean cancelled = dataCopyService.cancel(jobId);
+        return ResponseEntity.ok(Map.of("success", cancelled, "jobId", jobId));
+    }
+
+    @PostMapping("/copy/ddl")
+    public ResponseEntity<?> generateCopyDdl(@RequestBody Map<String, Object> request) {
+        try {
+            String ddl = dataCopyService.generateTableDdl(DataCopyService.CopyRequest.fromMap(request));
+            return ResponseEntity.ok(Map.of("success", true, "ddl", ddl));
+        } catch (Exception e) {
+            loggingService.logError("Error generating copy DDL", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error generating copy DDL: " + e.getMessage()
+            ));
+        }
+    }
+
+    @PostMapping("/diff")
+    public ResponseEntity<?> startDiff(@RequestBody Map<String, Object> request) {
+        try {
+            return ResponseEntity.ok(tableDiffService.startDiff(TableDiffService.DiffRequest.fromMap(request)));
+        } catch (Exception e) {
+            loggingService.logError("Error starting table diff", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error starting table diff: " + e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/diff")
+    public ResponseEntity<?> getDiffs() {
+        return ResponseEntity.ok(Map.of("success", true, "jobs", tableDiffService.getDiffs()));
+    }
+
+    @GetMapping("/diff/{jobId}")
+    public ResponseEntity<?> getDiff(@PathVariable String jobId) {
+        Map<String, Object> job = tableDiffService.getDiff(jobId);
+        if (job == null) {
+            return ResponseEntity.status(404).body(Map.of("success", false, "message", "Diff job not found"));
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @DeleteMapping("/diff/{jobId}")
+    public ResponseEntity<?> cancelDiff(@PathVariable String jobId) {
+        boolean cancelled = tableDiffService.cancel(jobId);
+        return ResponseEntity.ok(Map.of("success", cancelled, "jobId", jobId));
+    }
 }
\ No newline at end of file
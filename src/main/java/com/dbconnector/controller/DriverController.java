@@ -1,6 +1,7 @@
 package com.dbconnector.controller;
 
 import com.dbconnector.model.DriverInfo;
+import com.dbconnector.service.DriverRegistryService;
 import com.dbconnector.service.DriverService;
 import com.dbconnector.service.LoggingService;
 
@@ -20,6 +21,9 @@ public class DriverController {
     @Autowired
     private DriverService driverService;
     
+    @Autowired
+    private DriverRegistryService driverRegistryService;
+    
     @Autowired
     private LoggingService loggingService;
 
@@ -47,6 +51,7 @@ public class DriverController {
             driverInfo.setDefaultPort(defaultPort);
             
             DriverInfo savedDriver = driverService.saveDriver(driverInfo, driverFile);
+            driverRegistryService.preload(savedDriver.getId());
             
             Map<String, Object> response = Map.of(
                 "success", true,
@@ -67,11 +72,19 @@ public class DriverController {
         }
     }
 
+    @GetMapping("/registry")
+    public ResponseEntity<Map<String, Object>> getDriverRegistry() {
+        loggingService.logAccess("Retrieving loaded driver registry");
+        return ResponseEntity.ok(driverRegistryService.getRegistryStatistics());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteDriver(@PathVariable String id) {
         loggingService.logAudit("Deleting driver with ID: " + id);
         
         try {
+            // Close the driver's class loader before its JAR is deleted
+            driverRegistryService.release(id);
             boolean deleted = driverService.deleteDriver(id);
             if (deleted) {
                 return ResponseEntity.ok(Map.of("success", true, "message", "Driver deleted successfully"));
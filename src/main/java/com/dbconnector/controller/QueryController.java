@@ -1,7 +1,10 @@
 package com.dbconnector.controller;
 
+import com.dbconnector.service.FetchSizeTuningService;
+import com.dbconnector.service.QueryGuardService;
 import com.dbconnector.service.QueryService;
 import com.dbconnector.service.LoggingService;
+import com.dbconnector.service.ResultBufferService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +18,15 @@ public class QueryController {
     @Autowired
     private QueryService queryService;
     
+    @Autowired
+    private QueryGuardService queryGuardService;
+    
+    @Autowired
+    private FetchSizeTuningService fetchSizeTuningService;
+    
+    @Autowired
+    private ResultBufferService resultBufferService;
+    
     @Autowired
     private LoggingService loggingService;
 
@@ -24,12 +36,19 @@ public class QueryController {
         String query = (String) request.get("query");
         Integer page = (Integer) request.getOrDefault("page", 1);
         Integer pageSize = (Integer) request.getOrDefault("pageSize", 50);
+        boolean buffer = Boolean.TRUE.equals(request.get("buffer"));
         
         loggingService.logAccess("Executing query on connection: " + connectionId);
         
         try {
-            Map<String, Object> result = queryService.executeQuery(connectionId, query, page, pageSize);
+            Map<String, Object> result = queryService.executeQuery(connectionId, query, page, pageSize, buffer);
             return ResponseEntity.ok(result);
+        } catch (QueryGuardService.QueryLimitExceededException e) {
+            return ResponseEntity.status(422).body(Map.of(
+                "success", false,
+                "limit", e.getLimit(),
+                "message", e.getMessage()
+            ));
         } catch (Exception e) {
             loggingService.logError("Error executing query", e);
             return ResponseEntity.status(500).body(Map.of(
@@ -43,12 +62,15 @@ public class QueryController {
     public ResponseEntity<?> explainQuery(@RequestBody Map<String, Object> request) {
         String connectionId = (String) request.get("connectionId");
         String query = (String) request.get("query");
+        boolean analyze = Boolean.TRUE.equals(request.get("analyze"));
         
         loggingService.logAccess("Explaining query on connection: " + connectionId);
         
         try {
-            Map<String, Object> result = queryService.explainQuery(connectionId, query);
+            Map<String, Object> result = queryService.explainQuery(connectionId, query, analyze);
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
         } catch (Exception e) {
             loggingService.logError("Error explaining query", e);
             return ResponseEntity.status(500).body(Map.of(
@@ -58,6 +80,22 @@ public class QueryController {
         }
     }
 
+    @PostMapping("/explain/history")
+    public ResponseEntity<?> getPlanHistory(@RequestBody Map<String, Object> request) {
+        String connectionId = (String) request.get("connectionId");
+        String query = (String) request.get("query");
+        
+        try {
+            Map<String, Object> result = queryService.getPlanHistory(connectionId, query);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error retrieving plan history: " + e.getMessage()
+            ));
+        }
+    }
+
     @PostMapping("/validate")
     public ResponseEntity<?> validateQuery(@RequestBody Map<String, Object> request) {
         String connectionId = (String) request.get("connectionId");
@@ -117,4 +155,74 @@ public class QueryController {
             ));
         }
     }
+
+    @GetMapping("/policy")
+    public ResponseEntity<?> getQueryPolicy(@RequestParam(required = false) String connectionId) {
+        QueryGuardService.QueryPolicy policy = queryGuardService.resolvePolicy(connectionId);
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "policy", policy.toMap()
+        ));
+    }
+
+    @PutMapping("/policy/connection/{connectionId}")
+    public ResponseEntity<?> setConnectionPolicy(@PathVariable String connectionId,
+                                                 @RequestBody Map<String, Object> request) {
+        try {
+            queryGuardService.setConnectionPolicy(connectionId, QueryGuardService.QueryPolicy.fromMap(request));
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Query policy updated for connection: " + connectionId
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error updating query policy: " + e.getMessage()
+            ));
+        }
+    }
+
+    @DeleteMapping("/policy/connection/{connectionId}")
+    public ResponseEntity<?> removeConnectionPolicy(@PathVariable String connectionId) {
+        queryGuardService.removeConnectionPolicy(connectionId);
+        return ResponseEntity.ok(Map.of("success", true, "message", "Query policy removed for connection: " + connectionId));
+    }
+
+    @GetMapping("/fetch-statistics")
+    public ResponseEntity<?> getFetchStatistics() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "statistics", fetchSizeTuningService.getStatistics()
+        ));
+    }
+
+    @GetMapping("/results")
+    public ResponseEntity<?> getResultBuffers() {
+        return ResponseEntity.ok(resultBufferService.getStatistics());
+    }
+
+    @GetMapping("/results/{handle}")
+    public ResponseEntity<?> getResultPage(@PathVariable String handle,
+                                           @RequestParam(defaultValue = "1") int page,
+                                           @RequestParam(defaultValue = "50") int pageSize) {
+        try {
+            return ResponseEntity.ok(resultBufferService.getPage(handle, page, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            loggingService.logError("Error reading buffered result", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error reading buffered result: " + e.getMessage()
+            ));
+        }
+    }
+
+    @DeleteMapping("/results/{handle}")
+    public ResponseEntity<?> releaseResult(@PathVariable String handle) {
+        if (!resultBufferService.release(handle)) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Result not found: " + handle));
+        }
+        return ResponseEntity.ok(Map.of("success", true, "message", "Result released: " + handle));
+    }
 }
\ No newline at end of file
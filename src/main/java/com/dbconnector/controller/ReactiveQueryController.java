@@ -0,0 +1,87 @@
+package com.dbconnector.controller;
+
+import com.dbconnector.model.CloudConnectionInfo;
+import com.dbconnector.model.LocalConnectionInfo;
+import com.dbconnector.service.LoggingService;
+import com.dbconnector.service.QueryGuardService;
+import com.dbconnector.service.ReactiveQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reactive")
+public class ReactiveQueryController {
+
+    @Autowired
+    private ReactiveQueryService reactiveQueryService;
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @PostMapping("/connections/local")
+    public ResponseEntity<?> registerLocalConnection(@RequestBody LocalConnectionInfo connectionInfo) {
+        try {
+            return ResponseEntity.ok(reactiveQueryService.register(connectionInfo));
+        } catch (Exception e) {
+            loggingService.logError("Error registering reactive connection", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error registering reactive connection: " + e.getMessage()
+            ));
+        }
+    }
+
+    @PostMapping("/connections/cloud")
+    public ResponseEntity<?> registerCloudConnection(@RequestBody CloudConnectionInfo connectionInfo) {
+        try {
+            return ResponseEntity.ok(reactiveQueryService.register(connectionInfo));
+        } catch (Exception e) {
+            loggingService.logError("Error registering reactive connection", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false,
+                "message", "Error registering reactive connection: " + e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/connections")
+    public ResponseEntity<?> getConnections() {
+        return ResponseEntity.ok(Map.of("success", true, "connections", reactiveQueryService.getStatistics()));
+    }
+
+    @DeleteMapping("/connections/{connectionId}")
+    public ResponseEntity<?> unregisterConnection(@PathVariable String connectionId) {
+        reactiveQueryService.unregister(connectionId);
+        return ResponseEntity.ok(Map.of("success", true, "connectionId", connectionId));
+    }
+
+    /**
+     * Stream rows as newline-delimited JSON, one object per row. A failure after the stream has
+     * started ends it with a {"success": false, ...} line, since the status is already sent.
+     */
+    @PostMapping(value = "/query", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Map<String, Object>> streamQuery(@RequestBody Map<String, Object> request) {
+        String connectionId = (String) request.get("connectionId");
+        String query = (String) request.get("query");
+
+        loggingService.logAccess("Streaming reactive query on connection: " + connectionId);
+
+        return reactiveQueryService.query(connectionId, query)
+            .onErrorResume(e -> {
+                loggingService.logError("Error streaming reactive query", e);
+                Map<String, Object> error = new HashMap<>();
+                error.put("success", false);
+                error.put("message", "Error executing query: " + e.getMessage());
+                if (e instanceof QueryGuardService.QueryLimitExceededException) {
+                    error.put("limit", ((QueryGuardService.QueryLimitExceededException) e).getLimit());
+                }
+                return Flux.just(error);
+            });
+    }
+}
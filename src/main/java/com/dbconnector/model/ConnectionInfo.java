@@ -11,6 +11,7 @@ public class ConnectionInfo {
     private String username;
     private String password;
     private String dbType;
+    private boolean warm; // warm up at startup
     
     public ConnectionInfo() {
         this.id = UUID.randomUUID().toString();
@@ -81,6 +82,14 @@ public class ConnectionInfo {
         this.dbType = dbType;
     }
     
+    public boolean isWarm() {
+        return warm;
+    }
+    
+    public void setWarm(boolean warm) {
+        this.warm = warm;
+    }
+    
     @Override
     public String toString() {
         return "ConnectionInfo{" +
@@ -91,6 +100,7 @@ public class ConnectionInfo {
                 ", database='" + database + '\'' +
                 ", username='" + username + '\'' +
                 ", dbType='" + dbType + '\'' +
+                ", warm=" + warm +
                 '}';
     }
 }
\ No newline at end of file
@@ -17,12 +17,19 @@ public class CloudConnectionService {
     @Autowired
     private LoggingService loggingService;
     
+    @Autowired
+    private DialectService dialectService;
+    
     private final Map<String, Connection> cloudConnections = new ConcurrentHashMap<>();
     
     /**
      * Create connection to AWS RDS
      */
     public Connection connectToAWSRDS(CloudConnectionInfo connectionInfo) throws SQLException {
+        return register(connectionInfo.getId(), openAWSRDS(connectionInfo));
+    }
+    
+    private Connection openAWSRDS(CloudConnectionInfo connectionInfo) throws SQLException {
         loggingService.logInfo("Connecting to AWS RDS: " + connectionInfo.getEndpoint());
         
         Properties props = new Properties();
@@ -45,7 +52,6 @@ public class CloudConnectionService {
         String url = buildRDSConnectionUrl(connectionInfo);
         Connection connection = DriverManager.getConnection(url, props);
         
-        cloudConnections.put(connectionInfo.getId(), connection);
         loggingService.logInfo("Successfully connected to AWS RDS");
         
         return connection;
@@ -55,6 +61,10 @@ public class CloudConnectionService {
      * Create connection to Azure SQL Database
      */
     public Connection connectToAzureSQL(CloudConnectionInfo connectionInfo) throws SQLException {
+        return register(connectionInfo.getId(), openAzureSQL(connectionInfo));
+    }
+    
+    private Connection openAzureSQL(CloudConnectionInfo connectionInfo) throws SQLException {
         loggingService.logInfo("Connecting to Azure SQL Database: " + connectionInfo.getEndpoint());
         
         Properties props = new Properties();
@@ -76,7 +86,6 @@ public class CloudConnectionService {
         String url = buildAzureSQLConnectionUrl(connectionInfo);
         Connection connection = DriverManager.getConnection(url, props);
         
-        cloudConnections.put(connectionInfo.getId(), connection);
         loggingService.logInfo("Successfully connected to Azure SQL Database");
         
         return connection;
@@ -86,6 +95,10 @@ public class CloudConnectionService {
      * Create connection to Google Cloud SQL
      */
     public Connection connectToGoogleCloudSQL(CloudConnectionInfo connectionInfo) throws SQLException {
+        return register(connectionInfo.getId(), openGoogleCloudSQL(connectionInfo));
+    }
+    
+    private Connection openGoogleCloudSQL(CloudConnectionInfo connectionInfo) throws SQLException {
         loggingService.logInfo("Connecting to Google Cloud SQL: " + connectionInfo.getEndpoint());
         
         Properties props = new Properties();
@@ -107,38 +120,56 @@ public class CloudConnectionService {
         String url = buildGoogleCloudSQLConnectionUrl(connectionInfo);
         Connection connection = DriverManager.getConnection(url, props);
         
-        cloudConnections.put(connectionInfo.getId(), connection);
         loggingService.logInfo("Successfully connected to Google Cloud SQL");
         
         return connection;
     }
     
+    /**
+     * Open a connection with the provider-specific settings without registering it; the caller
+     * registers it once it is known to be wanted, or closes it
+     */
+    public Connection open(CloudConnectionInfo connectionInfo) throws SQLException {
+        switch (connectionInfo.getCloudProvider()) {
+            case "aws":
+                return openAWSRDS(connectionInfo);
+            case "azure":
+                return openAzureSQL(connectionInfo);
+            case "gcp":
+                return openGoogleCloudSQL(connectionInfo);
+            default:
+                throw new SQLException("Unsupported cloud provider: " + connectionInfo.getCloudProvider());
+        }
+    }
+    
+    /**
+     * Make a connection the active cloud connection for its id, closing the one it replaces
+     */
+    public Connection register(String connectionId, Connection connection) {
+        Connection previous = cloudConnections.put(connectionId, connection);
+        if (previous != null && previous != connection) {
+            try {
+                previous.close();
+                loggingService.logInfo("Replaced cloud connection: " + connectionId);
+            } catch (SQLException e) {
+                loggingService.logError("Error closing replaced cloud connection", e);
+            }
+        }
+        return connection;
+    }
+    
     /**
      * Test cloud database connection
      */
     public boolean testCloudConnection(CloudConnectionInfo connectionInfo) {
         try {
-            Connection testConnection = null;
-            
-            switch (connectionInfo.getCloudProvider()) {
-                case "aws":
-                    testConnection = connectToAWSRDS(connectionInfo);
-                    break;
-                case "azure":
-                    testConnection = connectToAzureSQL(connectionInfo);
-                    break;
-                case "gcp":
-                    testConnection = connectToGoogleCloudSQL(connectionInfo);
-                    break;
-                default:
-                    throw new SQLException("Unsupported cloud provider: " + connectionInfo.getCloudProvider());
-            }
+            Connection testConnection = open(connectionInfo);
             
-            // Test the connection with a simple query
+            // Validate through the dialect, which avoids a query round-trip where the driver allows it
             if (testConnection != null && !testConnection.isClosed()) {
-                testConnection.createStatement().execute("SELECT 1");
+                boolean valid = dialectService.forConnection(testConnection).validate(testConnection, 5);
                 testConnection.close();
-                return true;
+                return valid;
             }
             
         } catch (SQLException e) {
@@ -5,12 +5,15 @@ import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class CloudMonitoringService {
@@ -21,116 +24,114 @@ public class CloudMonitoringService {
     @Autowired
     private MeterRegistry meterRegistry;
     
-    // Connection metrics
-    private final Map<String, AtomicInteger> activeConnections = new ConcurrentHashMap<>();
-    private final Map<String, AtomicLong> totalConnections = new ConcurrentHashMap<>();
-    private final Map<String, AtomicLong> failedConnections = new ConcurrentHashMap<>();
+    private final WindowConfig connectionWindowConfig;
+    private final WindowConfig queryWindowConfig;
+    private final int burnShortMinutes;
+    private final int burnLongMinutes;
+    private final double burnAlertThreshold;
     
-    // Performance metrics
-    private final Map<String, Timer> connectionTimers = new ConcurrentHashMap<>();
-    private final Map<String, Timer> queryTimers = new ConcurrentHashMap<>();
+    // One pre-registered set of meters per provider; the record methods only touch these handles
+    private final Map<String, ProviderMetrics> providers = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionMetrics> connections = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> discoveredInstances = new ConcurrentHashMap<>();
     
-    // Health metrics
-    private final Map<String, AtomicInteger> healthScores = new ConcurrentHashMap<>();
-    private final Map<String, Long> lastHealthCheck = new ConcurrentHashMap<>();
+    public CloudMonitoringService(@Value("${app.monitoring.window.bucket-ms:10000}") long bucketMs,
+                                  @Value("${app.monitoring.window.percentile-window-ms:60000}") long percentileWindowMs,
+                                  @Value("${app.monitoring.health.half-life-ms:60000}") long halfLifeMs,
+                                  @Value("${app.monitoring.slo.target:0.99}") double sloTarget,
+                                  @Value("${app.monitoring.slo.connection-latency-ms:100}") long connectionLatencyMs,
+                                  @Value("${app.monitoring.slo.query-latency-ms:1000}") long queryLatencyMs,
+                                  @Value("${app.monitoring.slo.burn-short-minutes:5}") int burnShortMinutes,
+                                  @Value("${app.monitoring.slo.burn-long-minutes:60}") int burnLongMinutes,
+                                  @Value("${app.monitoring.slo.burn-alert-threshold:14.4}") double burnAlertThreshold) {
+        int windowBuckets = (int) Math.max(1, percentileWindowMs / bucketMs);
+        this.connectionWindowConfig = new WindowConfig(windowBuckets, halfLifeMs, sloTarget,
+            TimeUnit.MILLISECONDS.toMicros(connectionLatencyMs));
+        this.queryWindowConfig = new WindowConfig(windowBuckets, halfLifeMs, sloTarget,
+            TimeUnit.MILLISECONDS.toMicros(queryLatencyMs));
+        this.burnShortMinutes = Math.min(burnShortMinutes, HealthWindow.BURN_SLOTS);
+        this.burnLongMinutes = Math.min(burnLongMinutes, HealthWindow.BURN_SLOTS);
+        this.burnAlertThreshold = burnAlertThreshold;
+    }
     
     /**
      * Initialize monitoring for a cloud provider
      */
     public void initializeProviderMonitoring(String cloudProvider) {
+        if (providers.containsKey(cloudProvider)) {
+            return;
+        }
         loggingService.logInfo("Initializing monitoring for cloud provider: " + cloudProvider);
-        
-        // Initialize connection counters
-        activeConnections.put(cloudProvider, new AtomicInteger(0));
-        totalConnections.put(cloudProvider, new AtomicLong(0));
-        failedConnections.put(cloudProvider, new AtomicLong(0));
-        healthScores.put(cloudProvider, new AtomicInteger(100));
-        
-        // Register Micrometer gauges
-        Gauge.builder("cloud.connections.active", activeConnections.get(cloudProvider), AtomicInteger::get)
-            .tag("provider", cloudProvider)
-            .register(meterRegistry);
-            
-        Gauge.builder("cloud.connections.total", totalConnections.get(cloudProvider), AtomicLong::get)
-            .tag("provider", cloudProvider)
-            .register(meterRegistry);
-            
-        Gauge.builder("cloud.connections.failed", failedConnections.get(cloudProvider), AtomicLong::get)
-            .tag("provider", cloudProvider)
-            .register(meterRegistry);
-            
-        Gauge.builder("cloud.health.score", healthScores.get(cloudProvider), AtomicInteger::get)
-            .tag("provider", cloudProvider)
-            .register(meterRegistry);
-        
-        // Initialize timers
-        connectionTimers.put(cloudProvider, 
-            Timer.builder("cloud.connection.duration")
-                .tag("provider", cloudProvider)
-                .register(meterRegistry));
-                
-        queryTimers.put(cloudProvider,
-            Timer.builder("cloud.query.duration")
-                .tag("provider", cloudProvider)
-                .register(meterRegistry));
+        providerMetrics(cloudProvider);
+    }
+    
+    /**
+     * Resolve the meter handles for a provider, registering them on first use
+     */
+    public ProviderMetrics providerMetrics(String cloudProvider) {
+        ProviderMetrics metrics = providers.get(cloudProvider);
+        if (metrics != null) {
+            return metrics;
+        }
+        return providers.computeIfAbsent(cloudProvider, provider ->
+            new ProviderMetrics(provider, meterRegistry, connectionWindowConfig, queryWindowConfig));
+    }
+    
+    /**
+     * Resolve the health windows for a connection; a non-null provider also feeds that provider's totals
+     */
+    public ConnectionMetrics connectionMetrics(String connectionId, String cloudProvider) {
+        ConnectionMetrics metrics = connections.get(connectionId);
+        if (metrics == null) {
+            metrics = connections.computeIfAbsent(connectionId, id ->
+                new ConnectionMetrics(id, connectionWindowConfig, queryWindowConfig));
+        }
+        if (cloudProvider != null && metrics.provider == null) {
+            metrics.provider = providerMetrics(cloudProvider);
+        }
+        return metrics;
+    }
+    
+    /**
+     * Stop tracking a connection that has been closed
+     */
+    public void removeConnectionMetrics(String connectionId) {
+        connections.remove(connectionId);
     }
     
     /**
      * Record connection attempt
      */
     public void recordConnectionAttempt(String cloudProvider, boolean successful, long durationMs) {
-        totalConnections.get(cloudProvider).incrementAndGet();
-        
-        if (successful) {
-            activeConnections.get(cloudProvider).incrementAndGet();
-            connectionTimers.get(cloudProvider).record(durationMs, java.util.concurrent.TimeUnit.MILLISECONDS);
-            
-            // Update health score positively
-            updateHealthScore(cloudProvider, 5);
-        } else {
-            failedConnections.get(cloudProvider).incrementAndGet();
-            
-            // Update health score negatively
-            updateHealthScore(cloudProvider, -10);
-        }
-        
-        loggingService.logInfo("Connection attempt recorded for " + cloudProvider + 
-            " - Success: " + successful + ", Duration: " + durationMs + "ms");
+        providerMetrics(cloudProvider).recordConnectionAttempt(successful, TimeUnit.MILLISECONDS.toNanos(durationMs));
     }
     
     /**
      * Record connection closure
      */
     public void recordConnectionClosure(String cloudProvider) {
-        activeConnections.get(cloudProvider).decrementAndGet();
-        loggingService.logInfo("Connection closure recorded for " + cloudProvider);
+        providerMetrics(cloudProvider).recordConnectionClosure();
     }
     
     /**
      * Record query execution
      */
     public void recordQueryExecution(String cloudProvider, long durationMs, boolean successful) {
-        queryTimers.get(cloudProvider).record(durationMs, java.util.concurrent.TimeUnit.MILLISECONDS);
-        
-        if (successful) {
-            updateHealthScore(cloudProvider, 1);
-        } else {
-            updateHealthScore(cloudProvider, -5);
-        }
-        
-        loggingService.logInfo("Query execution recorded for " + cloudProvider + 
-            " - Success: " + successful + ", Duration: " + durationMs + "ms");
+        providerMetrics(cloudProvider).recordQueryExecution(TimeUnit.MILLISECONDS.toNanos(durationMs), successful);
     }
     
     /**
-     * Update health score for a provider
+     * Close the current window bucket of every provider and connection and refresh the decayed health scores
      */
-    private void updateHealthScore(String cloudProvider, int delta) {
-        AtomicInteger currentScore = healthScores.get(cloudProvider);
-        int newScore = Math.max(0, Math.min(100, currentScore.get() + delta));
-        currentScore.set(newScore);
-        
-        lastHealthCheck.put(cloudProvider, System.currentTimeMillis());
+    @Scheduled(fixedRateString = "${app.monitoring.window.bucket-ms:10000}")
+    public void advanceWindows() {
+        long now = System.currentTimeMillis();
+        for (ProviderMetrics provider : providers.values()) {
+            provider.tick(now);
+        }
+        for (ConnectionMetrics connection : connections.values()) {
+            connection.tick(now);
+        }
     }
     
     /**
@@ -139,40 +140,103 @@ public class CloudMonitoringService {
     public Map<String, Object> getMonitoringMetrics() {
         Map<String, Object> metrics = new HashMap<>();
         
-        for (String provider : activeConnections.keySet()) {
+        for (ProviderMetrics provider : providers.values()) {
             Map<String, Object> providerMetrics = new HashMap<>();
             
-            providerMetrics.put("activeConnections", activeConnections.get(provider).get());
-            providerMetrics.put("totalConnections", totalConnections.get(provider).get());
-            providerMetrics.put("failedConnections", failedConnections.get(provider).get());
-            providerMetrics.put("healthScore", healthScores.get(provider).get());
-            providerMetrics.put("lastHealthCheck", lastHealthCheck.get(provider));
+            long total = provider.totalConnections.sum();
+            long failed = provider.failedConnections.sum();
+            providerMetrics.put("activeConnections", provider.activeConnections.sum());
+            providerMetrics.put("totalConnections", total);
+            providerMetrics.put("failedConnections", failed);
+            providerMetrics.put("healthScore", provider.getHealthScore());
+            providerMetrics.put("lastHealthCheck", provider.lastHealthCheck > 0 ? provider.lastHealthCheck : null);
             
             // Calculate success rate
-            long total = totalConnections.get(provider).get();
-            long failed = failedConnections.get(provider).get();
             double successRate = total > 0 ? ((double)(total - failed) / total) * 100 : 0;
             providerMetrics.put("successRate", successRate);
             
-            // Get timer statistics
-            Timer connectionTimer = connectionTimers.get(provider);
-            if (connectionTimer != null) {
-                providerMetrics.put("avgConnectionTime", connectionTimer.mean(java.util.concurrent.TimeUnit.MILLISECONDS));
-                providerMetrics.put("maxConnectionTime", connectionTimer.max(java.util.concurrent.TimeUnit.MILLISECONDS));
-            }
+            providerMetrics.put("avgConnectionTime", provider.connectionTimer.mean(TimeUnit.MILLISECONDS));
+            providerMetrics.put("maxConnectionTime", provider.connectionTimer.max(TimeUnit.MILLISECONDS));
+            providerMetrics.put("avgQueryTime", provider.queryTimer.mean(TimeUnit.MILLISECONDS));
+            providerMetrics.put("maxQueryTime", provider.queryTimer.max(TimeUnit.MILLISECONDS));
             
-            Timer queryTimer = queryTimers.get(provider);
-            if (queryTimer != null) {
-                providerMetrics.put("avgQueryTime", queryTimer.mean(java.util.concurrent.TimeUnit.MILLISECONDS));
-                providerMetrics.put("maxQueryTime", queryTimer.max(java.util.concurrent.TimeUnit.MILLISECONDS));
-            }
+            providerMetrics.put("connectionWindow", windowSummary(provider.connectionWindow));
+            providerMetrics.put("queryWindow", windowSummary(provider.queryWindow));
             
-            metrics.put(provider, providerMetrics);
+            metrics.put(provider.provider, providerMetrics);
+        }
+        
+        return metrics;
+    }
+    
+    /**
+     * Get health windows for every tracked connection
+     */
+    public Map<String, Object> getConnectionMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        
+        for (ConnectionMetrics connection : connections.values()) {
+            Map<String, Object> connectionMetrics = new HashMap<>();
+            connectionMetrics.put("provider", connection.provider != null ? connection.provider.provider : null);
+            connectionMetrics.put("healthScore", connection.getHealthScore());
+            connectionMetrics.put("status", statusFor(connection));
+            connectionMetrics.put("connectionWindow", windowSummary(connection.connectionWindow));
+            connectionMetrics.put("queryWindow", windowSummary(connection.queryWindow));
+            metrics.put(connection.connectionId, connectionMetrics);
         }
         
         return metrics;
     }
     
+    private Map<String, Object> windowSummary(HealthWindow window) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("windowSamples", window.windowSamples());
+        summary.put("p50Ms", window.percentileMillis(0.50));
+        summary.put("p95Ms", window.percentileMillis(0.95));
+        summary.put("p99Ms", window.percentileMillis(0.99));
+        summary.put("errorRateEwma", window.getErrorRateEwma());
+        summary.put("latencyEwmaMs", window.getLatencyEwmaMicros() / 1000.0);
+        summary.put("badEventRateEwma", window.getBadRateEwma());
+        summary.put("sloTarget", window.config.sloTarget);
+        summary.put("sloLatencyMs", window.config.latencyThresholdMicros / 1000.0);
+        summary.put("burnRateShort", window.burnRate(burnShortMinutes));
+        summary.put("burnRateLong", window.burnRate(burnLongMinutes));
+        summary.put("burnShortMinutes", burnShortMinutes);
+        summary.put("burnLongMinutes", burnLongMinutes);
+        summary.put("sloBurning", isBurning(window));
+        summary.put("healthScore", window.score());
+        return summary;
+    }
+    
+    /**
+     * Multi-window burn alert: both the short and the long window must exceed the threshold
+     */
+    private boolean isBurning(HealthWindow window) {
+        return window.burnRate(burnShortMinutes) >= burnAlertThreshold
+            && window.burnRate(burnLongMinutes) >= burnAlertThreshold;
+    }
+    
+    private String statusFor(WindowedMetrics metrics) {
+        int score = metrics.getHealthScore();
+        
+        String status;
+        if (score >= 80) {
+            status = "HEALTHY";
+        } else if (score >= 60) {
+            status = "WARNING";
+        } else if (score >= 40) {
+            status = "DEGRADED";
+        } else {
+            status = "CRITICAL";
+        }
+        
+        // A fast error-budget burn is actionable even while the smoothed score still looks fine
+        if ("HEALTHY".equals(status) && (isBurning(metrics.connectionWindow) || isBurning(metrics.queryWindow))) {
+            status = "WARNING";
+        }
+        return status;
+    }
+    
     /**
      * Record service discovery metrics
      */
@@ -181,10 +245,15 @@ public class CloudMonitoringService {
             String provider = entry.getKey();
             int instanceCount = entry.getValue().size();
             
-            Gauge.builder("cloud.discovery.instances", () -> instanceCount)
-                .tag("provider", provider)
-                .register(meterRegistry);
-                
+            // Register once and update the backing value; a gauge re-registered with a new lambda keeps the old one
+            this.discoveredInstances.computeIfAbsent(provider, p -> {
+                AtomicInteger count = new AtomicInteger();
+                Gauge.builder("cloud.discovery.instances", count, AtomicInteger::get)
+                    .tag("provider", p)
+                    .register(meterRegistry);
+                return count;
+            }).set(instanceCount);
+            
             loggingService.logInfo("Discovery metrics recorded for " + provider + ": " + instanceCount + " instances");
         }
     }
@@ -195,22 +264,8 @@ public class CloudMonitoringService {
     public Map<String, String> getHealthStatus() {
         Map<String, String> healthStatus = new HashMap<>();
         
-        for (Map.Entry<String, AtomicInteger> entry : healthScores.entrySet()) {
-            String provider = entry.getKey();
-            int score = entry.getValue().get();
-            
-            String status;
-            if (score >= 80) {
-                status = "HEALTHY";
-            } else if (score >= 60) {
-                status = "WARNING";
-            } else if (score >= 40) {
-                status = "DEGRADED";
-            } else {
-                status = "CRITICAL";
-            }
-            
-            healthStatus.put(provider, status);
+        for (ProviderMetrics provider : providers.values()) {
+            healthStatus.put(provider.provider, statusFor(provider));
         }
         
         return healthStatus;
@@ -225,21 +280,30 @@ public class CloudMonitoringService {
         report.put("timestamp", new Date());
         report.put("metrics", getMonitoringMetrics());
         report.put("healthStatus", getHealthStatus());
+        report.put("connections", getConnectionMetrics());
         
         // Calculate overall system health
-        double avgHealthScore = healthScores.values().stream()
-            .mapToInt(AtomicInteger::get)
+        double avgHealthScore = providers.values().stream()
+            .mapToInt(ProviderMetrics::getHealthScore)
             .average()
             .orElse(0.0);
         report.put("overallHealthScore", avgHealthScore);
         
         // Calculate total active connections
-        int totalActiveConnections = activeConnections.values().stream()
-            .mapToInt(AtomicInteger::get)
+        long totalActiveConnections = providers.values().stream()
+            .mapToLong(provider -> provider.activeConnections.sum())
             .sum();
         report.put("totalActiveConnections", totalActiveConnections);
         
-        loggingService.logInfo("Monitoring report generated - Overall health: " + avgHealthScore + 
+        List<String> burningProviders = new ArrayList<>();
+        for (ProviderMetrics provider : providers.values()) {
+            if (isBurning(provider.connectionWindow) || isBurning(provider.queryWindow)) {
+                burningProviders.add(provider.provider);
+            }
+        }
+        report.put("sloBurningProviders", burningProviders);
+        
+        loggingService.logInfo("Monitoring report generated - Overall health: " + avgHealthScore +
             ", Active connections: " + totalActiveConnections);
         
         return report;
@@ -249,11 +313,392 @@ public class CloudMonitoringService {
      * Reset metrics for a provider
      */
     public void resetProviderMetrics(String cloudProvider) {
-        activeConnections.get(cloudProvider).set(0);
-        totalConnections.get(cloudProvider).set(0);
-        failedConnections.get(cloudProvider).set(0);
-        healthScores.get(cloudProvider).set(100);
+        ProviderMetrics metrics = providers.get(cloudProvider);
+        if (metrics == null) {
+            return;
+        }
+        metrics.reset();
         
         loggingService.logInfo("Metrics reset for cloud provider: " + cloudProvider);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Settings shared by all windows of one kind (connection acquires or queries)
+     */
+    static class WindowConfig {
+        private final int windowBuckets;
+        private final long halfLifeMs;
+        private final double sloTarget;
+        private final long latencyThresholdMicros;
+        
+        WindowConfig(int windowBuckets, long halfLifeMs, double sloTarget, long latencyThresholdMicros) {
+            this.windowBuckets = windowBuckets;
+            this.halfLifeMs = halfLifeMs;
+            this.sloTarget = sloTarget;
+            this.latencyThresholdMicros = latencyThresholdMicros;
+        }
+    }
+    
+    /**
+     * Sliding-window latency histogram with time-decayed error and latency averages and per-minute SLO counts.
+     * Recording only increments LongAdders in the current bucket; rotation, decay and burn accounting
+     * happen in tick(), which runs on the scheduler.
+     */
+    public static class HealthWindow {
+        static final int BURN_SLOTS = 60;
+        // Geometric latency bins from 50us, 25% apart, up to several minutes
+        private static final long[] BIN_BOUNDS_MICROS = new long[72];
+        
+        static {
+            double bound = 50;
+            for (int i = 0; i < BIN_BOUNDS_MICROS.length; i++) {
+                BIN_BOUNDS_MICROS[i] = (long) bound;
+                bound *= 1.25;
+            }
+        }
+        
+        private final WindowConfig config;
+        private final Bucket[] buckets;
+        private volatile Bucket current;
+        private int currentIndex;
+        
+        // Written by tick() only
+        private volatile double errorRateEwma;
+        private volatile double latencyEwmaMicros;
+        private volatile double badRateEwma;
+        private boolean seeded;
+        private long lastTick = System.currentTimeMillis();
+        private final long[] burnMinute = new long[BURN_SLOTS];
+        private final long[] burnTotal = new long[BURN_SLOTS];
+        private final long[] burnBad = new long[BURN_SLOTS];
+        
+        HealthWindow(WindowConfig config) {
+            this.config = config;
+            // One extra bucket is the partially filled current one
+            this.buckets = new Bucket[config.windowBuckets + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.current = buckets[0];
+        }
+        
+        public void record(long durationNanos, boolean successful) {
+            Bucket bucket = current;
+            bucket.count.increment();
+            if (!successful) {
+                bucket.errors.increment();
+                return;
+            }
+            long micros = durationNanos / 1000;
+            bucket.latencyMicros.add(micros);
+            bucket.bins[binFor(micros)].increment();
+            if (micros > config.latencyThresholdMicros) {
+                bucket.slow.increment();
+            }
+        }
+        
+        private static int binFor(long micros) {
+            int index = Arrays.binarySearch(BIN_BOUNDS_MICROS, micros);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return Math.min(index, BIN_BOUNDS_MICROS.length);
+        }
+        
+        synchronized void tick(long now) {
+            Bucket closed = current;
+            currentIndex = (currentIndex + 1) % buckets.length;
+            buckets[currentIndex].reset();
+            current = buckets[currentIndex];
+            
+            long elapsed = Math.max(1, now - lastTick);
+            lastTick = now;
+            
+            long count = closed.count.sum();
+            if (count == 0) {
+                // No evidence either way: keep the last estimate instead of decaying toward "healthy"
+                return;
+            }
+            long errors = closed.errors.sum();
+            long bad = errors + closed.slow.sum();
+            long successes = count - errors;
+            
+            double alpha = seeded ? 1 - Math.pow(0.5, (double) elapsed / config.halfLifeMs) : 1.0;
+            errorRateEwma += alpha * ((double) errors / count - errorRateEwma);
+            badRateEwma += alpha * ((double) bad / count - badRateEwma);
+            if (successes > 0) {
+                double meanLatency = (double) closed.latencyMicros.sum() / successes;
+                latencyEwmaMicros = latencyEwmaMicros == 0 ? meanLatency
+                    : latencyEwmaMicros + alpha * (meanLatency - latencyEwmaMicros);
+            }
+            seeded = true;
+            
+            long minute = TimeUnit.MILLISECONDS.toMinutes(now);
+            int slot = (int) (minute % BURN_SLOTS);
+            if (burnMinute[slot] != minute) {
+                burnMinute[slot] = minute;
+                burnTotal[slot] = 0;
+                burnBad[slot] = 0;
+            }
+            burnTotal[slot] += count;
+            burnBad[slot] += bad;
+        }
+        
+        /**
+         * Observed bad-event rate over the last minutes divided by the error budget (1 - target)
+         */
+        public synchronized double burnRate(int minutes) {
+            long currentMinute = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+            long total = 0;
+            long bad = 0;
+            for (int i = 0; i < BURN_SLOTS; i++) {
+                if (burnMinute[i] > currentMinute - minutes) {
+                    total += burnTotal[i];
+                    bad += burnBad[i];
+                }
+            }
+            double budget = 1 - config.sloTarget;
+            if (total == 0 || budget <= 0) {
+                return 0;
+            }
+            return ((double) bad / total) / budget;
+        }
+        
+        /**
+         * Latency at the given quantile across the window, as the upper bound of its histogram bin
+         */
+        public double percentileMillis(double quantile) {
+            long[] counts = new long[BIN_BOUNDS_MICROS.length + 1];
+            long total = 0;
+            for (Bucket bucket : buckets) {
+                for (int i = 0; i < counts.length; i++) {
+                    long binCount = bucket.bins[i].sum();
+                    counts[i] += binCount;
+                    total += binCount;
+                }
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long bound = i < BIN_BOUNDS_MICROS.length ? BIN_BOUNDS_MICROS[i] : BIN_BOUNDS_MICROS[BIN_BOUNDS_MICROS.length - 1];
+                    return bound / 1000.0;
+                }
+            }
+            return BIN_BOUNDS_MICROS[BIN_BOUNDS_MICROS.length - 1] / 1000.0;
+        }
+        
+        public long windowSamples() {
+            long total = 0;
+            for (Bucket bucket : buckets) {
+                total += bucket.count.sum();
+            }
+            return total;
+        }
+        
+        /**
+         * 0-100 score from the decayed bad-event rate; 0 once it reaches ten times the error budget
+         */
+        public int score() {
+            if (!seeded) {
+                return 100;
+            }
+            double budget = Math.max(1e-6, 1 - config.sloTarget);
+            double consumed = Math.min(1.0, badRateEwma / (10 * budget));
+            return (int) Math.round(100 * (1 - consumed));
+        }
+        
+        boolean hasSamples() {
+            return seeded;
+        }
+        
+        public double getErrorRateEwma() { return errorRateEwma; }
+        public double getLatencyEwmaMicros() { return latencyEwmaMicros; }
+        public double getBadRateEwma() { return badRateEwma; }
+        
+        synchronized void reset() {
+            for (Bucket bucket : buckets) {
+                bucket.reset();
+            }
+            errorRateEwma = 0;
+            latencyEwmaMicros = 0;
+            badRateEwma = 0;
+            seeded = false;
+            Arrays.fill(burnMinute, 0);
+            Arrays.fill(burnTotal, 0);
+            Arrays.fill(burnBad, 0);
+        }
+        
+        private static class Bucket {
+            private final LongAdder count = new LongAdder();
+            private final LongAdder errors = new LongAdder();
+            private final LongAdder slow = new LongAdder();
+            private final LongAdder latencyMicros = new LongAdder();
+            private final LongAdder[] bins = new LongAdder[BIN_BOUNDS_MICROS.length + 1];
+            
+            Bucket() {
+                for (int i = 0; i < bins.length; i++) {
+                    bins[i] = new LongAdder();
+                }
+            }
+            
+            void reset() {
+                count.reset();
+                errors.reset();
+                slow.reset();
+                latencyMicros.reset();
+                for (LongAdder bin : bins) {
+                    bin.reset();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Connection-acquire and query health windows; the score is the worse of the two
+     */
+    public abstract static class WindowedMetrics {
+        final HealthWindow connectionWindow;
+        final HealthWindow queryWindow;
+        final AtomicInteger healthScore = new AtomicInteger(100);
+        volatile long lastHealthCheck;
+        
+        WindowedMetrics(WindowConfig connectionConfig, WindowConfig queryConfig) {
+            this.connectionWindow = new HealthWindow(connectionConfig);
+            this.queryWindow = new HealthWindow(queryConfig);
+        }
+        
+        void tick(long now) {
+            connectionWindow.tick(now);
+            queryWindow.tick(now);
+            
+            int score = 100;
+            if (connectionWindow.hasSamples()) {
+                score = Math.min(score, connectionWindow.score());
+            }
+            if (queryWindow.hasSamples()) {
+                score = Math.min(score, queryWindow.score());
+            }
+            healthScore.set(score);
+            lastHealthCheck = now;
+        }
+        
+        public int getHealthScore() { return healthScore.get(); }
+    }
+    
+    /**
+     * Pre-resolved meters and counters for one provider. Recording is lock-free and allocation-free:
+     * LongAdder counters, window buckets and Timers, and no logging.
+     */
+    public static class ProviderMetrics extends WindowedMetrics {
+        private final String provider;
+        private final LongAdder activeConnections = new LongAdder();
+        private final LongAdder totalConnections = new LongAdder();
+        private final LongAdder failedConnections = new LongAdder();
+        private final Timer connectionTimer;
+        private final Timer queryTimer;
+        private final Counter queryFailures;
+        
+        ProviderMetrics(String provider, MeterRegistry meterRegistry, WindowConfig connectionConfig, WindowConfig queryConfig) {
+            super(connectionConfig, queryConfig);
+            this.provider = provider;
+            
+            Gauge.builder("cloud.connections.active", activeConnections, LongAdder::sum)
+                .tag("provider", provider)
+                .register(meterRegistry);
+            Gauge.builder("cloud.connections.total", totalConnections, LongAdder::sum)
+                .tag("provider", provider)
+                .register(meterRegistry);
+            Gauge.builder("cloud.connections.failed", failedConnections, LongAdder::sum)
+                .tag("provider", provider)
+                .register(meterRegistry);
+            Gauge.builder("cloud.health.score", healthScore, AtomicInteger::get)
+                .tag("provider", provider)
+                .register(meterRegistry);
+            Gauge.builder("cloud.slo.error_rate_ewma", queryWindow, HealthWindow::getErrorRateEwma)
+                .tag("provider", provider)
+                .register(meterRegistry);
+            
+            this.connectionTimer = Timer.builder("cloud.connection.duration")
+                .tag("provider", provider)
+                .register(meterRegistry);
+            this.queryTimer = Timer.builder("cloud.query.duration")
+                .tag("provider", provider)
+                .register(meterRegistry);
+            this.queryFailures = Counter.builder("cloud.query.failures")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        }
+        
+        public void recordConnectionAttempt(boolean successful, long durationNanos) {
+            totalConnections.increment();
+            connectionWindow.record(durationNanos, successful);
+            
+            if (successful) {
+                activeConnections.increment();
+                connectionTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+            } else {
+                failedConnections.increment();
+            }
+        }
+        
+        public void recordConnectionClosure() {
+            activeConnections.decrement();
+        }
+        
+        public void recordQueryExecution(long durationNanos, boolean successful) {
+            queryTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+            queryWindow.record(durationNanos, successful);
+            
+            if (!successful) {
+                queryFailures.increment();
+            }
+        }
+        
+        void reset() {
+            activeConnections.reset();
+            totalConnections.reset();
+            failedConnections.reset();
+            connectionWindow.reset();
+            queryWindow.reset();
+            healthScore.set(100);
+        }
+        
+        public String getProvider() { return provider; }
+    }
+    
+    /**
+     * Health windows for one connection id, forwarding to its provider once the provider is known
+     */
+    public static class ConnectionMetrics extends WindowedMetrics {
+        private final String connectionId;
+        private volatile ProviderMetrics provider;
+        
+        ConnectionMetrics(String connectionId, WindowConfig connectionConfig, WindowConfig queryConfig) {
+            super(connectionConfig, queryConfig);
+            this.connectionId = connectionId;
+        }
+        
+        public void recordConnectionAttempt(boolean successful, long durationNanos) {
+            connectionWindow.record(durationNanos, successful);
+            ProviderMetrics parent = provider;
+            if (parent != null) {
+                parent.recordConnectionAttempt(successful, durationNanos);
+            }
+        }
+        
+        public void recordQueryExecution(long durationNanos, boolean successful) {
+            queryWindow.record(durationNanos, successful);
+            ProviderMetrics parent = provider;
+            if (parent != null) {
+                parent.recordQueryExecution(durationNanos, successful);
+            }
+        }
+        
+        public String getConnectionId() { return connectionId; }
+    }
+}
@@ -1,74 +1,359 @@
 package com.dbconnector.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 @Service
 public class CloudServiceDiscoveryService {
     
+    private static final List<String> PROVIDERS = Arrays.asList("aws", "azure", "gcp");
+    
     @Autowired
     private LoggingService loggingService;
     
     @Autowired
     private CloudMonitoringService monitoringService;
     
-    private final Map<String, List<CloudDatabaseInstance>> discoveredInstances = new ConcurrentHashMap<>();
-    private final Map<String, Long> lastDiscoveryTime = new ConcurrentHashMap<>();
-    private static final long DISCOVERY_CACHE_TTL = 300000; // 5 minutes
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private WorkloadExecutorService executorService;
+    
+    @Autowired
+    private InstanceCatalogService catalogService;
+    
+    @Autowired
+    private CredentialService credentialService;
+    
+    // Saved credential profile every discovery run uses, including background refreshes
+    @Value("${app.discovery.credential-profile:discovery}")
+    private String credentialProfile;
+    
+    // Data older than this is still served, but a revalidation is started
+    @Value("${app.discovery.ttl-ms:300000}")
+    private long discoveryCacheTtl;
+    
+    // Background refresh period; shorter than the TTL so readers rarely see stale data
+    @Value("${app.discovery.refresh-interval-ms:240000}")
+    private long refreshInterval;
+    
+    @Value("${app.discovery.refresh-jitter:0.2}")
+    private double refreshJitter;
+    
+    @Value("${app.discovery.retry-interval-ms:30000}")
+    private long retryInterval;
+    
+    // How long a caller waits for a provider that has never been discovered
+    @Value("${app.discovery.cold-wait-ms:15000}")
+    private long coldWait;
+    
+    @Value("${app.discovery.change-log-size:200}")
+    private int changeLogSize;
+    
+    @Value("${app.discovery.sse-timeout-ms:0}")
+    private long sseTimeout;
+    
+    private final Map<String, ProviderCache> providerCaches = new ConcurrentHashMap<>();
+    
+    // Versioned inventory: provider -> instanceId -> instance, plus the deltas that produced it
+    private final Map<String, Map<String, CloudDatabaseInstance>> inventory = new HashMap<>();
+    private final Deque<InventoryDelta> changeLog = new ArrayDeque<>();
+    private long inventoryVersion;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<String, Function<Map<String, Object>, List<CloudDatabaseInstance>>> discoverers = new LinkedHashMap<>();
+    
+    public CloudServiceDiscoveryService() {
+        discoverers.put("aws", this::discoverAWSInstances);
+        discoverers.put("azure", this::discoverAzureInstances);
+        discoverers.put("gcp", this::discoverGCPInstances);
+    }
+    
+    /**
+     * Discover database instances across all cloud providers. Answers from memory and revalidates stale
+     * providers in the background; only providers never discovered before are waited for.
+     */
+    public CompletableFuture<Map<String, List<CloudDatabaseInstance>>> discoverAllInstances() {
+        return discoverAllInstances(false);
+    }
+    
+    /**
+     * Discover database instances, optionally waiting for a fresh discovery of every provider
+     */
+    public CompletableFuture<Map<String, List<CloudDatabaseInstance>>> discoverAllInstances(boolean forceRefresh) {
+        return discoverInventory(forceRefresh).thenApply(InventorySnapshot::getInstances);
+    }
+    
+    /**
+     * Discover database instances and answer with the inventory and the version it was read at
+     */
+    public CompletableFuture<InventorySnapshot> discoverInventory(boolean forceRefresh) {
+        List<CompletableFuture<List<CloudDatabaseInstance>>> pending = new ArrayList<>();
+        for (String provider : PROVIDERS) {
+            ProviderCache cache = cacheFor(provider);
+            if (forceRefresh || cache.instances == null) {
+                pending.add(refreshProvider(provider));
+            } else if (cache.isStale(discoveryCacheTtl)) {
+                refreshProvider(provider);
+            }
+        }
+        
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+            .completeOnTimeout(null, coldWait, TimeUnit.MILLISECONDS)
+            .thenApply(v -> snapshot());
+    }
+    
+    /**
+     * Instances of one provider, served from memory once the provider has been discovered
+     */
+    public List<CloudDatabaseInstance> getProviderInstances(String provider) {
+        if (!discoverers.containsKey(provider)) {
+            throw new IllegalArgumentException("Unsupported provider: " + provider);
+        }
+        ProviderCache cache = cacheFor(provider);
+        if (cache.instances == null) {
+            // copy() so the timeout does not complete the future other callers share
+            refreshProvider(provider).copy().completeOnTimeout(null, coldWait, TimeUnit.MILLISECONDS).join();
+        } else if (cache.isStale(discoveryCacheTtl)) {
+            refreshProvider(provider);
+        }
+        List<CloudDatabaseInstance> instances = cache.instances;
+        return instances != null ? instances : Collections.emptyList();
+    }
+    
+    /**
+     * Refresh providers whose jittered refresh time has passed
+     */
+    @Scheduled(fixedDelayString = "${app.discovery.check-interval-ms:5000}")
+    public void refreshDueProviders() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ProviderCache> entry : providerCaches.entrySet()) {
+            ProviderCache cache = entry.getValue();
+            // Only providers someone has asked for have a cache entry
+            if (now >= cache.nextRefresh) {
+                refreshProvider(entry.getKey());
+            }
+        }
+    }
     
     /**
-     * Discover database instances across all cloud providers
+     * Start a discovery for one provider, or join the one already running (single flight)
      */
-    public CompletableFuture<Map<String, List<CloudDatabaseInstance>>> discoverAllInstances(
-            Map<String, Object> credentials) {
+    private CompletableFuture<List<CloudDatabaseInstance>> refreshProvider(String provider) {
+        ProviderCache cache = cacheFor(provider);
+        CompletableFuture<List<CloudDatabaseInstance>> running = cache.inFlight.get();
+        if (running != null) {
+            return running;
+        }
         
-        loggingService.logInfo("Starting multi-cloud database instance discovery");
+        CompletableFuture<List<CloudDatabaseInstance>> refresh = new CompletableFuture<>();
+        if (!cache.inFlight.compareAndSet(null, refresh)) {
+            return cache.inFlight.get();
+        }
         
-        List<CompletableFuture<Void>> discoveryTasks = new ArrayList<>();
+        Map<String, Object> profile = credentialService.loadCredentials(credentialProfile);
+        Map<String, Object> credentials = profile != null ? profile : Collections.emptyMap();
+        long start = System.nanoTime();
+        executorService.submit(WorkloadExecutorService.WORKLOAD_DISCOVERY, provider,
+                () -> discoverers.get(provider).apply(credentials))
+            .whenComplete((instances, error) -> {
+                try {
+                    if (error == null) {
+                        long durationNanos = System.nanoTime() - start;
+                        cache.timer.record(durationNanos, TimeUnit.NANOSECONDS);
+                        cache.lastLatencyMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+                        cache.instances = Collections.unmodifiableList(new ArrayList<>(instances));
+                        InventoryDelta delta = applyInventory(provider, instances);
+                        if (delta != null) {
+                            publish(delta);
+                        }
+                        cache.lastRefresh = System.currentTimeMillis();
+                        cache.lastError = null;
+                        cache.nextRefresh = cache.lastRefresh + jittered(refreshInterval);
+                        monitoringService.recordDiscoveryMetrics(Collections.singletonMap(provider, instances));
+                    } else {
+                        loggingService.logError(provider + " discovery failed", error);
+                        cache.lastError = error.getMessage();
+                        cache.nextRefresh = System.currentTimeMillis() + jittered(retryInterval);
+                    }
+                } finally {
+                    cache.inFlight.set(null);
+                    // Failures keep serving the previous inventory
+                    refresh.complete(cache.instances);
+                }
+            });
+        return refresh;
+    }
+    
+    /**
+     * Diff a provider's discovery result against the inventory; returns null when nothing changed
+     */
+    private synchronized InventoryDelta applyInventory(String provider, List<CloudDatabaseInstance> instances) {
+        Map<String, CloudDatabaseInstance> previous = inventory.getOrDefault(provider, Collections.emptyMap());
+        Map<String, CloudDatabaseInstance> current = new LinkedHashMap<>();
+        List<CloudDatabaseInstance> added = new ArrayList<>();
+        List<CloudDatabaseInstance> changed = new ArrayList<>();
         
-        // AWS Discovery
-        discoveryTasks.add(CompletableFuture.runAsync(() -> {
-            try {
-                List<CloudDatabaseInstance> awsInstances = discoverAWSInstances(credentials);
-                discoveredInstances.put("aws", awsInstances);
-                lastDiscoveryTime.put("aws", System.currentTimeMillis());
-            } catch (Exception e) {
-                loggingService.logError("AWS discovery failed", e);
+        for (CloudDatabaseInstance instance : instances) {
+            current.put(instance.getInstanceId(), instance);
+            CloudDatabaseInstance before = previous.get(instance.getInstanceId());
+            if (before == null) {
+                added.add(instance);
+            } else if (!before.sameState(instance)) {
+                changed.add(instance);
             }
-        }));
+        }
+        List<String> removed = new ArrayList<>();
+        for (String instanceId : previous.keySet()) {
+            if (!current.containsKey(instanceId)) {
+                removed.add(instanceId);
+            }
+        }
         
-        // Azure Discovery
-        discoveryTasks.add(CompletableFuture.runAsync(() -> {
-            try {
-                List<CloudDatabaseInstance> azureInstances = discoverAzureInstances(credentials);
-                discoveredInstances.put("azure", azureInstances);
-                lastDiscoveryTime.put("azure", System.currentTimeMillis());
-            } catch (Exception e) {
-                loggingService.logError("Azure discovery failed", e);
+        inventory.put(provider, current);
+        if (added.isEmpty() && changed.isEmpty() && removed.isEmpty()) {
+            return null;
+        }
+        
+        if (!added.isEmpty() || !changed.isEmpty()) {
+            List<CloudDatabaseInstance> upserts = new ArrayList<>(added);
+            upserts.addAll(changed);
+            catalogService.upsert(upserts);
+        }
+        if (!removed.isEmpty()) {
+            catalogService.remove(provider, removed);
+        }
+        
+        InventoryDelta delta = new InventoryDelta(inventoryVersion, ++inventoryVersion, provider, added, changed, removed);
+        changeLog.addLast(delta);
+        while (changeLog.size() > changeLogSize) {
+            changeLog.removeFirst();
+        }
+        loggingService.logInfo("Inventory " + provider + " v" + delta.getVersion() + ": " + added.size() + " added, " +
+            changed.size() + " changed, " + removed.size() + " removed");
+        return delta;
+    }
+    
+    /**
+     * Changes since a version the caller already has. When that version has aged out of the change log
+     * the full inventory is returned with reset=true.
+     */
+    public synchronized Map<String, Object> getChangesSince(long sinceVersion) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", inventoryVersion);
+        
+        InventoryDelta oldest = changeLog.peekFirst();
+        boolean reset = sinceVersion > inventoryVersion || (sinceVersion < inventoryVersion
+            && (oldest == null || oldest.getFromVersion() > sinceVersion));
+        result.put("reset", reset);
+        if (reset) {
+            Map<String, List<CloudDatabaseInstance>> instances = new HashMap<>();
+            for (Map.Entry<String, Map<String, CloudDatabaseInstance>> entry : inventory.entrySet()) {
+                instances.put(entry.getKey(), new ArrayList<>(entry.getValue().values()));
             }
-        }));
+            result.put("instances", instances);
+            return result;
+        }
         
-        // GCP Discovery
-        discoveryTasks.add(CompletableFuture.runAsync(() -> {
+        List<InventoryDelta> deltas = new ArrayList<>();
+        for (InventoryDelta delta : changeLog) {
+            if (delta.getVersion() > sinceVersion) {
+                deltas.add(delta);
+            }
+        }
+        result.put("deltas", deltas);
+        return result;
+    }
+    
+    public synchronized long getInventoryVersion() {
+        return inventoryVersion;
+    }
+    
+    /**
+     * Subscribe to inventory deltas as server-sent events named "inventory"
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(sseTimeout);
+        subscribers.add(emitter);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        try {
+            emitter.send(SseEmitter.event().name("version").data(getInventoryVersion()));
+        } catch (Exception e) {
+            subscribers.remove(emitter);
+        }
+        return emitter;
+    }
+    
+    private void publish(InventoryDelta delta) {
+        for (SseEmitter emitter : subscribers) {
             try {
-                List<CloudDatabaseInstance> gcpInstances = discoverGCPInstances(credentials);
-                discoveredInstances.put("gcp", gcpInstances);
-                lastDiscoveryTime.put("gcp", System.currentTimeMillis());
+                emitter.send(SseEmitter.event().name("inventory").id(String.valueOf(delta.getVersion())).data(delta));
             } catch (Exception e) {
-                loggingService.logError("GCP discovery failed", e);
+                // Client went away; completing triggers onCompletion and unsubscribes it
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
             }
-        }));
-        
-        return CompletableFuture.allOf(discoveryTasks.toArray(new CompletableFuture[0]))
-            .thenApply(v -> {
-                loggingService.logInfo("Multi-cloud discovery completed");
-                monitoringService.recordDiscoveryMetrics(discoveredInstances);
-                return new HashMap<>(discoveredInstances);
-            });
+        }
+    }
+    
+    private long jittered(long interval) {
+        double spread = interval * refreshJitter;
+        return interval + (long) (ThreadLocalRandom.current().nextDouble(-spread, spread + 1));
+    }
+    
+    private ProviderCache cacheFor(String provider) {
+        return providerCaches.computeIfAbsent(provider, p -> new ProviderCache(
+            Timer.builder("cloud.discovery.duration")
+                .tag("provider", p)
+                .register(meterRegistry)));
+    }
+    
+    // Read under the lock applyInventory holds, so the instances are exactly those of the version
+    private synchronized InventorySnapshot snapshot() {
+        Map<String, List<CloudDatabaseInstance>> instances = new HashMap<>();
+        for (Map.Entry<String, Map<String, CloudDatabaseInstance>> entry : inventory.entrySet()) {
+            instances.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue().values())));
+        }
+        return new InventorySnapshot(inventoryVersion, instances);
+    }
+    
+    /**
+     * Get cache age, refresh state and discovery latency per provider
+     */
+    public Map<String, Object> getDiscoveryStatus() {
+        Map<String, Object> status = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ProviderCache> entry : providerCaches.entrySet()) {
+            ProviderCache cache = entry.getValue();
+            Map<String, Object> providerStatus = new HashMap<>();
+            providerStatus.put("instanceCount", cache.instances != null ? cache.instances.size() : 0);
+            providerStatus.put("lastRefresh", cache.lastRefresh > 0 ? new Date(cache.lastRefresh) : null);
+            providerStatus.put("ageMs", cache.lastRefresh > 0 ? now - cache.lastRefresh : null);
+            providerStatus.put("stale", cache.isStale(discoveryCacheTtl));
+            providerStatus.put("refreshing", cache.inFlight.get() != null);
+            providerStatus.put("nextRefresh", cache.nextRefresh > 0 ? new Date(cache.nextRefresh) : null);
+            providerStatus.put("lastLatencyMs", cache.lastLatencyMs);
+            providerStatus.put("meanLatencyMs", cache.timer.mean(TimeUnit.MILLISECONDS));
+            providerStatus.put("lastError", cache.lastError);
+            status.put(entry.getKey(), providerStatus);
+        }
+        return status;
     }
     
     /**
@@ -79,17 +364,12 @@ public class CloudServiceDiscoveryService {
         
         List<CloudDatabaseInstance> instances = new ArrayList<>();
         
-        try {
-            // Mock AWS RDS discovery - in production, use AWS SDK
-            instances.addAll(mockAWSRDSInstances());
-            instances.addAll(mockAWSAuroraInstances());
-            instances.addAll(mockAWSDocumentDBInstances());
-            
-            loggingService.logInfo("Discovered " + instances.size() + " AWS database instances");
-            
-        } catch (Exception e) {
-            loggingService.logError("Error discovering AWS instances", e);
-        }
+        // Mock AWS RDS discovery - in production, use AWS SDK
+        instances.addAll(mockAWSRDSInstances());
+        instances.addAll(mockAWSAuroraInstances());
+        instances.addAll(mockAWSDocumentDBInstances());
+        
+        loggingService.logInfo("Discovered " + instances.size() + " AWS database instances");
         
         return instances;
     }
@@ -102,17 +382,12 @@ public class CloudServiceDiscoveryService {
         
         List<CloudDatabaseInstance> instances = new ArrayList<>();
         
-        try {
-            // Mock Azure discovery - in production, use Azure SDK
-            instances.addAll(mockAzureSQLInstances());
-            instances.addAll(mockAzureCosmosDBInstances());
-            instances.addAll(mockAzurePostgreSQLInstances());
-            
-            loggingService.logInfo("Discovered " + instances.size() + " Azure database instances");
-            
-        } catch (Exception e) {
-            loggingService.logError("Error discovering Azure instances", e);
-        }
+        // Mock Azure discovery - in production, use Azure SDK
+        instances.addAll(mockAzureSQLInstances());
+        instances.addAll(mockAzureCosmosDBInstances());
+        instances.addAll(mockAzurePostgreSQLInstances());
+        
+        loggingService.logInfo("Discovered " + instances.size() + " Azure database instances");
         
         return instances;
     }
@@ -125,45 +400,28 @@ public class CloudServiceDiscoveryService {
         
         List<CloudDatabaseInstance> instances = new ArrayList<>();
         
-        try {
-            // Mock GCP discovery - in production, use Google Cloud SDK
-            instances.addAll(mockGCPCloudSQLInstances());
-            instances.addAll(mockGCPBigQueryInstances());
-            instances.addAll(mockGCPFirestoreInstances());
-            
-            loggingService.logInfo("Discovered " + instances.size() + " GCP database instances");
-            
-        } catch (Exception e) {
-            loggingService.logError("Error discovering GCP instances", e);
-        }
+        // Mock GCP discovery - in production, use Google Cloud SDK
+        instances.addAll(mockGCPCloudSQLInstances());
+        instances.addAll(mockGCPBigQueryInstances());
+        instances.addAll(mockGCPFirestoreInstances());
+        
+        loggingService.logInfo("Discovered " + instances.size() + " GCP database instances");
         
         return instances;
     }
     
     /**
-     * Get cached instances or discover if cache is stale
+     * Get cached instances, revalidating stale providers in the background
      */
-    public Map<String, List<CloudDatabaseInstance>> getCachedOrDiscoverInstances(
-            Map<String, Object> credentials) {
-        
-        Map<String, List<CloudDatabaseInstance>> result = new HashMap<>();
-        boolean needsRefresh = false;
-        
-        for (String provider : Arrays.asList("aws", "azure", "gcp")) {
-            Long lastDiscovery = lastDiscoveryTime.get(provider);
-            if (lastDiscovery == null || 
-                (System.currentTimeMillis() - lastDiscovery) > DISCOVERY_CACHE_TTL) {
-                needsRefresh = true;
-                break;
-            }
-        }
-        
-        if (needsRefresh) {
-            loggingService.logInfo("Cache stale, refreshing instance discovery");
-            discoverAllInstances(credentials);
-        }
-        
-        return new HashMap<>(discoveredInstances);
+    public Map<String, List<CloudDatabaseInstance>> getCachedOrDiscoverInstances() {
+        return discoverAllInstances().join();
+    }
+    
+    /**
+     * Filter the discovered inventory by engine, region, status, provider and serviceType using the catalog indexes
+     */
+    public List<CloudDatabaseInstance> filterInstances(Map<String, Object> filters) {
+        return catalogService.query(filters);
     }
     
     /**
@@ -270,6 +528,27 @@ public class CloudServiceDiscoveryService {
         );
     }
     
+    /**
+     * Cached inventory and refresh bookkeeping for one provider
+     */
+    private static class ProviderCache {
+        private final Timer timer;
+        private final AtomicReference<CompletableFuture<List<CloudDatabaseInstance>>> inFlight = new AtomicReference<>();
+        private volatile List<CloudDatabaseInstance> instances;
+        private volatile long lastRefresh;
+        private volatile long nextRefresh;
+        private volatile long lastLatencyMs;
+        private volatile String lastError;
+        
+        ProviderCache(Timer timer) {
+            this.timer = timer;
+        }
+        
+        boolean isStale(long ttl) {
+            return instances == null || System.currentTimeMillis() - lastRefresh > ttl;
+        }
+    }
+    
     /**
      * Cloud Database Instance model
      */
@@ -324,5 +603,66 @@ public class CloudServiceDiscoveryService {
         
         public Map<String, Object> getMetadata() { return metadata; }
         public void setMetadata(Map<String, Object> metadata) { this.metadata = metadata; }
+        
+        /**
+         * Whether two observations of the same instance differ in anything a dashboard shows
+         */
+        public boolean sameState(CloudDatabaseInstance other) {
+            return Objects.equals(serviceType, other.serviceType)
+                && Objects.equals(engine, other.engine)
+                && Objects.equals(status, other.status)
+                && Objects.equals(region, other.region)
+                && Objects.equals(endpoint, other.endpoint)
+                && port == other.port
+                && Objects.equals(metadata, other.metadata);
+        }
+    }
+    
+    /**
+     * Discovered instances per provider as of one inventory version
+     */
+    public static class InventorySnapshot {
+        private final long version;
+        private final Map<String, List<CloudDatabaseInstance>> instances;
+        
+        public InventorySnapshot(long version, Map<String, List<CloudDatabaseInstance>> instances) {
+            this.version = version;
+            this.instances = instances;
+        }
+        
+        public long getVersion() { return version; }
+        public Map<String, List<CloudDatabaseInstance>> getInstances() { return instances; }
+    }
+    
+    /**
+     * Instances added, changed and removed for one provider by one discovery run
+     */
+    public static class InventoryDelta {
+        private final long fromVersion;
+        private final long version;
+        private final String provider;
+        private final long timestamp;
+        private final List<CloudDatabaseInstance> added;
+        private final List<CloudDatabaseInstance> changed;
+        private final List<String> removed;
+        
+        public InventoryDelta(long fromVersion, long version, String provider, List<CloudDatabaseInstance> added,
+                              List<CloudDatabaseInstance> changed, List<String> removed) {
+            this.fromVersion = fromVersion;
+            this.version = version;
+            this.provider = provider;
+            this.timestamp = System.currentTimeMillis();
+            this.added = added;
+            this.changed = changed;
+            this.removed = removed;
+        }
+        
+        public long getFromVersion() { return fromVersion; }
+        public long getVersion() { return version; }
+        public String getProvider() { return provider; }
+        public long getTimestamp() { return timestamp; }
+        public List<CloudDatabaseInstance> getAdded() { return added; }
+        public List<CloudDatabaseInstance> getChanged() { return changed; }
+        public List<String> getRemoved() { return removed; }
     }
 }
\ No newline at end of file
@@ -7,12 +7,15 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.Map;
 
 @Service
 public class ConnectionService {
     
     private final Map<String, Connection> activeConnections = new ConcurrentHashMap<>();
+    private final Map<String, Lock> sessionLocks = new ConcurrentHashMap<>();
     
     public Connection getConnection(String connectionId) {
         return activeConnections.get(connectionId);
@@ -22,11 +25,35 @@ public class ConnectionService {
         activeConnections.put(connectionId, connection);
     }
     
+    /**
+     * Register the connection unless the id already has one; returns whether it was registered
+     */
+    public boolean addConnectionIfAbsent(String connectionId, Connection connection) {
+        return activeConnections.putIfAbsent(connectionId, connection) == null;
+    }
+    
     @Autowired
     private LoggingService loggingService;
     
+    @Autowired
+    private EnhancedConnectionPoolService connectionPoolService;
+    
+    @Autowired
+    private CloudMonitoringService monitoringService;
+    
+    /**
+     * Lock a request holds while it runs statements on the shared connection, so the user's statements
+     * run one after another on one session and a read can stream or switch autocommit without another
+     * request's statements landing in between. A ReentrantLock rather than a monitor, since it is held
+     * across database I/O.
+     */
+    public Lock sessionLock(String connectionId) {
+        return sessionLocks.computeIfAbsent(connectionId, id -> new ReentrantLock());
+    }
+    
     public void removeConnection(String connectionId) {
         Connection connection = activeConnections.remove(connectionId);
+        sessionLocks.remove(connectionId);
         if (connection != null) {
             try {
                 connection.close();
@@ -35,6 +62,10 @@ public class ConnectionService {
                 loggingService.logError("Error closing connection: " + connectionId, e);
             }
         }
+        // A pool under the same id keeps recording into these metrics; it drops them when it closes
+        if (connectionPoolService.getDataSource(connectionId) == null) {
+            monitoringService.removeConnectionMetrics(connectionId);
+        }
     }
     
     public boolean hasConnection(String connectionId) {
@@ -27,6 +27,19 @@ public class ConnectionStorageService {
         return new ArrayList<>(connections.values());
     }
     
+    /**
+     * Saved connections marked to be warmed up at startup
+     */
+    public List<ConnectionInfo> getWarmConnections() {
+        List<ConnectionInfo> warm = new ArrayList<>();
+        for (ConnectionInfo connection : connections.values()) {
+            if (connection.isWarm()) {
+                warm.add(connection);
+            }
+        }
+        return warm;
+    }
+    
     public ConnectionInfo getConnection(String id) {
         return connections.get(id);
     }
@@ -0,0 +1,344 @@
+package com.dbconnector.service;
+
+import com.dbconnector.model.ConnectionInfo;
+import com.dbconnector.model.LocalConnectionInfo;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class ConnectionWarmupService {
+
+    public static final String STATE_PENDING = "pending";
+    public static final String STATE_WARMING = "warming";
+    public static final String STATE_READY = "ready";
+    public static final String STATE_FAILED = "failed";
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Autowired
+    private ConnectionStorageService connectionStorageService;
+
+    @Autowired
+    private LocalDatabaseService localDatabaseService;
+
+    @Autowired
+    private EnhancedConnectionPoolService connectionPoolService;
+
+    @Autowired
+    private WorkloadExecutorService executorService;
+
+    @Value("${app.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.warmup.timeout-ms:60000}")
+    private long timeoutMs;
+
+    @Value("${app.warmup.validation-timeout-seconds:5}")
+    private int validationTimeoutSeconds;
+
+    // Insertion-ordered so the readiness report lists connections in the order they were queued
+    private final Map<String, WarmupStatus> statuses = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile CompletableFuture<Void> warmup;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    // Pools being built, per connection id, so a connect and a warm-up of the same connection build one
+    // pool while pools of different connections are built in parallel
+    private final Map<String, CompletableFuture<Void>> poolBuilds = new ConcurrentHashMap<>();
+
+    /**
+     * Warm up saved connections marked "warm" once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (!enabled) {
+            loggingService.logDebug("Connection warm-up disabled");
+            return;
+        }
+        warmUp();
+    }
+
+    /**
+     * Preload drivers, fill each pool to minimumIdle and validate the connections, at most
+     * app.warmup.parallelism connections at a time. Returns the running warm-up if one is in progress.
+     */
+    public synchronized CompletableFuture<Void> warmUp() {
+        if (warmup != null && !warmup.isDone()) {
+            return warmup;
+        }
+
+        List<ConnectionInfo> connections = connectionStorageService.getWarmConnections();
+        loggingService.logInfo("Warming up " + connections.size() + " saved connections");
+
+        Queue<WarmupStatus> queue = new ConcurrentLinkedQueue<>();
+        statuses.clear();
+        for (ConnectionInfo connection : connections) {
+            WarmupStatus status = new WarmupStatus(connection);
+            statuses.put(connection.getId(), status);
+            queue.add(status);
+        }
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, Math.min(parallelism, connections.size())); i++) {
+            workers.add(warmNext(queue));
+        }
+
+        warmup = CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).whenComplete((v, error) -> {
+            finishedAt = System.currentTimeMillis();
+            Map<String, Object> readiness = getReadiness();
+            loggingService.logInfo("Connection warm-up finished in " + (finishedAt - startedAt) + "ms: " +
+                readiness.get("readyCount") + " ready, " + readiness.get("failedCount") + " failed");
+        });
+        return warmup;
+    }
+
+    /**
+     * Warm connections from the queue one after another until it is empty
+     */
+    private CompletableFuture<Void> warmNext(Queue<WarmupStatus> queue) {
+        WarmupStatus status = queue.poll();
+        if (status == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        status.begin();
+        return executorService.submit(WorkloadExecutorService.WORKLOAD_CONNECTIONS, () -> {
+                warmConnection(status);
+                return null;
+            }, timeoutMs)
+            .handle((v, error) -> {
+                if (error == null) {
+                    status.succeed();
+                } else {
+                    Throwable cause = error instanceof TimeoutException
+                        ? new TimeoutException("Warm-up timed out after " + timeoutMs + "ms")
+                        : error.getCause() != null ? error.getCause() : error;
+                    status.fail(cause);
+                    // A timed-out warm-up may still be building the pool; it closes the pool itself if so
+                    if (status.createdPool) {
+                        connectionPoolService.closeConnectionPool(status.connectionInfo.getId());
+                    }
+                    loggingService.logError("Warm-up failed for connection " + status.getName(), cause);
+                }
+                return null;
+            })
+            .thenCompose(v -> warmNext(queue));
+    }
+
+    private void warmConnection(WarmupStatus status) {
+        ConnectionInfo connectionInfo = status.connectionInfo;
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            // Loads the driver, builds the pool and hands back its first connection
+            status.phase = "pool";
+            borrowed.add(borrow(connectionInfo, status));
+            if (STATE_FAILED.equals(status.state) && status.createdPool) {
+                connectionPoolService.closeConnectionPool(connectionInfo.getId());
+                return;
+            }
+
+            HikariDataSource dataSource = connectionPoolService.getDataSource(connectionInfo.getId());
+            int minimumIdle = Math.max(1, dataSource.getMinimumIdle());
+
+            // Holding minimumIdle connections at once forces each to be opened rather than reused
+            status.phase = "fill";
+            while (borrowed.size() < minimumIdle) {
+                borrowed.add(connectionPoolService.getConnection(connectionInfo.getId()));
+            }
+
+            status.phase = "validate";
+            for (Connection connection : borrowed) {
+                if (!connection.isValid(validationTimeoutSeconds)) {
+                    throw new SQLException("Connection did not validate within " + validationTimeoutSeconds + "s");
+                }
+            }
+            status.connections = borrowed.size();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    loggingService.logDebug("Error returning warm-up connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Connect to a saved connection through its pool, the one warm-up fills, building the pool on first use.
+     * The caller closes the connection to hand it back to the pool.
+     */
+    public Connection connect(ConnectionInfo connectionInfo) throws SQLException {
+        return borrow(connectionInfo, null);
+    }
+
+    private Connection borrow(ConnectionInfo connectionInfo, WarmupStatus status) throws SQLException {
+        String connectionId = connectionInfo.getId();
+        if (connectionPoolService.getDataSource(connectionId) == null) {
+            CompletableFuture<Void> build = new CompletableFuture<>();
+            CompletableFuture<Void> running = poolBuilds.putIfAbsent(connectionId, build);
+            if (running != null) {
+                awaitPool(running);
+            } else {
+                try {
+                    // Another build may have finished between the check and the claim
+                    if (connectionPoolService.getDataSource(connectionId) == null) {
+                        // Hands back the pool's first connection; returned so it is borrowed below like any other
+                        localDatabaseService.createLocalConnectionPool(toLocalConnectionInfo(connectionInfo)).close();
+                        if (status != null) {
+                            status.createdPool = true;
+                        }
+                    }
+                    build.complete(null);
+                } catch (SQLException | RuntimeException e) {
+                    build.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    poolBuilds.remove(connectionId, build);
+                }
+            }
+        }
+        // Through the pool service so the acquisition reaches its timers, saturation and autoscaler samples
+        return connectionPoolService.getConnection(connectionId);
+    }
+
+    private static void awaitPool(CompletableFuture<Void> build) throws SQLException {
+        try {
+            build.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Connection pool could not be created: " + cause.getMessage(), cause);
+        }
+    }
+
+    private LocalConnectionInfo toLocalConnectionInfo(ConnectionInfo connectionInfo) {
+        LocalConnectionInfo info = new LocalConnectionInfo();
+        info.setId(connectionInfo.getId());
+        info.setName(connectionInfo.getName());
+        info.setDbType(connectionInfo.getDbType());
+        info.setHost(connectionInfo.getHost());
+        info.setPort(connectionInfo.getPort());
+        info.setDatabase(connectionInfo.getDatabase());
+        info.setUsername(connectionInfo.getUsername());
+        info.setPassword(connectionInfo.getPassword());
+        return info;
+    }
+
+    /**
+     * Warm-up progress; ready once every warm connection has either warmed up or failed
+     */
+    public Map<String, Object> getReadiness() {
+        List<Map<String, Object>> connections = new ArrayList<>();
+        int readyCount = 0;
+        int failedCount = 0;
+        synchronized (statuses) {
+            for (WarmupStatus status : statuses.values()) {
+                connections.add(status.toMap());
+                if (STATE_READY.equals(status.state)) {
+                    readyCount++;
+                } else if (STATE_FAILED.equals(status.state)) {
+                    failedCount++;
+                }
+            }
+        }
+
+        int total = connections.size();
+        CompletableFuture<Void> current = warmup;
+        boolean ready = !enabled && current == null || current != null && current.isDone();
+
+        Map<String, Object> readiness = new HashMap<>();
+        readiness.put("enabled", enabled);
+        readiness.put("ready", ready);
+        readiness.put("total", total);
+        readiness.put("readyCount", readyCount);
+        readiness.put("failedCount", failedCount);
+        readiness.put("pendingCount", total - readyCount - failedCount);
+        readiness.put("progress", total == 0 ? 1.0 : (double) (readyCount + failedCount) / total);
+        readiness.put("connections", connections);
+        if (startedAt > 0) {
+            readiness.put("startedAt", new Date(startedAt));
+            readiness.put("durationMs", (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt);
+        }
+        return readiness;
+    }
+
+    /**
+     * Warm-up state of one saved connection
+     */
+    private static class WarmupStatus {
+        private final ConnectionInfo connectionInfo;
+        private volatile String state = STATE_PENDING;
+        private volatile String phase;
+        private volatile int connections;
+        private volatile long startNanos;
+        private volatile long durationMs;
+        private volatile String error;
+        private volatile boolean createdPool;
+
+        WarmupStatus(ConnectionInfo connectionInfo) {
+            this.connectionInfo = connectionInfo;
+        }
+
+        void begin() {
+            startNanos = System.nanoTime();
+            state = STATE_WARMING;
+        }
+
+        void succeed() {
+            durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            phase = null;
+            state = STATE_READY;
+        }
+
+        void fail(Throwable cause) {
+            durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            error = cause.getMessage();
+            state = STATE_FAILED;
+        }
+
+        String getName() {
+            return connectionInfo.getName() != null ? connectionInfo.getName() : connectionInfo.getId();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", connectionInfo.getId());
+            map.put("name", connectionInfo.getName());
+            map.put("dbType", connectionInfo.getDbType());
+            map.put("state", state);
+            if (phase != null && (STATE_WARMING.equals(state) || STATE_FAILED.equals(state))) {
+                map.put("phase", phase);
+            }
+            map.put("connections", connections);
+            map.put("durationMs", durationMs);
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,708 @@
+package com.dbconnector.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copies a table or query result from one connection to another without staging files. One reader
+ * streams the source in batches into a bounded queue; writers drain it in parallel into the target
+ * through the target dialect's bulk insert. A full queue holds the reader back, so memory stays at
+ * queue-capacity batches however large the copy is.
+ */
+@Service
+public class DataCopyService {
+
+    public static final String STATE_RUNNING = "running";
+    public static final String STATE_COMPLETED = "completed";
+    public static final String STATE_FAILED = "failed";
+    public static final String STATE_CANCELLED = "cancelled";
+
+    private static final int MAX_FINISHED_JOBS = 50;
+    private static final List<Object[]> END_OF_DATA = Collections.emptyList();
+
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Autowired
+    private EnhancedConnectionPoolService connectionPoolService;
+
+    @Autowired
+    private SchemaService schemaService;
+
+    @Autowired
+    private DialectService dialectService;
+
+    @Autowired
+    private WorkloadExecutorService executorService;
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Value("${app.copy.writers:4}")
+    private int defaultWriters;
+
+    @Value("${app.copy.batch-size:1000}")
+    private int defaultBatchSize;
+
+    @Value("${app.copy.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${app.copy.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.executor.copy.threads:9}")
+    private int copyThreads;
+
+    private final Map<String, CopyJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Start copying in the background; progress is reported by getJob
+     */
+    public Map<String, Object> startCopy(CopyRequest request) throws SQLException {
+        request.validate();
+        // The read and the writes each hold a transaction for as long as the copy runs, which on the
+        // connection ConnectionService shares would sweep in other requests' statements
+        if (connectionPoolService.getDataSource(request.sourceConnectionId) == null) {
+            throw new SQLException("Copying needs a connection pool for the source; connect it as a saved connection");
+        }
+        if (connectionPoolService.getDataSource(request.targetConnectionId) == null) {
+            throw new SQLException("Copying needs a connection pool for the target; connect it as a saved connection");
+        }
+
+        int batchSize = request.batchSize != null && request.batchSize > 0 ? request.batchSize : defaultBatchSize;
+        CopyJob job;
+        synchronized (jobs) {
+            // A reader waits on its writers, so a job only starts when the copy executor has a thread
+            // for the reader and each writer; otherwise readers could take every thread and stall
+            int busyThreads = 0;
+            for (CopyJob running : jobs.values()) {
+                if (STATE_RUNNING.equals(running.state)) {
+                    busyThreads += running.writers + 1;
+                }
+            }
+            int freeWriters = copyThreads - busyThreads - 1;
+            if (freeWriters < 1) {
+                throw new SQLException("Too many copies running; try again when one finishes");
+            }
+            int requested = request.writers != null && request.writers > 0 ? request.writers : defaultWriters;
+            int writers = Math.min(requested, freeWriters);
+
+            pruneFinishedJobs();
+            job = new CopyJob(request, writers, batchSize, new ArrayBlockingQueue<>(queueCapacity));
+            jobs.put(job.id, job);
+        }
+        loggingService.logAudit("Started copy " + job.id + " from " + request.describeSource() + " on " +
+            request.sourceConnectionId + " to " + request.targetTable + " on " + request.targetConnectionId +
+            " with " + job.writers + " writers");
+
+        try {
+            executorService.executor(WorkloadExecutorService.WORKLOAD_COPY).execute(() -> read(job));
+        } catch (RejectedExecutionException e) {
+            job.fail(e);
+            job.finish();
+            throw new SQLException("Copy executor is not accepting work", e);
+        }
+        return job.toMap();
+    }
+
+    public Map<String, Object> getJob(String jobId) {
+        CopyJob job = jobs.get(jobId);
+        return job != null ? job.toMap() : null;
+    }
+
+    public List<Map<String, Object>> getJobs() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (CopyJob job : jobs.values()) {
+            result.add(job.toMap());
+        }
+        result.sort(Comparator.comparing(m -> (Long) m.get("startedAt")));
+        return result;
+    }
+
+    /**
+     * Stop a running copy; rows already committed on the target stay there
+     */
+    public boolean cancel(String jobId) {
+        CopyJob job = jobs.get(jobId);
+        if (job == null || !STATE_RUNNING.equals(job.state)) {
+            return false;
+        }
+        job.stop(STATE_CANCELLED, null);
+        Statement reading = job.readStatement;
+        if (reading != null) {
+            try {
+                reading.cancel();
+            } catch (SQLException e) {
+                loggingService.logDebug("Could not cancel copy read: " + e.getMessage());
+            }
+        }
+        loggingService.logAudit("Cancelled copy " + jobId);
+        return true;
+    }
+
+    /**
+     * CREATE TABLE for the target built from the source table's structure
+     */
+    public String generateTableDdl(CopyRequest request) throws SQLException {
+        request.validate();
+        Dialect targetDialect = targetDialect(request.targetConnectionId);
+        Map<String, Object> structure = schemaService.getTableStructure(
+            request.sourceConnectionId, request.sourceTable, request.sourceSchema);
+        return createTableSql(targetDialect, qualify(targetDialect, request.targetSchema, request.targetTable),
+            columnsFromStructure(structure), primaryKeyColumns(structure));
+    }
+
+    private Dialect targetDialect(String targetConnectionId) throws SQLException {
+        Connection target = connectionService.getConnection(targetConnectionId);
+        if (target != null) {
+            return dialectService.forConnection(target);
+        }
+        if (connectionPoolService.getDataSource(targetConnectionId) == null) {
+            throw new SQLException("No active target connection found");
+        }
+        try (Connection pooled = connectionPoolService.getConnection(targetConnectionId)) {
+            return dialectService.forConnection(pooled);
+        }
+    }
+
+    private void read(CopyJob job) {
+        CopyRequest request = job.request;
+        List<Connection> writerConnections = new ArrayList<>();
+        Connection source = null;
+        boolean restoreAutoCommit = false;
+        try {
+            // Structure first: some drivers cannot run metadata queries while a result is streaming
+            Map<String, Object> structure = request.createTable && request.sourceTable != null
+                ? schemaService.getTableStructure(request.sourceConnectionId, request.sourceTable, request.sourceSchema)
+                : null;
+
+            writerConnections = openWriterConnections(job);
+            source = connectionPoolService.getConnection(request.sourceConnectionId);
+            Dialect sourceDialect = dialectService.forConnection(source);
+            Dialect targetDialect = dialectService.forConnection(writerConnections.get(0));
+            String targetTable = qualify(targetDialect, request.targetSchema, request.targetTable);
+            String sql = request.sourceQuery != null
+                ? request.sourceQuery
+                : "SELECT * FROM " + qualify(sourceDialect, request.sourceSchema, request.sourceTable);
+
+            boolean autoCommit = source.getAutoCommit();
+            try (Statement statement = source.createStatement()) {
+                job.readStatement = statement;
+                job.fetchMode = sourceDialect.applyFetchMode(source, statement, fetchSize);
+                restoreAutoCommit = autoCommit && !source.getAutoCommit();
+
+                try (ResultSet rs = statement.executeQuery(sql)) {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    int columnCount = metaData.getColumnCount();
+                    List<String> columns = new ArrayList<>();
+                    int[] sqlTypes = new int[columnCount];
+                    for (int i = 1; i <= columnCount; i++) {
+                        columns.add(metaData.getColumnLabel(i));
+                        sqlTypes[i - 1] = metaData.getColumnType(i);
+                    }
+
+                    if (request.createTable) {
+                        String ddl = structure != null
+                            ? createTableSql(targetDialect, targetTable, columnsFromStructure(structure), primaryKeyColumns(structure))
+                            : createTableSql(targetDialect, targetTable, columnsFromMetadata(metaData), Collections.emptyList());
+                        createTable(writerConnections.get(0), ddl);
+                        schemaService.invalidateStructureCache(request.targetConnectionId);
+                        job.ddl = ddl;
+                    }
+
+                    startWriters(job, writerConnections, targetDialect, targetTable, columns);
+                    writerConnections = Collections.emptyList();
+
+                    List<Object[]> batch = new ArrayList<>(job.batchSize);
+                    while (!job.isStopping() && rs.next()) {
+                        Object[] row = new Object[columnCount];
+                        for (int i = 1; i <= columnCount; i++) {
+                            row[i - 1] = readValue(rs, i, sqlTypes[i - 1]);
+                        }
+                        batch.add(row);
+                        if (batch.size() == job.batchSize) {
+                            enqueue(job, batch);
+                            job.rowsRead.add(batch.size());
+                            batch = new ArrayList<>(job.batchSize);
+                        }
+                    }
+                    if (!batch.isEmpty() && !job.isStopping()) {
+                        enqueue(job, batch);
+                        job.rowsRead.add(batch.size());
+                    }
+                }
+            } finally {
+                job.readStatement = null;
+            }
+        } catch (SQLException | RuntimeException e) {
+            job.fail(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+        } finally {
+            if (source != null) {
+                if (restoreAutoCommit) {
+                    endReadTransaction(source);
+                }
+                try {
+                    source.close();
+                } catch (SQLException e) {
+                    loggingService.logDebug("Error returning copy source connection: " + e.getMessage());
+                }
+            }
+            // Only left over if the copy failed before the writers took them
+            for (Connection connection : writerConnections) {
+                releaseWriterConnection(job, connection);
+            }
+            if (job.writersStarted) {
+                signalEndOfData(job);
+            } else {
+                // Failed or cancelled before any writer ran, so nothing else will finish the job
+                job.finish();
+            }
+        }
+    }
+
+    private List<Connection> openWriterConnections(CopyJob job) throws SQLException {
+        String targetId = job.request.targetConnectionId;
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < job.writers; i++) {
+                connections.add(connectionPoolService.getConnection(targetId));
+            }
+        } catch (SQLException e) {
+            for (Connection connection : connections) {
+                releaseWriterConnection(job, connection);
+            }
+            throw e;
+        }
+        return connections;
+    }
+
+    private void createTable(Connection target, String ddl) throws SQLException {
+        try (Statement statement = target.createStatement()) {
+            statement.execute(ddl);
+        }
+        if (!target.getAutoCommit()) {
+            target.commit();
+        }
+        loggingService.logAudit("Created copy target table: " + ddl);
+    }
+
+    private void startWriters(CopyJob job, List<Connection> connections, Dialect dialect, String table, List<String> columns) {
+        job.writersStarted = true;
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (Connection connection : connections) {
+            writers.add(CompletableFuture.runAsync(() -> write(job, connection, dialect, table, columns),
+                executorService.executor(WorkloadExecutorService.WORKLOAD_COPY)));
+        }
+        CompletableFuture.allOf(writers.toArray(new CompletableFuture<?>[0])).whenComplete((v, error) -> {
+            if (error != null) {
+                job.fail(error.getCause() != null ? error.getCause() : error);
+            }
+            job.finish();
+            loggingService.logInfo("Copy " + job.id + " " + job.state + ": " + job.rowsWritten.sum() + " rows in " +
+                (job.finishedAt - job.startedAt) + "ms");
+        });
+    }
+
+    private void write(CopyJob job, Connection connection, Dialect dialect, String table, List<String> columns) {
+        boolean autoCommit = true;
+        try {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            while (true) {
+                long waitStart = System.nanoTime();
+                List<Object[]> batch = job.queue.poll(250, TimeUnit.MILLISECONDS);
+                job.writerWaitNanos.add(System.nanoTime() - waitStart);
+                if (batch == END_OF_DATA || job.isStopping()) {
+                    return;
+                }
+                if (batch == null) {
+                    continue;
+                }
+                long inserted = dialect.bulkInsert(connection, table, columns, batch);
+                connection.commit();
+                job.rowsWritten.add(inserted);
+                job.batchesWritten.increment();
+            }
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // The failure itself is what gets reported
+            }
+            job.fail(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+        } finally {
+            try {
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException ignored) {
+                // Reported on next use of the connection
+            }
+            releaseWriterConnection(job, connection);
+        }
+    }
+
+    /**
+     * Put a batch on the queue, waiting while writers catch up but giving up if the copy stops
+     */
+    private void enqueue(CopyJob job, List<Object[]> batch) throws InterruptedException {
+        long waitStart = System.nanoTime();
+        while (!job.isStopping() && !job.queue.offer(batch, 250, TimeUnit.MILLISECONDS)) {
+            // Writers are behind; keep waiting
+        }
+        job.readerWaitNanos.add(System.nanoTime() - waitStart);
+    }
+
+    private void signalEndOfData(CopyJob job) {
+        for (int i = 0; i < job.writers; i++) {
+            try {
+                while (!job.queue.offer(END_OF_DATA, 250, TimeUnit.MILLISECONDS)) {
+                    // A stopped copy's writers exit without draining, so make room
+                    if (job.isStopping()) {
+                        job.queue.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void releaseWriterConnection(CopyJob job, Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            loggingService.logDebug("Error returning copy connection: " + e.getMessage());
+        }
+    }
+
+    private void endReadTransaction(Connection source) {
+        try {
+            source.commit();
+        } catch (SQLException e) {
+            try {
+                source.rollback();
+            } catch (SQLException ignored) {
+                // Connection is unusable; setAutoCommit below will surface it
+            }
+        } finally {
+            try {
+                source.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // Reported on next use of the connection
+            }
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        List<CopyJob> finished = new ArrayList<>();
+        for (CopyJob job : jobs.values()) {
+            if (!STATE_RUNNING.equals(job.state)) {
+                finished.add(job);
+            }
+        }
+        finished.sort(Comparator.comparingLong(j -> j.finishedAt));
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    /**
+     * Read a column as a value every target driver can bind: vendor types travel as text,
+     * large objects are materialised so they outlive the source row
+     */
+    static Object readValue(ResultSet rs, int column, int sqlType) throws SQLException {
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN: {
+                boolean value = rs.getBoolean(column);
+                return rs.wasNull() ? null : value;
+            }
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return rs.getBigDecimal(column);
+            case Types.DATE:
+                return rs.getDate(column);
+            case Types.TIME:
+                return rs.getTime(column);
+            case Types.TIMESTAMP:
+                return rs.getTimestamp(column);
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                try {
+                    return rs.getObject(column, OffsetDateTime.class);
+                } catch (SQLException e) {
+                    return rs.getTimestamp(column);
+                }
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.SQLXML:
+            case Types.OTHER:
+            case Types.STRUCT:
+            case Types.ARRAY:
+            case Types.DISTINCT:
+            case Types.JAVA_OBJECT:
+            case Types.ROWID:
+                return rs.getString(column);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return rs.getBytes(column);
+            default:
+                return rs.getObject(column);
+        }
+    }
+
+    static String createTableSql(Dialect dialect, String table, List<ColumnDefinition> columns, List<String> primaryKey) {
+        StringBuilder sql = new StringBuilder("CREATE TABLE ").append(table).append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnDefinition column = columns.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(dialect.quoteIdentifier(column.name)).append(' ')
+                .append(dialect.columnType(column.sqlType, column.precision, column.scale));
+            if (!column.nullable) {
+                sql.append(" NOT NULL");
+            }
+        }
+        if (!primaryKey.isEmpty()) {
+            sql.append(", PRIMARY KEY (");
+            for (int i = 0; i < primaryKey.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(dialect.quoteIdentifier(primaryKey.get(i)));
+            }
+            sql.append(")");
+        }
+        return sql.append(")").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ColumnDefinition> columnsFromStructure(Map<String, Object> structure) {
+        List<Map<String, Object>> columns = new ArrayList<>((List<Map<String, Object>>) structure.get("columns"));
+        columns.sort(Comparator.comparingInt(c -> (Integer) c.get("position")));
+        List<ColumnDefinition> definitions = new ArrayList<>();
+        for (Map<String, Object> column : columns) {
+            definitions.add(new ColumnDefinition((String) column.get("name"), (Integer) column.get("sqlType"),
+                (Integer) column.get("size"), (Integer) column.get("decimalDigits"), (Boolean) column.get("nullable")));
+        }
+        return definitions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> primaryKeyColumns(Map<String, Object> structure) {
+        List<Map<String, Object>> keys = new ArrayList<>((List<Map<String, Object>>) structure.get("primaryKeys"));
+        keys.sort(Comparator.comparingInt(k -> (Integer) k.get("keySeq")));
+        List<String> columns = new ArrayList<>();
+        for (Map<String, Object> key : keys) {
+            columns.add((String) key.get("columnName"));
+        }
+        return columns;
+    }
+
+    private static List<ColumnDefinition> columnsFromMetadata(ResultSetMetaData metaData) throws SQLException {
+        List<ColumnDefinition> definitions = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            definitions.add(new ColumnDefinition(metaData.getColumnLabel(i), metaData.getColumnType(i),
+                metaData.getPrecision(i), metaData.getScale(i), metaData.isNullable(i) != ResultSetMetaData.columnNoNulls));
+        }
+        return definitions;
+    }
+
+    private static String qualify(Dialect dialect, String schema, String table) {
+        String quoted = dialect.quoteIdentifier(table);
+        return schema != null && !schema.isEmpty() ? dialect.quoteIdentifier(schema) + "." + quoted : quoted;
+    }
+
+    /**
+     * What to copy and where
+     */
+    public static class CopyRequest {
+        private String sourceConnectionId;
+        private String sourceSchema;
+        private String sourceTable;
+        private String sourceQuery;
+        private String targetConnectionId;
+        private String targetSchema;
+        private String targetTable;
+        private boolean createTable;
+        private Integer writers;
+        private Integer batchSize;
+
+        public static CopyRequest fromMap(Map<String, Object> values) {
+            CopyRequest request = new CopyRequest();
+            request.sourceConnectionId = (String) values.get("sourceConnectionId");
+            request.sourceSchema = (String) values.get("sourceSchema");
+            request.sourceTable = (String) values.get("sourceTable");
+            request.sourceQuery = (String) values.get("sourceQuery");
+            request.targetConnectionId = (String) values.get("targetConnectionId");
+            request.targetSchema = (String) values.get("targetSchema");
+            request.targetTable = (String) values.get("targetTable");
+            request.createTable = Boolean.TRUE.equals(values.get("createTable"));
+            if (values.get("writers") instanceof Number) {
+                request.writers = ((Number) values.get("writers")).intValue();
+            }
+            if (values.get("batchSize") instanceof Number) {
+                request.batchSize = ((Number) values.get("batchSize")).intValue();
+            }
+            if (request.targetTable == null) {
+                request.targetTable = request.sourceTable;
+            }
+            return request;
+        }
+
+        void validate() {
+            if (sourceConnectionId == null || targetConnectionId == null) {
+                throw new IllegalArgumentException("sourceConnectionId and targetConnectionId are required");
+            }
+            if ((sourceTable == null) == (sourceQuery == null)) {
+                throw new IllegalArgumentException("Exactly one of sourceTable and sourceQuery is required");
+            }
+            if (targetTable == null) {
+                throw new IllegalArgumentException("targetTable is required when copying a query");
+            }
+        }
+
+        String describeSource() {
+            return sourceTable != null ? sourceTable : "query";
+        }
+
+        public String getSourceConnectionId() { return sourceConnectionId; }
+        public String getTargetConnectionId() { return targetConnectionId; }
+        public String getSourceTable() { return sourceTable; }
+        public String getTargetTable() { return targetTable; }
+    }
+
+    /**
+     * One target column for CREATE TABLE
+     */
+    static class ColumnDefinition {
+        private final String name;
+        private final int sqlType;
+        private final int precision;
+        private final int scale;
+        private final boolean nullable;
+
+        ColumnDefinition(String name, int sqlType, int precision, int scale, boolean nullable) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.precision = precision;
+            this.scale = scale;
+            this.nullable = nullable;
+        }
+    }
+
+    /**
+     * A running or finished copy with its throughput counters
+     */
+    private static class CopyJob {
+        private final String id = UUID.randomUUID().toString();
+        private final CopyRequest request;
+        private final int writers;
+        private final int batchSize;
+        private final BlockingQueue<List<Object[]>> queue;
+        private final long startedAt = System.currentTimeMillis();
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder rowsWritten = new LongAdder();
+        private final LongAdder batchesWritten = new LongAdder();
+        // Time the reader spent blocked on a full queue (writer-bound) and writers on an empty one (reader-bound)
+        private final LongAdder readerWaitNanos = new LongAdder();
+        private final LongAdder writerWaitNanos = new LongAdder();
+        private final AtomicReference<String> stopState = new AtomicReference<>();
+        private volatile String state = STATE_RUNNING;
+        private volatile String error;
+        private volatile String fetchMode;
+        private volatile String ddl;
+        private volatile Statement readStatement;
+        private volatile boolean writersStarted;
+        private volatile long finishedAt;
+
+        CopyJob(CopyRequest request, int writers, int batchSize, BlockingQueue<List<Object[]>> queue) {
+            this.request = request;
+            this.writers = writers;
+            this.batchSize = batchSize;
+            this.queue = queue;
+        }
+
+        boolean isStopping() {
+            return stopState.get() != null;
+        }
+
+        void stop(String reason, Throwable cause) {
+            if (stopState.compareAndSet(null, reason) && cause != null) {
+                error = cause.getMessage();
+            }
+        }
+
+        void fail(Throwable cause) {
+            stop(STATE_FAILED, cause);
+        }
+
+        void finish() {
+            if (finishedAt == 0) {
+                finishedAt = System.currentTimeMillis();
+                String stopped = stopState.get();
+                state = stopped != null ? stopped : STATE_COMPLETED;
+            }
+        }
+
+        Map<String, Object> toMap() {
+            long now = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            long elapsedMs = Math.max(1, now - startedAt);
+            long read = rowsRead.sum();
+            long written = rowsWritten.sum();
+
+            Map<String, Object> map = new HashMap<>();
+            map.put("success", true);
+            map.put("jobId", id);
+            map.put("state", state);
+            map.put("sourceConnectionId", request.sourceConnectionId);
+            map.put("source", request.describeSource());
+            map.put("targetConnectionId", request.targetConnectionId);
+            map.put("targetTable", request.targetTable);
+            map.put("writers", writers);
+            map.put("batchSize", batchSize);
+            map.put("fetchMode", fetchMode);
+            map.put("rowsRead", read);
+            map.put("rowsWritten", written);
+            map.put("lagRows", read - written);
+            map.put("queuedBatches", queue.size());
+            map.put("batchesWritten", batchesWritten.sum());
+            map.put("readRowsPerSecond", read * 1000.0 / elapsedMs);
+            map.put("writeRowsPerSecond", written * 1000.0 / elapsedMs);
+            map.put("readerWaitMs", TimeUnit.NANOSECONDS.toMillis(readerWaitNanos.sum()));
+            map.put("writerWaitMs", TimeUnit.NANOSECONDS.toMillis(writerWaitNanos.sum()));
+            map.put("startedAt", startedAt);
+            map.put("elapsedMs", elapsedMs);
+            if (ddl != null) {
+                map.put("ddl", ddl);
+            }
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.dbconnector.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -11,42 +12,121 @@ import java.io.*;
 @Service
 public class DataService {
 
+    private static final int MAX_FILTERS = 50;
+    private static final int MAX_IN_VALUES = 1000;
+    private static final int MAX_SORT_KEYS = 10;
+    private static final int MAX_GROUP_COLUMNS = 10;
+    private static final int MAX_AGGREGATES = 20;
+    private static final int MAX_PIVOT_VALUES = 50;
+    
     @Autowired
     private ConnectionService connectionService;
     
     @Autowired
     private LoggingService loggingService;
+    
+    @Autowired
+    private DialectService dialectService;
+    
+    @Autowired
+    private SchemaService schemaService;
+    
+    @Value("${app.data.exact-count-threshold:100000}")
+    private long exactCountThreshold;
+    
+    @Value("${app.data.aggregate.max-groups:10000}")
+    private int maxAggregateGroups;
+    
+    @Value("${app.data.aggregate.timeout-seconds:120}")
+    private int aggregateTimeoutSeconds;
 
     public Map<String, Object> getTableData(String connectionId, String tableName, String schema, int page, int pageSize) throws SQLException {
+        return getTableData(connectionId, tableName, schema, page, pageSize, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * One page of a table with its filters and ORDER BY pushed into the query, so the database can use
+     * its indexes. Columns are checked against the table's cached structure and values are bound as parameters.
+     */
+    public Map<String, Object> getTableData(String connectionId, String tableName, String schema, int page, int pageSize,
+                                            List<TableFilter> filters, List<SortKey> sort) throws SQLException {
+        return getTableData(connectionId, tableName, schema, page, pageSize, filters, sort, null);
+    }
+
+    /**
+     * As above, seeking past after (the previous page's nextKey) instead of skipping rows when given. Keyset
+     * pages need the rows ordered by the primary key alone: no sort keys, or ascending ones on its leading columns.
+     */
+    public Map<String, Object> getTableData(String connectionId, String tableName, String schema, int page, int pageSize,
+                                            List<TableFilter> filters, List<SortKey> sort, List<Object> after)
+            throws SQLException {
         Connection connection = connectionService.getConnection(connectionId);
         if (connection == null) {
             throw new SQLException("No active connection found");
         }
 
         Map<String, Object> result = new HashMap<>();
+        Dialect dialect = dialectService.forConnection(connection);
         
         // Build table name with schema if provided
         String fullTableName = schema != null && !schema.isEmpty() ? schema + "." + tableName : tableName;
         
-        // Get total count
-        String countQuery = "SELECT COUNT(*) FROM " + fullTableName;
-        int totalRows = 0;
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(countQuery)) {
-            if (rs.next()) {
-                totalRows = rs.getInt(1);
+        String where = "";
+        String orderBy = "";
+        List<Object> parameters = new ArrayList<>();
+        List<String> keyColumns = Collections.emptyList();
+        List<Object> lastKey = Collections.emptyList();
+        if (!filters.isEmpty() || !sort.isEmpty() || after != null) {
+            Map<String, Object> structure = schemaService.getCachedTableStructure(connectionId, tableName, schema);
+            Map<String, Map<String, Object>> tableColumns = columnsByName(structure);
+            if (tableColumns.isEmpty()) {
+                throw new SQLException("Table not found: " + fullTableName);
+            }
+            where = compileFilters(dialect, tableColumns, filters, parameters);
+            orderBy = compileSort(dialect, tableColumns, structure, sort);
+            keyColumns = keysetColumns(tableColumns, structure, sort);
+            if (after != null) {
+                lastKey = compileKey(tableColumns, keyColumns, after);
+            }
+        }
+        
+        // Large tables are sized from catalog statistics; small or unanalyzed ones are counted exactly.
+        // Catalog statistics describe the whole table, so filtered results are always counted.
+        long totalRows = 0;
+        boolean estimated = false;
+        Long estimate = where.isEmpty() ? estimateRowCount(dialect, connection, schema, tableName) : null;
+        if (estimate != null && estimate >= exactCountThreshold) {
+            totalRows = estimate;
+            estimated = true;
+        } else {
+            String countQuery = "SELECT COUNT(*) FROM " + fullTableName + where;
+            try (PreparedStatement stmt = prepare(connection, countQuery, parameters);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    totalRows = rs.getLong(1);
+                }
             }
         }
         
-        // Get paginated data
-        int offset = (page - 1) * pageSize;
-        String dataQuery = "SELECT * FROM " + fullTableName + " LIMIT " + pageSize + " OFFSET " + offset;
+        // Get paginated data; a keyset page seeks to its first row where an offset page reads and skips
+        String dataQuery;
+        if (after != null) {
+            List<String> quotedKeys = new ArrayList<>(keyColumns.size());
+            for (String keyColumn : keyColumns) {
+                quotedKeys.add(dialect.quoteIdentifier(keyColumn));
+            }
+            dataQuery = dialect.paginateAfter("SELECT * FROM " + fullTableName + where, quotedKeys, lastKey, parameters,
+                pageSize);
+        } else {
+            long offset = (long) (page - 1) * pageSize;
+            dataQuery = dialect.paginate("SELECT * FROM " + fullTableName + where + orderBy, offset, pageSize);
+        }
         
         List<Map<String, Object>> columns = new ArrayList<>();
         List<Map<String, Object>> data = new ArrayList<>();
         
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(dataQuery)) {
+        try (PreparedStatement stmt = prepare(connection, dataQuery, parameters);
+             ResultSet rs = stmt.executeQuery()) {
             
             ResultSetMetaData metaData = rs.getMetaData();
             int columnCount = metaData.getColumnCount();
@@ -75,13 +155,565 @@ public class DataService {
         result.put("columns", columns);
         result.put("data", data);
         result.put("totalRows", totalRows);
+        result.put("totalRowsEstimated", estimated);
         result.put("currentPage", page);
         result.put("pageSize", pageSize);
         result.put("totalPages", (int) Math.ceil((double) totalRows / pageSize));
+        // Unsorted pages have no defined order to continue from
+        if (!keyColumns.isEmpty() && (after != null || !sort.isEmpty()) && data.size() == pageSize) {
+            result.put("nextKey", keyOf(data.get(data.size() - 1), keyColumns));
+        }
         
         return result;
     }
 
+    /**
+     * Group, aggregate and optionally pivot a table on the server, returning only the aggregated rows.
+     * Pivot values become conditional aggregates (one column per value), and subtotals come from the
+     * dialect's ROLLUP; where it has none, only a grand total row is added.
+     */
+    public Map<String, Object> aggregate(AggregateRequest request) throws SQLException {
+        Connection connection = connectionService.getConnection(request.connectionId);
+        if (connection == null) {
+            throw new SQLException("No active connection found");
+        }
+        if (request.aggregates.isEmpty() || request.aggregates.size() > MAX_AGGREGATES) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_AGGREGATES + " aggregates are required");
+        }
+        if (request.groupBy.size() > MAX_GROUP_COLUMNS) {
+            throw new IllegalArgumentException("At most " + MAX_GROUP_COLUMNS + " group-by columns are allowed");
+        }
+        
+        Dialect dialect = dialectService.forConnection(connection);
+        String fullTableName = request.schema != null && !request.schema.isEmpty()
+            ? request.schema + "." + request.tableName : request.tableName;
+        Map<String, Object> structure = schemaService.getCachedTableStructure(request.connectionId, request.tableName, request.schema);
+        Map<String, Map<String, Object>> tableColumns = columnsByName(structure);
+        if (tableColumns.isEmpty()) {
+            throw new SQLException("Table not found: " + fullTableName);
+        }
+        
+        List<Object> whereParameters = new ArrayList<>();
+        String where = compileFilters(dialect, tableColumns, request.filters, whereParameters);
+        
+        List<String> groupNames = new ArrayList<>();
+        List<String> groupColumns = new ArrayList<>();
+        for (String name : request.groupBy) {
+            String actual = (String) column(tableColumns, name).get("name");
+            groupNames.add(actual);
+            groupColumns.add(dialect.quoteIdentifier(actual));
+        }
+        
+        // Pivot values, given or discovered, each become a filter inside the aggregates
+        String pivotColumn = null;
+        List<Object> pivotValues = Collections.singletonList(null);
+        if (request.pivotColumn != null) {
+            Map<String, Object> pivot = column(tableColumns, request.pivotColumn);
+            pivotColumn = dialect.quoteIdentifier((String) pivot.get("name"));
+            pivotValues = request.pivotValues != null
+                ? coerceAll(request.pivotValues, (Integer) pivot.get("sqlType"), (String) pivot.get("name"))
+                : distinctValues(connection, dialect, pivotColumn, fullTableName, where, whereParameters);
+            if (pivotValues.isEmpty() || pivotValues.size() > MAX_PIVOT_VALUES) {
+                throw new IllegalArgumentException("Pivot on " + pivot.get("name") + " needs 1 to " + MAX_PIVOT_VALUES +
+                    " values, found " + pivotValues.size());
+            }
+        }
+        
+        List<String> labels = new ArrayList<>(groupNames);
+        List<String> aggregateSql = new ArrayList<>();
+        List<Object> selectParameters = new ArrayList<>();
+        for (AggregateSpec spec : request.aggregates) {
+            for (Object pivotValue : pivotValues) {
+                aggregateSql.add(aggregateExpression(dialect, tableColumns, spec, pivotColumn, pivotValue, selectParameters));
+                String label = spec.alias != null ? spec.alias : spec.function + "(" + (spec.column != null ? spec.column : "*") + ")";
+                labels.add(pivotColumn != null ? label + " [" + pivotValue + "]" : label);
+            }
+        }
+        
+        String rollup = request.rollup && !groupColumns.isEmpty() ? dialect.rollup(groupColumns) : null;
+        StringJoiner select = new StringJoiner(", ", "SELECT ", "");
+        groupColumns.forEach(select::add);
+        if (rollup != null) {
+            for (int i = 0; i < groupColumns.size(); i++) {
+                select.add("GROUPING(" + groupColumns.get(i) + ") AS grp_" + i);
+            }
+        }
+        for (int i = 0; i < aggregateSql.size(); i++) {
+            select.add(aggregateSql.get(i) + " AS agg_" + i);
+        }
+        
+        StringBuilder sql = new StringBuilder(select.toString()).append(" FROM ").append(fullTableName).append(where);
+        if (!groupColumns.isEmpty()) {
+            sql.append(" GROUP BY ").append(rollup != null ? rollup : String.join(", ", groupColumns));
+            // Each group's detail rows first, then its subtotal; the grand total last
+            StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+            for (int i = 0; i < groupColumns.size(); i++) {
+                if (rollup != null) {
+                    orderBy.add("grp_" + i);
+                }
+                orderBy.add(groupColumns.get(i));
+            }
+            sql.append(orderBy);
+        }
+        
+        List<Object> parameters = new ArrayList<>(selectParameters);
+        parameters.addAll(whereParameters);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        boolean truncated = false;
+        try (PreparedStatement stmt = prepare(connection, sql.toString(), parameters)) {
+            stmt.setQueryTimeout(aggregateTimeoutSeconds);
+            stmt.setMaxRows(maxAggregateGroups + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int groupCount = groupColumns.size();
+                int groupingCount = rollup != null ? groupCount : 0;
+                while (rs.next()) {
+                    if (rows.size() == maxAggregateGroups) {
+                        truncated = true;
+                        break;
+                    }
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 0; i < groupCount; i++) {
+                        row.put(labels.get(i), rs.getObject(i + 1));
+                    }
+                    if (groupingCount > 0) {
+                        // Number of trailing group columns rolled up: 0 for detail rows, all of them for the grand total
+                        int level = 0;
+                        for (int i = 0; i < groupingCount; i++) {
+                            level += rs.getInt(groupCount + i + 1);
+                        }
+                        row.put("_rollupLevel", level);
+                    }
+                    for (int i = groupCount; i < labels.size(); i++) {
+                        row.put(labels.get(i), rs.getObject(groupingCount + i + 1));
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("columns", labels);
+        result.put("rows", rows);
+        result.put("truncated", truncated);
+        result.put("rollup", rollup != null);
+        if (request.rollup && rollup == null && !groupColumns.isEmpty()) {
+            result.put("totals", totals(connection, fullTableName, where, aggregateSql, selectParameters, whereParameters,
+                labels.subList(groupColumns.size(), labels.size())));
+        }
+        return result;
+    }
+
+    /**
+     * Grand totals for dialects without ROLLUP
+     */
+    private Map<String, Object> totals(Connection connection, String fullTableName, String where, List<String> aggregateSql,
+                                       List<Object> selectParameters, List<Object> whereParameters, List<String> labels)
+            throws SQLException {
+        String sql = "SELECT " + String.join(", ", aggregateSql) + " FROM " + fullTableName + where;
+        List<Object> parameters = new ArrayList<>(selectParameters);
+        parameters.addAll(whereParameters);
+        Map<String, Object> totals = new LinkedHashMap<>();
+        try (PreparedStatement stmt = prepare(connection, sql, parameters)) {
+            stmt.setQueryTimeout(aggregateTimeoutSeconds);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    for (int i = 0; i < labels.size(); i++) {
+                        totals.put(labels.get(i), rs.getObject(i + 1));
+                    }
+                }
+            }
+        }
+        return totals;
+    }
+
+    private List<Object> distinctValues(Connection connection, Dialect dialect, String column, String fullTableName,
+                                        String where, List<Object> whereParameters) throws SQLException {
+        String sql = dialect.paginate("SELECT DISTINCT " + column + " FROM " + fullTableName + where + " ORDER BY " + column,
+            0, MAX_PIVOT_VALUES + 1);
+        List<Object> values = new ArrayList<>();
+        try (PreparedStatement stmt = prepare(connection, sql, whereParameters)) {
+            stmt.setQueryTimeout(aggregateTimeoutSeconds);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    // NULL cannot be matched with =, so it does not get a pivot column
+                    Object value = rs.getObject(1);
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * One aggregate; with a pivot value the aggregated input is limited to rows matching it via CASE,
+     * which every dialect supports, rather than vendor PIVOT syntax
+     */
+    private static String aggregateExpression(Dialect dialect, Map<String, Map<String, Object>> columns, AggregateSpec spec,
+                                              String pivotColumn, Object pivotValue, List<Object> parameters) {
+        String function = spec.function != null ? spec.function.toLowerCase(Locale.ROOT) : "";
+        String input;
+        if (spec.column == null) {
+            if (!"count".equals(function)) {
+                throw new IllegalArgumentException(spec.function + " needs a column");
+            }
+            input = "1";
+        } else {
+            Map<String, Object> column = column(columns, spec.column);
+            boolean numeric = isNumeric((Integer) column.get("sqlType"));
+            if (("sum".equals(function) || "avg".equals(function)) && !numeric) {
+                throw new IllegalArgumentException(spec.function + " needs a numeric column, not " + column.get("name"));
+            }
+            input = dialect.quoteIdentifier((String) column.get("name"));
+        }
+        if (pivotColumn != null) {
+            input = "CASE WHEN " + pivotColumn + " = ? THEN " + input + " END";
+            parameters.add(pivotValue);
+        }
+        
+        switch (function) {
+            case "count":
+                return "COUNT(" + input + ")";
+            case "count_distinct":
+                return "COUNT(DISTINCT " + input + ")";
+            case "sum":
+                return "SUM(" + input + ")";
+            case "avg":
+                return "AVG(" + input + ")";
+            case "min":
+                return "MIN(" + input + ")";
+            case "max":
+                return "MAX(" + input + ")";
+            default:
+                throw new IllegalArgumentException("Unknown aggregate function: " + spec.function);
+        }
+    }
+
+    private static List<Object> coerceAll(List<Object> values, int sqlType, String column) {
+        List<Object> coerced = new ArrayList<>();
+        for (Object value : values) {
+            coerced.add(coerce(value, sqlType, column));
+        }
+        return coerced;
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, List<Object> parameters) throws SQLException {
+        PreparedStatement stmt = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+        return stmt;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> columnsByName(Map<String, Object> structure) {
+        Map<String, Map<String, Object>> columns = new HashMap<>();
+        for (Map<String, Object> column : (List<Map<String, Object>>) structure.get("columns")) {
+            columns.put(((String) column.get("name")).toLowerCase(Locale.ROOT), column);
+        }
+        return columns;
+    }
+
+    private static Map<String, Object> column(Map<String, Map<String, Object>> columns, String name) {
+        Map<String, Object> column = name != null ? columns.get(name.toLowerCase(Locale.ROOT)) : null;
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown column: " + name);
+        }
+        return column;
+    }
+
+    /**
+     * " WHERE ..." for the filters ANDed together, adding their values to parameters; empty when there are none
+     */
+    private static String compileFilters(Dialect dialect, Map<String, Map<String, Object>> columns,
+                                         List<TableFilter> filters, List<Object> parameters) {
+        if (filters.isEmpty()) {
+            return "";
+        }
+        if (filters.size() > MAX_FILTERS) {
+            throw new IllegalArgumentException("At most " + MAX_FILTERS + " filters are allowed");
+        }
+        
+        List<String> conditions = new ArrayList<>();
+        for (TableFilter filter : filters) {
+            Map<String, Object> column = column(columns, filter.column);
+            String name = (String) column.get("name");
+            String quoted = dialect.quoteIdentifier(name);
+            int sqlType = (Integer) column.get("sqlType");
+            String op = filter.op != null ? filter.op.toLowerCase(Locale.ROOT) : "eq";
+            
+            switch (op) {
+                case "eq":
+                case "=":
+                    conditions.add(quoted + " = ?");
+                    parameters.add(coerce(filter.value, sqlType, name));
+                    break;
+                case "ne":
+                case "!=":
+                case "<>":
+                    conditions.add(quoted + " <> ?");
+                    parameters.add(coerce(filter.value, sqlType, name));
+                    break;
+                case "lt":
+                case "<":
+                    conditions.add(quoted + " < ?");
+                    parameters.add(coerce(filter.value, sqlType, name));
+                    break;
+                case "le":
+                case "<=":
+                    conditions.add(quoted + " <= ?");
+                    parameters.add(coerce(filter.value, sqlType, name));
+                    break;
+                case "gt":
+                case ">":
+                    conditions.add(quoted + " > ?");
+                    parameters.add(coerce(filter.value, sqlType, name));
+                    break;
+                case "ge":
+                case ">=":
+                    conditions.add(quoted + " >= ?");
+                    parameters.add(coerce(filter.value, sqlType, name));
+                    break;
+                case "like":
+                case "not_like":
+                    if (!isText(sqlType)) {
+                        throw new IllegalArgumentException("LIKE needs a text column, not " + name);
+                    }
+                    if (filter.value == null) {
+                        throw new IllegalArgumentException("LIKE on " + name + " needs a pattern");
+                    }
+                    conditions.add(quoted + ("like".equals(op) ? " LIKE ?" : " NOT LIKE ?"));
+                    parameters.add(filter.value.toString());
+                    break;
+                case "in":
+                case "not_in": {
+                    List<Object> values = filter.values != null ? filter.values : Collections.emptyList();
+                    if (values.isEmpty() || values.size() > MAX_IN_VALUES) {
+                        throw new IllegalArgumentException("IN on " + name + " needs 1 to " + MAX_IN_VALUES + " values");
+                    }
+                    StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+                    for (Object value : values) {
+                        placeholders.add("?");
+                        parameters.add(coerce(value, sqlType, name));
+                    }
+                    conditions.add(quoted + ("in".equals(op) ? " IN " : " NOT IN ") + placeholders);
+                    break;
+                }
+                case "between": {
+                    if (filter.values == null || filter.values.size() != 2) {
+                        throw new IllegalArgumentException("BETWEEN on " + name + " needs exactly two values");
+                    }
+                    conditions.add(quoted + " BETWEEN ? AND ?");
+                    parameters.add(coerce(filter.values.get(0), sqlType, name));
+                    parameters.add(coerce(filter.values.get(1), sqlType, name));
+                    break;
+                }
+                case "is_null":
+                    conditions.add(quoted + " IS NULL");
+                    break;
+                case "is_not_null":
+                    conditions.add(quoted + " IS NOT NULL");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown filter operator: " + filter.op);
+            }
+        }
+        return " WHERE " + String.join(" AND ", conditions);
+    }
+
+    /**
+     * " ORDER BY ..." for the sort keys, with any primary key columns not already sorted on appended
+     * so rows keep a stable order across pages; empty when there are no sort keys
+     */
+    @SuppressWarnings("unchecked")
+    private static String compileSort(Dialect dialect, Map<String, Map<String, Object>> columns,
+                                      Map<String, Object> structure, List<SortKey> sort) {
+        if (sort.isEmpty()) {
+            return "";
+        }
+        if (sort.size() > MAX_SORT_KEYS) {
+            throw new IllegalArgumentException("At most " + MAX_SORT_KEYS + " sort columns are allowed");
+        }
+        
+        Set<String> sorted = new HashSet<>();
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        for (SortKey key : sort) {
+            String name = (String) column(columns, key.column).get("name");
+            if (sorted.add(name)) {
+                orderBy.add(dialect.quoteIdentifier(name) + (key.descending ? " DESC" : " ASC"));
+            }
+        }
+        
+        List<Map<String, Object>> primaryKeys = new ArrayList<>((List<Map<String, Object>>) structure.get("primaryKeys"));
+        primaryKeys.sort(Comparator.comparingInt(pk -> (Integer) pk.get("keySeq")));
+        for (Map<String, Object> primaryKey : primaryKeys) {
+            String name = (String) primaryKey.get("columnName");
+            if (sorted.add(name)) {
+                orderBy.add(dialect.quoteIdentifier(name) + " ASC");
+            }
+        }
+        return orderBy.toString();
+    }
+
+    /**
+     * Primary key columns in key order when the sort leaves the primary key as the whole ordering (no sort
+     * keys, or ascending ones on its leading columns); empty otherwise, or when the table has no primary key
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String> keysetColumns(Map<String, Map<String, Object>> columns, Map<String, Object> structure,
+                                              List<SortKey> sort) {
+        List<Map<String, Object>> primaryKeys = new ArrayList<>((List<Map<String, Object>>) structure.get("primaryKeys"));
+        primaryKeys.sort(Comparator.comparingInt(pk -> (Integer) pk.get("keySeq")));
+        List<String> keyColumns = new ArrayList<>(primaryKeys.size());
+        for (Map<String, Object> primaryKey : primaryKeys) {
+            keyColumns.add((String) primaryKey.get("columnName"));
+        }
+        
+        Set<String> sorted = new LinkedHashSet<>();
+        for (SortKey key : sort) {
+            String name = (String) column(columns, key.column).get("name");
+            if (key.descending && !sorted.contains(name)) {
+                return Collections.emptyList();
+            }
+            sorted.add(name);
+        }
+        if (sorted.size() > keyColumns.size() || !keyColumns.subList(0, sorted.size()).equals(new ArrayList<>(sorted))) {
+            return Collections.emptyList();
+        }
+        return keyColumns;
+    }
+
+    /**
+     * A client's nextKey converted to the key columns' Java types
+     */
+    private static List<Object> compileKey(Map<String, Map<String, Object>> columns, List<String> keyColumns,
+                                           List<Object> after) {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Keyset paging needs a primary key and no sort beyond it");
+        }
+        if (after.size() != keyColumns.size()) {
+            throw new IllegalArgumentException("after needs " + keyColumns.size() + " key values, got " + after.size());
+        }
+        List<Object> lastKey = new ArrayList<>(after.size());
+        for (int i = 0; i < after.size(); i++) {
+            String name = keyColumns.get(i);
+            lastKey.add(coerce(after.get(i), (Integer) column(columns, name).get("sqlType"), name));
+        }
+        return lastKey;
+    }
+
+    /**
+     * Key column values of a fetched row; drivers may report labels in a different case than the catalog
+     */
+    private static List<Object> keyOf(Map<String, Object> row, List<String> keyColumns) {
+        List<Object> key = new ArrayList<>(keyColumns.size());
+        for (String keyColumn : keyColumns) {
+            Object value = row.get(keyColumn);
+            if (value == null) {
+                for (Map.Entry<String, Object> entry : row.entrySet()) {
+                    if (entry.getKey().equalsIgnoreCase(keyColumn)) {
+                        value = entry.getValue();
+                        break;
+                    }
+                }
+            }
+            key.add(value);
+        }
+        return key;
+    }
+
+    /**
+     * Convert a JSON filter value to the Java type the driver expects for the column, so databases
+     * with strict typing compare like with like
+     */
+    private static Object coerce(Object value, int sqlType, String column) {
+        if (value == null) {
+            throw new IllegalArgumentException("Filter on " + column + " has no value; use is_null to match NULLs");
+        }
+        String text = value.toString().trim();
+        try {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(text);
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    return new java.math.BigDecimal(text);
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(text);
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    return value instanceof Boolean ? value : Boolean.parseBoolean(text);
+                case Types.DATE:
+                    return java.sql.Date.valueOf(text);
+                case Types.TIME:
+                    return Time.valueOf(text);
+                case Types.TIMESTAMP:
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    // Accept ISO-8601 as sent by browsers as well as JDBC escape format
+                    return Timestamp.valueOf(text.replace('T', ' ').replace("Z", ""));
+                default:
+                    return value instanceof String ? value : text;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for column " + column + ": " + value);
+        }
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isText(int sqlType) {
+        switch (sqlType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Long estimateRowCount(Dialect dialect, Connection connection, String schema, String tableName) {
+        try {
+            return dialect.estimateRowCount(connection, schema != null && !schema.isEmpty() ? schema : null, tableName);
+        } catch (SQLException e) {
+            // No access to the catalog views; an exact count still works
+            loggingService.logDebug("Row estimate unavailable for " + tableName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
     public Map<String, Object> insertRow(String connectionId, String tableName, String schema, Map<String, Object> rowData) throws SQLException {
         Connection connection = connectionService.getConnection(connectionId);
         if (connection == null) {
@@ -282,4 +914,99 @@ public class DataService {
         result.put("message", "JSON export functionality to be implemented");
         return result;
     }
+
+    /**
+     * A column condition such as {"column": "age", "op": "between", "values": [18, 30]}
+     */
+    public static class TableFilter {
+        private String column;
+        private String op;
+        private Object value;
+        private List<Object> values;
+        
+        @SuppressWarnings("unchecked")
+        public static TableFilter fromMap(Map<String, Object> map) {
+            TableFilter filter = new TableFilter();
+            filter.column = (String) map.get("column");
+            filter.op = (String) map.get("op");
+            filter.value = map.get("value");
+            filter.values = (List<Object>) map.get("values");
+            return filter;
+        }
+    }
+
+    /**
+     * A sort column, e.g. {"column": "created_at", "direction": "desc"}
+     */
+    public static class SortKey {
+        private String column;
+        private boolean descending;
+        
+        public static SortKey fromMap(Map<String, Object> map) {
+            SortKey key = new SortKey();
+            key.column = (String) map.get("column");
+            key.descending = "desc".equalsIgnoreCase((String) map.get("direction"));
+            return key;
+        }
+    }
+
+    /**
+     * What to aggregate: group-by columns, aggregates, an optional pivot column and filters
+     */
+    public static class AggregateRequest {
+        private String connectionId;
+        private String tableName;
+        private String schema;
+        private List<String> groupBy = Collections.emptyList();
+        private List<AggregateSpec> aggregates = new ArrayList<>();
+        private String pivotColumn;
+        private List<Object> pivotValues;
+        private boolean rollup;
+        private List<TableFilter> filters = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        public static AggregateRequest fromMap(Map<String, Object> map) {
+            AggregateRequest request = new AggregateRequest();
+            request.connectionId = (String) map.get("connectionId");
+            request.tableName = (String) map.get("tableName");
+            request.schema = (String) map.get("schema");
+            if (map.get("groupBy") instanceof List) {
+                request.groupBy = (List<String>) map.get("groupBy");
+            }
+            if (map.get("aggregates") instanceof List) {
+                for (Map<String, Object> aggregate : (List<Map<String, Object>>) map.get("aggregates")) {
+                    request.aggregates.add(AggregateSpec.fromMap(aggregate));
+                }
+            }
+            if (map.get("pivot") instanceof Map) {
+                Map<String, Object> pivot = (Map<String, Object>) map.get("pivot");
+                request.pivotColumn = (String) pivot.get("column");
+                request.pivotValues = (List<Object>) pivot.get("values");
+            }
+            request.rollup = Boolean.TRUE.equals(map.get("rollup"));
+            if (map.get("filters") instanceof List) {
+                for (Map<String, Object> filter : (List<Map<String, Object>>) map.get("filters")) {
+                    request.filters.add(TableFilter.fromMap(filter));
+                }
+            }
+            return request;
+        }
+    }
+
+    /**
+     * One aggregate, e.g. {"function": "sum", "column": "amount", "alias": "revenue"}; count without a column counts rows
+     */
+    public static class AggregateSpec {
+        private String function;
+        private String column;
+        private String alias;
+
+        public static AggregateSpec fromMap(Map<String, Object> map) {
+            AggregateSpec spec = new AggregateSpec();
+            spec.function = (String) map.get("function");
+            spec.column = (String) map.get("column");
+            spec.alias = (String) map.get("alias");
+            return spec;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package com.dbconnector.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Database-specific SQL and JDBC behaviour. Built-in dialects live in DialectService; additional
+ * dialects can be contributed as Spring beans and take precedence over the built-in ones.
+ */
+public interface Dialect {
+
+    String FETCH_CURSOR = "cursor";
+    String FETCH_STREAMING = "streaming";
+    String FETCH_BUFFERED = "buffered";
+
+    /**
+     * Dialect name, e.g. "postgresql"
+     */
+    String getName();
+
+    /**
+     * Whether this dialect handles the given lower-cased product name or JDBC subprotocol
+     */
+    boolean supports(String productOrSubprotocol);
+
+    /**
+     * Wrap a query so it returns at most limit rows after skipping offset rows
+     */
+    String paginate(String sql, long offset, int limit);
+
+    /**
+     * Keyset (seek) page: at most limit rows of sql, in key order, whose key columns sort after lastKey.
+     * sql has no ORDER BY and keyColumns are quoted; the lastKey values are appended to parameters in
+     * placeholder order. The seek condition sits on a derived table, which the engines merge into sql.
+     */
+    default String paginateAfter(String sql, List<String> keyColumns, List<Object> lastKey, List<Object> parameters,
+                                 int limit) {
+        // (a > ?) OR (a = ? AND b > ?) ..., which every engine accepts
+        StringJoiner seek = new StringJoiner(" OR ");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            StringJoiner term = new StringJoiner(" AND ", "(", ")");
+            for (int j = 0; j < i; j++) {
+                term.add(keyColumns.get(j) + " = ?");
+                parameters.add(lastKey.get(j));
+            }
+            term.add(keyColumns.get(i) + " > ?");
+            parameters.add(lastKey.get(i));
+            seek.add(term.toString());
+        }
+        return paginate("SELECT * FROM (" + sql + ") k__ WHERE " + seek + " ORDER BY " + String.join(", ", keyColumns),
+            0, limit);
+    }
+
+    /**
+     * Quote an identifier for use in generated SQL
+     */
+    default String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Column type for CREATE TABLE given a java.sql.Types code and the source column's precision and scale
+     */
+    default String columnType(int sqlType, int precision, int scale) {
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return "BOOLEAN";
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return "SMALLINT";
+            case Types.INTEGER:
+                return "INTEGER";
+            case Types.BIGINT:
+                return "BIGINT";
+            case Types.REAL:
+                return "REAL";
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return "DOUBLE PRECISION";
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                // Unconstrained numerics report a precision of 0 or the driver's maximum
+                return precision > 0 && precision <= 38 ? "DECIMAL(" + precision + ", " + Math.max(0, scale) + ")" : "DECIMAL";
+            case Types.CHAR:
+            case Types.NCHAR:
+                // Wider fixed-length columns go through the dialect's own VARCHAR limit
+                return precision > 0 && precision <= 255 ? "CHAR(" + precision + ")" : columnType(Types.VARCHAR, precision, scale);
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                return precision > 0 && precision <= 4000 ? "VARCHAR(" + precision + ")" : "CLOB";
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return "CLOB";
+            case Types.DATE:
+                return "DATE";
+            case Types.TIME:
+            case Types.TIME_WITH_TIMEZONE:
+                return "TIME";
+            case Types.TIMESTAMP:
+                return "TIMESTAMP";
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return "TIMESTAMP WITH TIME ZONE";
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return "BLOB";
+            default:
+                // Vendor types (json, uuid, arrays, ...) travel as their text form
+                return "CLOB";
+        }
+    }
+
+    /**
+     * Aggregate expression summing a 56-bit MD5 prefix of each row's columns, joined with '|' and with
+     * NULL as '<NULL>'. Each column is rendered in the canonical text form of its java.sql.Types code
+     * rather than the engine's own (see DialectService.HashForm), so servers of different engines hash
+     * equal values the same way and can compare ranges of a table without sending rows. Null when the
+     * database cannot hash.
+     */
+    default String rowHashSum(List<String> quotedColumns, List<Integer> sqlTypes) {
+        return null;
+    }
+
+    /**
+     * Expression ordering a character column by its bytes instead of its collation, so key ranges split
+     * on one server select the same rows on another; null when the database has no such ordering
+     */
+    default String binarySortKey(String quotedColumn) {
+        return null;
+    }
+
+    /**
+     * GROUP BY body adding a subtotal row for each leading subset of the columns plus a grand total,
+     * with GROUPING(column) telling those rows apart; null when the database cannot do this
+     */
+    default String rollup(List<String> quotedColumns) {
+        return null;
+    }
+
+    /**
+     * Row count from the catalog statistics, or null when the database keeps none for this table
+     */
+    default Long estimateRowCount(Connection connection, String schema, String table) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Query a pool should use to validate connections, or null to use JDBC4 Connection.isValid
+     */
+    default String getValidationQuery() {
+        return null;
+    }
+
+    /**
+     * Check a connection is usable without a query round-trip where the driver allows it
+     */
+    default boolean validate(Connection connection, int timeoutSeconds) throws SQLException {
+        return connection.isValid(timeoutSeconds);
+    }
+
+    /**
+     * Put a read statement into the driver's incremental fetch mode; returns one of the FETCH_* modes.
+     * May switch off autocommit when the driver only streams inside a transaction, and streaming
+     * ties up the connection until the result is drained, so only call it on a connection the caller has to itself.
+     */
+    default String applyFetchMode(Connection connection, Statement statement, int fetchSize) throws SQLException {
+        statement.setFetchSize(fetchSize);
+        return FETCH_BUFFERED;
+    }
+
+    /**
+     * Insert rows as fast as the database allows; returns the number of rows inserted.
+     * The default is a single JDBC batch.
+     */
+    default long bulkInsert(Connection connection, String table, List<String> columns, List<Object[]> rows)
+            throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+                placeholders.append(", ");
+            }
+            sql.append(quoteIdentifier(columns.get(i)));
+            placeholders.append("?");
+        }
+        sql.append(") VALUES (").append(placeholders).append(")");
+
+        long inserted = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    statement.setObject(i + 1, row[i]);
+                }
+                statement.addBatch();
+            }
+            for (int count : statement.executeBatch()) {
+                // SUCCESS_NO_INFO still means the row went in
+                inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+}
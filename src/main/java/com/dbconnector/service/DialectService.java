@@ -0,0 +1,830 @@
+package com.dbconnector.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+@Service
+public class DialectService {
+
+    @Autowired(required = false)
+    private List<Dialect> contributedDialects = Collections.emptyList();
+
+    private final List<Dialect> builtInDialects = Arrays.asList(
+        new PostgresDialect(),
+        new MariaDbDialect(),
+        new MySqlDialect(),
+        new SqlServerDialect(),
+        new OracleDialect(),
+        new SqliteDialect(),
+        new H2Dialect(),
+        new AnsiDialect("derby", "derby"),
+        new AnsiDialect("firebird", "firebird"));
+
+    private final Dialect legacyOracle = new LegacyOracleDialect();
+    private final Dialect legacySqlServer = new LegacySqlServerDialect();
+
+    // Product names and subprotocols already matched to a dialect
+    private final Map<String, Dialect> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Dialect for an open connection, from the driver's product name and version
+     */
+    public Dialect forConnection(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        Dialect dialect = forName(metaData.getDatabaseProductName());
+        if (dialect instanceof OracleDialect && metaData.getDatabaseMajorVersion() < 12) {
+            // OFFSET ... FETCH arrived in 12c
+            return legacyOracle;
+        }
+        if (dialect instanceof SqlServerDialect && metaData.getDatabaseMajorVersion() < 15) {
+            // UTF-8 collations arrived in 2019
+            return legacySqlServer;
+        }
+        return dialect;
+    }
+
+    /**
+     * Dialect for a configured database type such as LocalConnectionInfo.getDbType()
+     */
+    public Dialect forDbType(String dbType) {
+        return forName(dbType);
+    }
+
+    /**
+     * Dialect for a JDBC URL, from its subprotocol
+     */
+    public Dialect forJdbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null || !jdbcUrl.startsWith("jdbc:")) {
+            return forName(null);
+        }
+        int end = jdbcUrl.indexOf(':', 5);
+        return forName(end < 0 ? jdbcUrl.substring(5) : jdbcUrl.substring(5, end));
+    }
+
+    private Dialect forName(String name) {
+        String key = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        return resolved.computeIfAbsent(key, this::lookup);
+    }
+
+    private Dialect lookup(String key) {
+        for (Dialect dialect : contributedDialects) {
+            if (dialect.supports(key)) {
+                return dialect;
+            }
+        }
+        for (Dialect dialect : builtInDialects) {
+            if (dialect.supports(key)) {
+                return dialect;
+            }
+        }
+        return new GenericDialect(key.isEmpty() ? "generic" : key);
+    }
+
+    /**
+     * Insert rows as multi-row VALUES statements, each within the database's parameter and row limits
+     */
+    static long multiRowInsert(Dialect dialect, Connection connection, String table, List<String> columns,
+                               List<Object[]> rows, int maxParameters, int maxRowsPerStatement) throws SQLException {
+        int columnCount = columns.size();
+        int rowsPerStatement = Math.max(1, Math.min(maxRowsPerStatement, maxParameters / Math.max(1, columnCount)));
+
+        StringBuilder prefix = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        StringBuilder tuple = new StringBuilder("(");
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                prefix.append(", ");
+                tuple.append(", ");
+            }
+            prefix.append(dialect.quoteIdentifier(columns.get(i)));
+            tuple.append("?");
+        }
+        prefix.append(") VALUES ");
+        tuple.append(")");
+
+        long inserted = 0;
+        PreparedStatement fullChunk = null;
+        try {
+            for (int start = 0; start < rows.size(); start += rowsPerStatement) {
+                int chunk = Math.min(rowsPerStatement, rows.size() - start);
+                PreparedStatement statement;
+                if (chunk == rowsPerStatement) {
+                    // Every full chunk shares one prepared statement
+                    if (fullChunk == null) {
+                        fullChunk = connection.prepareStatement(valuesSql(prefix, tuple, chunk));
+                    }
+                    statement = fullChunk;
+                } else {
+                    statement = connection.prepareStatement(valuesSql(prefix, tuple, chunk));
+                }
+
+                try {
+                    int parameter = 1;
+                    for (int row = start; row < start + chunk; row++) {
+                        for (Object value : rows.get(row)) {
+                            statement.setObject(parameter++, value);
+                        }
+                    }
+                    inserted += statement.executeUpdate();
+                } finally {
+                    if (statement != fullChunk) {
+                        statement.close();
+                    }
+                }
+            }
+        } finally {
+            if (fullChunk != null) {
+                fullChunk.close();
+            }
+        }
+        return inserted;
+    }
+
+    private static String valuesSql(StringBuilder prefix, StringBuilder tuple, int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rows * (tuple.length() + 2));
+        sql.append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(tuple);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Render each column in its canonical hash form, substitute NULLs through nullTemplate and join the
+     * results, for row hash expressions
+     */
+    static String hashInputs(List<String> quotedColumns, List<Integer> sqlTypes,
+                             BiFunction<String, HashForm, String> render, String nullTemplate, String delimiter) {
+        StringJoiner joined = new StringJoiner(delimiter);
+        for (int i = 0; i < quotedColumns.size(); i++) {
+            String text = render.apply(quotedColumns.get(i), HashForm.of(sqlTypes.get(i)));
+            joined.add(String.format(nullTemplate, text));
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Canonical text forms row hashes render columns in, so every engine produces the same text for
+     * the same value
+     */
+    enum HashForm {
+        // The engine's own text form; approximate numbers and strings
+        TEXT,
+        // 1 or 0
+        BOOLEAN,
+        // Plain decimal notation without trailing fractional zeros, e.g. 10.5, 0.25, -3, 0
+        DECIMAL,
+        // yyyy-MM-ddTHH:mm:ss.ffffff; dates render at midnight
+        TIMESTAMP,
+        // As TIMESTAMP, converted to UTC
+        TIMESTAMP_UTC;
+
+        static HashForm of(int sqlType) {
+            switch (sqlType) {
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    return BOOLEAN;
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    return DECIMAL;
+                case Types.DATE:
+                case Types.TIMESTAMP:
+                    return TIMESTAMP;
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    return TIMESTAMP_UTC;
+                default:
+                    return TEXT;
+            }
+        }
+    }
+
+    private static Long queryLong(Connection connection, String sql, String... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setString(i + 1, parameters[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    long value = rs.getLong(1);
+                    // Never-analyzed tables report 0 or -1; let the caller count them instead
+                    return rs.wasNull() || value <= 0 ? null : value;
+                }
+                return null;
+            }
+        }
+    }
+
+    private static boolean hasOrderBy(String sql) {
+        return sql.toUpperCase(Locale.ROOT).contains("ORDER BY");
+    }
+
+    /**
+     * PostgreSQL: LIMIT/OFFSET, pg_class estimates, cursor fetch inside a transaction
+     */
+    private static class PostgresDialect implements Dialect {
+        @Override
+        public String getName() { return "postgresql"; }
+
+        @Override
+        public boolean supports(String key) { return key.contains("postgres"); }
+
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            return sql + " LIMIT " + limit + " OFFSET " + offset;
+        }
+
+        @Override
+        public String paginateAfter(String sql, List<String> keyColumns, List<Object> lastKey, List<Object> parameters,
+                                    int limit) {
+            // A row comparison is a single index range scan, where the OR form is not
+            String keys = String.join(", ", keyColumns);
+            parameters.addAll(lastKey);
+            return "SELECT * FROM (" + sql + ") k__ WHERE (" + keys + ") > (" +
+                String.join(", ", Collections.nCopies(keyColumns.size(), "?")) + ") ORDER BY " + keys + " LIMIT " + limit;
+        }
+
+        @Override
+        public Long estimateRowCount(Connection connection, String schema, String table) throws SQLException {
+            return queryLong(connection,
+                "SELECT c.reltuples::bigint FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE c.relname = ? AND n.nspname = COALESCE(?, current_schema())", table, schema);
+        }
+
+        @Override
+        public String applyFetchMode(Connection connection, Statement statement, int fetchSize) throws SQLException {
+            // pgjdbc only uses a portal (cursor) when autocommit is off and a fetch size is set
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+            }
+            statement.setFetchSize(fetchSize);
+            return FETCH_CURSOR;
+        }
+
+        @Override
+        public long bulkInsert(Connection connection, String table, List<String> columns, List<Object[]> rows)
+                throws SQLException {
+            return multiRowInsert(this, connection, table, columns, rows, 32767, 1000);
+        }
+
+        @Override
+        public String columnType(int sqlType, int precision, int scale) {
+            switch (sqlType) {
+                case Types.VARCHAR:
+                case Types.NVARCHAR:
+                    return precision > 0 && precision <= 10485760 ? "VARCHAR(" + precision + ")" : "TEXT";
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.OTHER:
+                    return "TEXT";
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    return "BYTEA";
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    return "TIMESTAMPTZ";
+                default:
+                    return Dialect.super.columnType(sqlType, precision, scale);
+            }
+        }
+
+        @Override
+        public String rowHashSum(List<String> quotedColumns, List<Integer> sqlTypes) {
+            String text = hashInputs(quotedColumns, sqlTypes, PostgresDialect::hashText, "COALESCE(%s, '<NULL>')", ", ");
+            return "SUM(('x' || SUBSTR(MD5(CONCAT_WS('|', " + text + ")), 1, 14))::BIT(56)::BIGINT)";
+        }
+
+        private static String hashText(String column, HashForm form) {
+            switch (form) {
+                case BOOLEAN:
+                    return "CAST(CAST(" + column + " AS INTEGER) AS TEXT)";
+                case DECIMAL:
+                    String text = "CAST(" + column + " AS TEXT)";
+                    return "CASE WHEN " + text + " LIKE '%.%' THEN RTRIM(RTRIM(" + text + ", '0'), '.') ELSE " + text + " END";
+                case TIMESTAMP:
+                    return "TO_CHAR(CAST(" + column + " AS TIMESTAMP), 'YYYY-MM-DD\"T\"HH24:MI:SS.US')";
+                case TIMESTAMP_UTC:
+                    return "TO_CHAR(" + column + " AT TIME ZONE 'UTC', 'YYYY-MM-DD\"T\"HH24:MI:SS.US')";
+                default:
+                    return "CAST(" + column + " AS TEXT)";
+            }
+        }
+
+        @Override
+        public String binarySortKey(String quotedColumn) {
+            return quotedColumn + " COLLATE \"C\"";
+        }
+
+        @Override
+        public String rollup(List<String> quotedColumns) {
+            return "ROLLUP (" + String.join(", ", quotedColumns) + ")";
+        }
+    }
+
+    /**
+     * MySQL: LIMIT/OFFSET, information_schema estimates, server cursor or row streaming
+     */
+    private static class MySqlDialect implements Dialect {
+        @Override
+        public String getName() { return "mysql"; }
+
+        @Override
+        public boolean supports(String key) { return key.contains("mysql"); }
+
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            return sql + " LIMIT " + limit + " OFFSET " + offset;
+        }
+
+        @Override
+        public String quoteIdentifier(String identifier) {
+            return "`" + identifier.replace("`", "``") + "`";
+        }
+
+        @Override
+        public Long estimateRowCount(Connection connection, String schema, String table) throws SQLException {
+            return queryLong(connection,
+                "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) " +
+                "AND TABLE_NAME = ?", schema, table);
+        }
+
+        @Override
+        public String applyFetchMode(Connection connection, Statement statement, int fetchSize) throws SQLException {
+            if (usesCursorFetch(connection)) {
+                statement.setFetchSize(fetchSize);
+                return FETCH_CURSOR;
+            }
+            // Without useCursorFetch, Connector/J only streams row-by-row for Integer.MIN_VALUE
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return FETCH_STREAMING;
+        }
+
+        @Override
+        public long bulkInsert(Connection connection, String table, List<String> columns, List<Object[]> rows)
+                throws SQLException {
+            // Does not depend on rewriteBatchedStatements being set on the connection
+            return multiRowInsert(this, connection, table, columns, rows, 65535, 1000);
+        }
+
+        @Override
+        public String columnType(int sqlType, int precision, int scale) {
+            switch (sqlType) {
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    return "TINYINT(1)";
+                case Types.TINYINT:
+                    return "TINYINT";
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return "DOUBLE";
+                case Types.VARCHAR:
+                case Types.NVARCHAR:
+                    // Rows are limited to 65535 bytes, so long strings go out of row
+                    return precision > 0 && precision <= 4000 ? "VARCHAR(" + precision + ")" : "LONGTEXT";
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.OTHER:
+                    return "LONGTEXT";
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    return "LONGBLOB";
+                case Types.TIMESTAMP:
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    // TIMESTAMP stops at 2038 and is shifted to the session time zone
+                    return "DATETIME(6)";
+                default:
+                    return Dialect.super.columnType(sqlType, precision, scale);
+            }
+        }
+
+        private boolean usesCursorFetch(Connection connection) {
+            try {
+                if (connection.isWrapperFor(com.mysql.cj.jdbc.JdbcConnection.class)) {
+                    com.mysql.cj.jdbc.JdbcConnection mysqlConnection = connection.unwrap(com.mysql.cj.jdbc.JdbcConnection.class);
+                    return mysqlConnection.getPropertySet()
+                        .getBooleanProperty(com.mysql.cj.conf.PropertyKey.useCursorFetch).getValue();
+                }
+            } catch (SQLException e) {
+                // Not Connector/J; fall back to streaming
+            }
+            return false;
+        }
+
+        @Override
+        public String rowHashSum(List<String> quotedColumns, List<Integer> sqlTypes) {
+            String text = hashInputs(quotedColumns, sqlTypes, MySqlDialect::hashText, "COALESCE(%s, '<NULL>')", ", ");
+            return "SUM(CAST(CONV(SUBSTRING(MD5(CONCAT_WS('|', " + text + ")), 1, 14), 16, 10) AS UNSIGNED))";
+        }
+
+        private static String hashText(String column, HashForm form) {
+            switch (form) {
+                case BOOLEAN:
+                    // BIT(1) casts to a raw byte, so compare instead
+                    return "CAST((" + column + " <> 0) AS CHAR)";
+                case DECIMAL:
+                    String text = "CAST(" + column + " AS CHAR)";
+                    return "CASE WHEN " + text + " LIKE '%.%' THEN TRIM(TRAILING '.' FROM TRIM(TRAILING '0' FROM " + text +
+                        ")) ELSE " + text + " END";
+                case TIMESTAMP:
+                case TIMESTAMP_UTC:
+                    // MySQL has no zoned type
+                    return "DATE_FORMAT(" + column + ", '%Y-%m-%dT%H:%i:%s.%f')";
+                default:
+                    return "CAST(" + column + " AS CHAR)";
+            }
+        }
+
+        @Override
+        public String binarySortKey(String quotedColumn) {
+            return "CAST(" + quotedColumn + " AS BINARY)";
+        }
+
+        @Override
+        public String rollup(List<String> quotedColumns) {
+            // GROUPING() arrived in 8.0
+            return String.join(", ", quotedColumns) + " WITH ROLLUP";
+        }
+    }
+
+    /**
+     * MariaDB: as MySQL, but its driver honours fetch size directly
+     */
+    private static class MariaDbDialect extends MySqlDialect {
+        @Override
+        public String getName() { return "mariadb"; }
+
+        @Override
+        public boolean supports(String key) { return key.contains("mariadb"); }
+
+        @Override
+        public String applyFetchMode(Connection connection, Statement statement, int fetchSize) throws SQLException {
+            statement.setFetchSize(fetchSize);
+            return FETCH_CURSOR;
+        }
+
+        @Override
+        public String rollup(List<String> quotedColumns) {
+            // WITH ROLLUP works, but there is no GROUPING() to tell subtotals from NULL groups
+            return null;
+        }
+    }
+
+    /**
+     * SQL Server 2012+: OFFSET/FETCH, sys.partitions row counts, bracket quoting
+     */
+    private static class SqlServerDialect implements Dialect {
+        @Override
+        public String getName() { return "sqlserver"; }
+
+        @Override
+        public boolean supports(String key) {
+            return key.contains("microsoft") || key.contains("sql server") || key.equals("sqlserver");
+        }
+
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            // OFFSET/FETCH is only valid after an ORDER BY
+            String ordered = hasOrderBy(sql) ? sql : sql + " ORDER BY (SELECT NULL)";
+            return ordered + " OFFSET " + offset + " ROWS FETCH NEXT " + limit + " ROWS ONLY";
+        }
+
+        @Override
+        public String quoteIdentifier(String identifier) {
+            return "[" + identifier.replace("]", "]]") + "]";
+        }
+
+        @Override
+        public Long estimateRowCount(Connection connection, String schema, String table) throws SQLException {
+            String name = schema != null ? schema + "." + table : table;
+            return queryLong(connection,
+                "SELECT SUM(p.rows) FROM sys.partitions p WHERE p.object_id = OBJECT_ID(?) AND p.index_id IN (0, 1)",
+                name);
+        }
+
+        @Override
+        public String applyFetchMode(Connection connection, Statement statement, int fetchSize) throws SQLException {
+            statement.setFetchSize(fetchSize);
+            return FETCH_CURSOR;
+        }
+
+        @Override
+        public long bulkInsert(Connection connection, String table, List<String> columns, List<Object[]> rows)
+                throws SQLException {
+            // 2100 parameters and 1000 row constructors per statement
+            return multiRowInsert(this, connection, table, columns, rows, 2099, 1000);
+        }
+
+        @Override
+        public String columnType(int sqlType, int precision, int scale) {
+            switch (sqlType) {
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    return "BIT";
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return "FLOAT(53)";
+                case Types.CHAR:
+                case Types.NCHAR:
+                    return precision > 0 && precision <= 4000 ? "NCHAR(" + precision + ")" : "NVARCHAR(MAX)";
+                case Types.VARCHAR:
+                case Types.NVARCHAR:
+                    return precision > 0 && precision <= 4000 ? "NVARCHAR(" + precision + ")" : "NVARCHAR(MAX)";
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.OTHER:
+                    return "NVARCHAR(MAX)";
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    return "VARBINARY(MAX)";
+                case Types.TIMESTAMP:
+                    return "DATETIME2";
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    return "DATETIMEOFFSET";
+                default:
+                    return Dialect.super.columnType(sqlType, precision, scale);
+            }
+        }
+
+        @Override
+        public String rowHashSum(List<String> quotedColumns, List<Integer> sqlTypes) {
+            // + rather than CONCAT_WS, which needs SQL Server 2017
+            String text = hashInputs(quotedColumns, sqlTypes, SqlServerDialect::hashText, "COALESCE(%s, '<NULL>')", " + '|' + ");
+            return "SUM(CAST(CONVERT(BIGINT, SUBSTRING(HASHBYTES('MD5', " + hashBytes(text) + "), 1, 7)) " +
+                "AS DECIMAL(38, 0)))";
+        }
+
+        /**
+         * Text as UTF-8 bytes, so MD5 sees the same input as on the other dialects
+         */
+        protected String hashBytes(String text) {
+            return "CAST(CAST(" + text + " AS NVARCHAR(MAX)) COLLATE Latin1_General_100_BIN2_UTF8 AS VARCHAR(MAX))";
+        }
+
+        private static String hashText(String column, HashForm form) {
+            switch (form) {
+                case BOOLEAN:
+                    return "CAST(CAST(" + column + " AS INT) AS VARCHAR(1))";
+                case DECIMAL:
+                    // No RTRIM(string, characters) before 2022: cut after the last non-zero digit, then a bare point
+                    String text = "CAST(" + column + " AS VARCHAR(50))";
+                    String trimmed = "LEFT(" + text + ", LEN(" + text + ") - PATINDEX('%[^0]%', REVERSE(" + text + ")) + 1)";
+                    return "CASE WHEN " + text + " NOT LIKE '%.%' THEN " + text + " WHEN RIGHT(" + trimmed + ", 1) = '.' " +
+                        "THEN LEFT(" + trimmed + ", LEN(" + trimmed + ") - 1) ELSE " + trimmed + " END";
+                case TIMESTAMP:
+                    return isoTimestamp("CAST(" + column + " AS DATETIME2(6))");
+                case TIMESTAMP_UTC:
+                    return isoTimestamp("CAST(SWITCHOFFSET(" + column + ", '+00:00') AS DATETIME2(6))");
+                default:
+                    return "CAST(" + column + " AS NVARCHAR(MAX))";
+            }
+        }
+
+        private static String isoTimestamp(String datetime2) {
+            // Style 126 drops a zero fraction, so the microseconds are appended separately
+            return "CONVERT(VARCHAR(19), " + datetime2 + ", 126) + '.' + RIGHT('00000' + CAST(DATEPART(MICROSECOND, " +
+                datetime2 + ") AS VARCHAR(6)), 6)";
+        }
+
+        @Override
+        public String binarySortKey(String quotedColumn) {
+            return quotedColumn + " COLLATE Latin1_General_BIN2";
+        }
+
+        @Override
+        public String rollup(List<String> quotedColumns) {
+            return "ROLLUP (" + String.join(", ", quotedColumns) + ")";
+        }
+    }
+
+    /**
+     * Oracle 12c+: OFFSET/FETCH, optimizer statistics, array fetch
+     */
+    private static class OracleDialect implements Dialect {
+        @Override
+        public String getName() { return "oracle"; }
+
+        @Override
+        public boolean supports(String key) { return key.contains("oracle"); }
+
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            return sql + " OFFSET " + offset + " ROWS FETCH NEXT " + limit + " ROWS ONLY";
+        }
+
+        @Override
+        public Long estimateRowCount(Connection connection, String schema, String table) throws SQLException {
+            // Unquoted Oracle identifiers are stored upper-case
+            return queryLong(connection,
+                "SELECT NUM_ROWS FROM ALL_TABLES WHERE OWNER = NVL(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA')) " +
+                "AND TABLE_NAME = ?",
+                schema != null ? schema.toUpperCase(Locale.ROOT) : null, table.toUpperCase(Locale.ROOT));
+        }
+
+        @Override
+        public String applyFetchMode(Connection connection, Statement statement, int fetchSize) throws SQLException {
+            statement.setFetchSize(fetchSize);
+            return FETCH_CURSOR;
+        }
+
+        @Override
+        public String columnType(int sqlType, int precision, int scale) {
+            switch (sqlType) {
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    return "NUMBER(1)";
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                    return "NUMBER(5)";
+                case Types.INTEGER:
+                    return "NUMBER(10)";
+                case Types.BIGINT:
+                    return "NUMBER(19)";
+                case Types.REAL:
+                    return "BINARY_FLOAT";
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return "BINARY_DOUBLE";
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    return precision > 0 && precision <= 38 ? "NUMBER(" + precision + ", " + Math.max(0, scale) + ")" : "NUMBER";
+                case Types.VARCHAR:
+                case Types.NVARCHAR:
+                    return precision > 0 && precision <= 4000 ? "VARCHAR2(" + precision + ")" : "CLOB";
+                case Types.TIME:
+                case Types.TIME_WITH_TIMEZONE:
+                    // Oracle has no time-only type
+                    return "TIMESTAMP";
+                default:
+                    return Dialect.super.columnType(sqlType, precision, scale);
+            }
+        }
+
+        @Override
+        public String rowHashSum(List<String> quotedColumns, List<Integer> sqlTypes) {
+            String text = hashInputs(quotedColumns, sqlTypes, OracleDialect::hashText, "NVL(%s, '<NULL>')", " || '|' || ");
+            return "SUM(TO_NUMBER(SUBSTR(RAWTOHEX(STANDARD_HASH(" + text + ", 'MD5')), 1, 14), 'XXXXXXXXXXXXXX'))";
+        }
+
+        private static String hashText(String column, HashForm form) {
+            switch (form) {
+                case DECIMAL:
+                    // TM drops trailing zeros but also the leading zero of fractions (.5), which is put back
+                    return "REGEXP_REPLACE(TO_CHAR(" + column + ", 'TM', 'NLS_NUMERIC_CHARACTERS=''.,'''), " +
+                        "'^(-?)\\.', '\\10.')";
+                case TIMESTAMP:
+                    // DATE columns carry no fraction, so they are widened first
+                    return "TO_CHAR(CAST(" + column + " AS TIMESTAMP), 'YYYY-MM-DD\"T\"HH24:MI:SS.FF6')";
+                case TIMESTAMP_UTC:
+                    return "TO_CHAR(SYS_EXTRACT_UTC(" + column + "), 'YYYY-MM-DD\"T\"HH24:MI:SS.FF6')";
+                default:
+                    // No boolean columns before 23ai; NUMBER(1) flags hash as decimals
+                    return "TO_CHAR(" + column + ")";
+            }
+        }
+
+        @Override
+        public String binarySortKey(String quotedColumn) {
+            return "NLSSORT(" + quotedColumn + ", 'NLS_SORT=BINARY')";
+        }
+
+        @Override
+        public String rollup(List<String> quotedColumns) {
+            return "ROLLUP (" + String.join(", ", quotedColumns) + ")";
+        }
+    }
+
+    /**
+     * Oracle before 12c: ROWNUM pagination with a stop key
+     */
+    private static class LegacyOracleDialect extends OracleDialect {
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            return "SELECT * FROM (SELECT q__.*, ROWNUM rn__ FROM (" + sql + ") q__ WHERE ROWNUM <= " +
+                (offset + limit) + ") WHERE rn__ > " + offset;
+        }
+
+        @Override
+        public String rowHashSum(List<String> quotedColumns, List<Integer> sqlTypes) {
+            // STANDARD_HASH arrived in 12c
+            return null;
+        }
+    }
+
+    /**
+     * SQL Server before 2019 (and Azure SQL, which reports 12): no UTF-8 collations, so text is hashed in the
+     * database code page; segments holding non-ASCII text never match another dialect and fall back to row fetches
+     */
+    private static class LegacySqlServerDialect extends SqlServerDialect {
+        @Override
+        protected String hashBytes(String text) {
+            return "CAST(" + text + " AS VARCHAR(MAX))";
+        }
+    }
+
+    /**
+     * SQLite: LIMIT/OFFSET, multi-row VALUES within the default 999 parameter limit
+     */
+    private static class SqliteDialect implements Dialect {
+        @Override
+        public String getName() { return "sqlite"; }
+
+        @Override
+        public boolean supports(String key) { return key.contains("sqlite"); }
+
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            return sql + " LIMIT " + limit + " OFFSET " + offset;
+        }
+
+        @Override
+        public long bulkInsert(Connection connection, String table, List<String> columns, List<Object[]> rows)
+                throws SQLException {
+            return multiRowInsert(this, connection, table, columns, rows, 999, 500);
+        }
+    }
+
+    /**
+     * H2: LIMIT/OFFSET and multi-row VALUES
+     */
+    private static class H2Dialect implements Dialect {
+        @Override
+        public String getName() { return "h2"; }
+
+        @Override
+        public boolean supports(String key) { return key.equals("h2"); }
+
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            return sql + " LIMIT " + limit + " OFFSET " + offset;
+        }
+
+        @Override
+        public long bulkInsert(Connection connection, String table, List<String> columns, List<Object[]> rows)
+                throws SQLException {
+            return multiRowInsert(this, connection, table, columns, rows, 32767, 1000);
+        }
+    }
+
+    /**
+     * Databases that implement SQL:2008 OFFSET/FETCH
+     */
+    private static class AnsiDialect implements Dialect {
+        private final String name;
+        private final String match;
+
+        AnsiDialect(String name, String match) {
+            this.name = name;
+            this.match = match;
+        }
+
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        public boolean supports(String key) { return key.contains(match); }
+
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            return sql + " OFFSET " + offset + " ROWS FETCH NEXT " + limit + " ROWS ONLY";
+        }
+    }
+
+    /**
+     * Anything else: LIMIT/OFFSET, the syntax most embedded and open-source databases accept
+     */
+    private static class GenericDialect implements Dialect {
+        private final String name;
+
+        GenericDialect(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        public boolean supports(String key) { return key.equals(name); }
+
+        @Override
+        public String paginate(String sql, long offset, int limit) {
+            return sql + " LIMIT " + limit + " OFFSET " + offset;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.dbconnector.service;
+
+import com.dbconnector.model.DriverInfo;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+@Service
+public class DriverRegistryService implements DisposableBean {
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Autowired
+    private CustomDriverService customDriverService;
+
+    @Autowired
+    private DriverService driverService;
+
+    @Autowired
+    private WorkloadExecutorService executorService;
+
+    // driver id -> loaded driver; each JAR gets one class loader for as long as it stays registered
+    private final Map<String, RegisteredDriver> drivers = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexDriversOnStartup() {
+        indexDrivers();
+    }
+
+    /**
+     * Load every known driver JAR in parallel so the first connect does not pay for class loading
+     */
+    public CompletableFuture<Void> indexDrivers() {
+        List<String> ids = new ArrayList<>(customDriverService.getAllCustomDrivers().keySet());
+        for (DriverInfo driverInfo : driverService.getAllDrivers()) {
+            ids.add(driverInfo.getId());
+        }
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
+        for (String id : ids) {
+            loads.add(preload(id));
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).whenComplete((v, error) ->
+            loggingService.logInfo("Indexed " + drivers.size() + " of " + ids.size() + " driver JARs in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms"));
+    }
+
+    /**
+     * Load a driver in the background; failures are logged and retried on first use
+     */
+    public CompletableFuture<Void> preload(String driverId) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                getDriver(driverId);
+            } catch (SQLException e) {
+                loggingService.logError("Failed to index driver " + driverId, e);
+            }
+        }, executorService.executor(WorkloadExecutorService.WORKLOAD_DRIVERS));
+    }
+
+    /**
+     * Get the driver for a registered custom or uploaded driver id, loading its JAR on first use
+     */
+    public Driver getDriver(String driverId) throws SQLException {
+        RegisteredDriver driver = drivers.get(driverId);
+        if (driver != null) {
+            return driver;
+        }
+        try {
+            return drivers.computeIfAbsent(driverId, this::load);
+        } catch (IllegalStateException e) {
+            throw new SQLException(e.getMessage(), "08001", e.getCause());
+        }
+    }
+
+    /**
+     * Get the driver whose JAR file name ends with the given name
+     */
+    public Driver getDriverForJar(String jarFileName) throws SQLException {
+        for (CustomDriverService.CustomDriverInfo info : customDriverService.getAllCustomDrivers().values()) {
+            if (info.getJarFilePath().endsWith(jarFileName)) {
+                return getDriver(info.getId());
+            }
+        }
+        for (DriverInfo info : driverService.getAllDrivers()) {
+            if (info.getFileName() != null && info.getFileName().endsWith(jarFileName)) {
+                return getDriver(info.getId());
+            }
+        }
+        throw new SQLException("No driver registered for JAR: " + jarFileName, "08001");
+    }
+
+    /**
+     * Connect straight through a cached driver, bypassing the DriverManager scan
+     */
+    public Connection connect(Driver driver, String url, Properties properties) throws SQLException {
+        Connection connection = driver.connect(url, properties);
+        if (connection == null) {
+            throw new SQLException("Driver does not accept URL: " + url, "08001");
+        }
+        return connection;
+    }
+
+    /**
+     * Deregister a driver and close its class loader so the JAR can be deleted or replaced
+     */
+    public void release(String driverId) {
+        RegisteredDriver driver = drivers.remove(driverId);
+        if (driver != null) {
+            driver.close();
+            loggingService.logInfo("Released driver " + driver.name);
+        }
+    }
+
+    /**
+     * Loaded drivers with their load time and cached URL prefix decisions
+     */
+    public Map<String, Object> getRegistryStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        for (RegisteredDriver driver : drivers.values()) {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("name", driver.name);
+            stats.put("className", driver.driver.getClass().getName());
+            stats.put("jar", driver.jarPath);
+            stats.put("loadMs", driver.loadMillis);
+            stats.put("acceptedPrefixes", new HashMap<>(driver.acceptsByPrefix));
+            statistics.put(driver.id, stats);
+        }
+        return statistics;
+    }
+
+    @Override
+    public void destroy() {
+        for (String driverId : new ArrayList<>(drivers.keySet())) {
+            release(driverId);
+        }
+    }
+
+    private RegisteredDriver load(String driverId) {
+        String name;
+        String jarPath;
+        String className;
+
+        CustomDriverService.CustomDriverInfo customDriver = customDriverService.getCustomDriver(driverId);
+        DriverInfo uploadedDriver = customDriver == null ? driverService.getDriver(driverId) : null;
+        if (customDriver != null) {
+            name = customDriver.getName();
+            jarPath = customDriver.getJarFilePath();
+            className = customDriver.getDriverClassName();
+        } else if (uploadedDriver != null) {
+            name = uploadedDriver.getName();
+            jarPath = driverService.getDriverFile(uploadedDriver).toString();
+            className = uploadedDriver.getClassName();
+        } else {
+            throw new IllegalStateException("Custom driver not found: " + driverId);
+        }
+
+        File jarFile = new File(jarPath);
+        if (!jarFile.exists()) {
+            throw new IllegalStateException("Driver JAR file not found: " + jarPath);
+        }
+
+        long start = System.nanoTime();
+        URLClassLoader classLoader = null;
+        try {
+            classLoader = new URLClassLoader(new URL[] { jarFile.toURI().toURL() }, getClass().getClassLoader());
+            Driver driver = (Driver) classLoader.loadClass(className).getDeclaredConstructor().newInstance();
+            RegisteredDriver registered = new RegisteredDriver(driverId, name, jarPath, classLoader, driver,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            // Registered so pools and DriverManager URLs resolve to it as well
+            DriverManager.registerDriver(registered);
+            loggingService.logInfo("Loaded driver " + name + " (" + className + ") in " + registered.loadMillis + "ms");
+            return registered;
+        } catch (Exception e) {
+            if (classLoader != null) {
+                try {
+                    classLoader.close();
+                } catch (IOException ignored) {
+                    // Nothing more to release
+                }
+            }
+            throw new IllegalStateException("Failed to load driver " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A driver loaded from its own JAR. Remembers which URL prefixes it accepts so DriverManager's
+     * connect-every-driver scan short-circuits for URLs it has already declined.
+     */
+    private static class RegisteredDriver implements Driver {
+        private final String id;
+        private final String name;
+        private final String jarPath;
+        private final URLClassLoader classLoader;
+        private final Driver driver;
+        private final long loadMillis;
+        private final Map<String, Boolean> acceptsByPrefix = new ConcurrentHashMap<>();
+
+        RegisteredDriver(String id, String name, String jarPath, URLClassLoader classLoader, Driver driver, long loadMillis) {
+            this.id = id;
+            this.name = name;
+            this.jarPath = jarPath;
+            this.classLoader = classLoader;
+            this.driver = driver;
+            this.loadMillis = loadMillis;
+        }
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            // Some drivers resolve resources through the context class loader while connecting
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            try {
+                return driver.connect(url, info);
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        }
+
+        @Override
+        public boolean acceptsURL(String url) throws SQLException {
+            if (url == null) {
+                return false;
+            }
+            String prefix = urlPrefix(url);
+            Boolean accepted = acceptsByPrefix.get(prefix);
+            if (accepted == null) {
+                accepted = driver.acceptsURL(url);
+                acceptsByPrefix.put(prefix, accepted);
+            }
+            return accepted;
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+            return driver.getPropertyInfo(url, info);
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return driver.getMajorVersion();
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return driver.getMinorVersion();
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return driver.jdbcCompliant();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return driver.getParentLogger();
+        }
+
+        void close() {
+            try {
+                DriverManager.deregisterDriver(this);
+            } catch (SQLException ignored) {
+                // Not registered
+            }
+            try {
+                classLoader.close();
+            } catch (IOException ignored) {
+                // The loader is unreachable once deregistered either way
+            }
+        }
+
+        /**
+         * The scheme and subprotocol, e.g. "jdbc:firebirdsql:" for "jdbc:firebirdsql://host/db"
+         */
+        private static String urlPrefix(String url) {
+            int first = url.indexOf(':');
+            int second = first < 0 ? -1 : url.indexOf(':', first + 1);
+            return second < 0 ? url : url.substring(0, second + 1);
+        }
+    }
+}
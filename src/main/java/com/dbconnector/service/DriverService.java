@@ -20,10 +20,12 @@ public class DriverService {
     private final String driversStoragePath;
     private final String driversDirectory;
     
-    @Autowired
-    private LoggingService loggingService;
+    private final LoggingService loggingService;
     
-    public DriverService(@Value("${app.drivers.storage-path}") String driversDirectory) {
+    @Autowired
+    public DriverService(@Value("${app.drivers.storage-path}") String driversDirectory, LoggingService loggingService) {
+        // Injected through the constructor because loadDrivers() below logs
+        this.loggingService = loggingService;
         this.driversDirectory = driversDirectory;
         this.driversStoragePath = driversDirectory + "/drivers.dat";
         
@@ -44,6 +46,13 @@ public class DriverService {
         return drivers.get(id);
     }
     
+    /**
+     * Location of a driver's JAR on disk
+     */
+    public Path getDriverFile(DriverInfo driverInfo) {
+        return Paths.get(driversDirectory, driverInfo.getFileName());
+    }
+    
     public DriverInfo saveDriver(DriverInfo driverInfo, MultipartFile driverFile) throws IOException {
         // Generate a unique filename
         String originalFilename = driverFile.getOriginalFilename();
@@ -3,14 +3,24 @@ package com.dbconnector.service;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class EnhancedConnectionPoolService {
@@ -21,6 +31,15 @@ public class EnhancedConnectionPoolService {
     @Autowired
     private CloudMonitoringService monitoringService;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private DialectService dialectService;
+    
+    @Value("${app.pool.saturation.max-events:50}")
+    private int maxSaturationEvents;
+    
     private final Map<String, HikariDataSource> connectionPools = new ConcurrentHashMap<>();
     private final Map<String, ConnectionPoolConfig> poolConfigs = new ConcurrentHashMap<>();
     
@@ -47,6 +66,12 @@ public class EnhancedConnectionPoolService {
         // Cloud-optimized settings
         applyCloudOptimizations(config, cloudProvider, options);
         
+        // JDBC4 isValid unless the dialect needs a test query
+        String validationQuery = dialectService.forJdbcUrl(jdbcUrl).getValidationQuery();
+        if (validationQuery != null) {
+            config.setConnectionTestQuery(validationQuery);
+        }
+        
         // Performance optimizations
         applyPerformanceOptimizations(config, options);
         
@@ -58,7 +83,9 @@ public class EnhancedConnectionPoolService {
             connectionPools.put(connectionId, dataSource);
             
             // Store configuration for monitoring
-            ConnectionPoolConfig poolConfig = new ConnectionPoolConfig(connectionId, cloudProvider, config);
+            boolean autoscale = !Boolean.FALSE.equals(options.get("autoscale"));
+            ConnectionPoolConfig poolConfig = new ConnectionPoolConfig(connectionId, cloudProvider, config, autoscale);
+            registerPoolMeters(poolConfig);
             poolConfigs.put(connectionId, poolConfig);
             
             loggingService.logInfo("Connection pool created successfully for " + connectionId);
@@ -109,7 +136,6 @@ public class EnhancedConnectionPoolService {
         config.addDataSourceProperty("useAWSIAM", options.getOrDefault("useIAM", false));
         
         // Connection validation
-        config.setConnectionTestQuery("SELECT 1");
         config.setValidationTimeout(5000);
         
         loggingService.logInfo("Applied AWS-specific connection pool optimizations");
@@ -138,7 +164,6 @@ public class EnhancedConnectionPoolService {
         }
         
         // Connection validation
-        config.setConnectionTestQuery("SELECT 1");
         config.setValidationTimeout(5000);
         
         loggingService.logInfo("Applied Azure-specific connection pool optimizations");
@@ -165,7 +190,6 @@ public class EnhancedConnectionPoolService {
         config.addDataSourceProperty("sslmode", "require");
         
         // Connection validation
-        config.setConnectionTestQuery("SELECT 1");
         config.setValidationTimeout(5000);
         
         loggingService.logInfo("Applied GCP-specific connection pool optimizations");
@@ -182,7 +206,6 @@ public class EnhancedConnectionPoolService {
         config.setMaxLifetime(1800000);
         config.setLeakDetectionThreshold(60000);
         
-        config.setConnectionTestQuery("SELECT 1");
         config.setValidationTimeout(5000);
         
         loggingService.logInfo("Applied default connection pool optimizations");
@@ -219,7 +242,8 @@ public class EnhancedConnectionPoolService {
      * Apply monitoring configuration
      */
     private void applyMonitoringConfiguration(HikariConfig config, String connectionId) {
-        config.setMetricRegistry(null); // We'll use our custom monitoring
+        // hikaricp.connections.* (acquire, usage, creation, timeout, pending) tagged with the pool name
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
         config.setHealthCheckRegistry(null);
         
         // Enable JMX for monitoring
@@ -237,31 +261,105 @@ public class EnhancedConnectionPoolService {
             throw new SQLException("Connection pool not found for: " + connectionId);
         }
         
-        long startTime = System.currentTimeMillis();
+        // Hot path: meters are resolved at pool creation and nothing here logs
+        ConnectionPoolConfig config = poolConfigs.get(connectionId);
+        long startTime = System.nanoTime();
         try {
             Connection connection = dataSource.getConnection();
-            long duration = System.currentTimeMillis() - startTime;
+            long durationNanos = System.nanoTime() - startTime;
             
-            // Record metrics
-            ConnectionPoolConfig config = poolConfigs.get(connectionId);
             if (config != null) {
-                monitoringService.recordConnectionAttempt(config.getCloudProvider(), true, duration);
+                config.recordAcquire(durationNanos);
+                config.acquireTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+                config.connectionMetrics.recordConnectionAttempt(true, durationNanos);
             }
             
             return connection;
         } catch (SQLException e) {
-            long duration = System.currentTimeMillis() - startTime;
+            long durationNanos = System.nanoTime() - startTime;
             
-            // Record failed attempt
-            ConnectionPoolConfig config = poolConfigs.get(connectionId);
             if (config != null) {
-                monitoringService.recordConnectionAttempt(config.getCloudProvider(), false, duration);
+                config.recordAcquire(durationNanos);
+                config.acquireFailureTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+                if (e instanceof SQLTransientConnectionException) {
+                    // Hikari's connectionTimeout elapsed with no connection available
+                    config.pendingTimeouts.increment();
+                }
+                config.connectionMetrics.recordConnectionAttempt(false, durationNanos);
             }
             
             throw e;
         }
     }
     
+    /**
+     * Detect pools that have run out of connections; events are counted and logged here, off the acquire path
+     */
+    @Scheduled(fixedDelayString = "${app.pool.saturation.check-interval-ms:1000}")
+    public void checkSaturation() {
+        for (Map.Entry<String, HikariDataSource> entry : connectionPools.entrySet()) {
+            ConnectionPoolConfig config = poolConfigs.get(entry.getKey());
+            HikariDataSource dataSource = entry.getValue();
+            if (config == null || dataSource.isClosed() || dataSource.getHikariPoolMXBean() == null) {
+                continue;
+            }
+            
+            HikariPoolMXBean poolBean = dataSource.getHikariPoolMXBean();
+            int active = poolBean.getActiveConnections();
+            int waiting = poolBean.getThreadsAwaitingConnection();
+            int maxSize = dataSource.getHikariConfigMXBean().getMaximumPoolSize();
+            long timeouts = config.pendingTimeouts.sumThenReset();
+            boolean saturated = timeouts > 0 || (waiting > 0 && active >= maxSize);
+            
+            if (saturated && config.saturatedSince == 0) {
+                config.saturatedSince = System.currentTimeMillis();
+                config.saturationCounter.increment();
+                config.addSaturationEvent(new SaturationEvent(config.saturatedSince, active, waiting, maxSize, timeouts),
+                    maxSaturationEvents);
+                loggingService.logInfo("Connection pool saturated: " + entry.getKey() + " (active " + active + "/" +
+                    maxSize + ", waiting " + waiting + ", timeouts " + timeouts + ")");
+            } else if (!saturated && config.saturatedSince != 0) {
+                long duration = System.currentTimeMillis() - config.saturatedSince;
+                config.saturatedSince = 0;
+                loggingService.logInfo("Connection pool recovered from saturation: " + entry.getKey() +
+                    " after " + duration + "ms");
+            }
+        }
+    }
+    
+    /**
+     * Get the data source backing a pool
+     */
+    public HikariDataSource getDataSource(String connectionId) {
+        return connectionPools.get(connectionId);
+    }
+    
+    /**
+     * Get ids of all open pools
+     */
+    public Set<String> getPoolIds() {
+        return new HashSet<>(connectionPools.keySet());
+    }
+    
+    /**
+     * Whether the pool may be resized at runtime
+     */
+    public boolean isAutoscaleEnabled(String connectionId) {
+        ConnectionPoolConfig config = poolConfigs.get(connectionId);
+        return config != null && config.isAutoscale();
+    }
+    
+    /**
+     * Drain acquisition count and total acquisition time recorded since the previous call
+     */
+    public AcquireSample drainAcquireSample(String connectionId) {
+        ConnectionPoolConfig config = poolConfigs.get(connectionId);
+        if (config == null) {
+            return new AcquireSample(0, 0);
+        }
+        return new AcquireSample(config.acquireCount.sumThenReset(), config.acquireNanos.sumThenReset());
+    }
+    
     /**
      * Get connection pool statistics
      */
@@ -279,6 +377,16 @@ public class EnhancedConnectionPoolService {
         stats.put("totalConnections", poolBean.getTotalConnections());
         stats.put("threadsAwaitingConnection", poolBean.getThreadsAwaitingConnection());
         
+        ConnectionPoolConfig config = poolConfigs.get(connectionId);
+        if (config != null) {
+            stats.put("acquireCount", config.acquireTimer.count());
+            stats.put("acquireMeanMs", config.acquireTimer.mean(TimeUnit.MILLISECONDS));
+            stats.put("acquireMaxMs", config.acquireTimer.max(TimeUnit.MILLISECONDS));
+            stats.put("acquireFailures", config.acquireFailureTimer.count());
+            stats.put("saturated", config.saturatedSince != 0);
+            stats.put("saturationEvents", config.getSaturationEvents());
+        }
+        
         return stats;
     }
     
@@ -302,7 +410,13 @@ public class EnhancedConnectionPoolService {
         HikariDataSource dataSource = connectionPools.remove(connectionId);
         if (dataSource != null) {
             dataSource.close();
-            poolConfigs.remove(connectionId);
+            ConnectionPoolConfig config = poolConfigs.remove(connectionId);
+            if (config != null) {
+                for (Meter meter : config.meters) {
+                    meterRegistry.remove(meter);
+                }
+            }
+            monitoringService.removeConnectionMetrics(connectionId);
             loggingService.logInfo("Connection pool closed for: " + connectionId);
         }
     }
@@ -317,6 +431,77 @@ public class EnhancedConnectionPoolService {
         loggingService.logInfo("All connection pools closed");
     }
     
+    /**
+     * Pre-resolve the per-pool meters used on the acquire path
+     */
+    private void registerPoolMeters(ConnectionPoolConfig config) {
+        config.connectionMetrics = monitoringService.connectionMetrics(config.getConnectionId(), config.getCloudProvider());
+        config.acquireTimer = Timer.builder("pool.connection.acquire")
+            .tag("pool", config.getConnectionId())
+            .tag("provider", config.getCloudProvider())
+            .tag("outcome", "success")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        config.acquireFailureTimer = Timer.builder("pool.connection.acquire")
+            .tag("pool", config.getConnectionId())
+            .tag("provider", config.getCloudProvider())
+            .tag("outcome", "failure")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        config.saturationCounter = Counter.builder("pool.saturation.events")
+            .tag("pool", config.getConnectionId())
+            .tag("provider", config.getCloudProvider())
+            .register(meterRegistry);
+        config.meters.add(config.acquireTimer);
+        config.meters.add(config.acquireFailureTimer);
+        config.meters.add(config.saturationCounter);
+    }
+    
+    /**
+     * Snapshot of a pool at the moment it became saturated
+     */
+    public static class SaturationEvent {
+        private final long timestamp;
+        private final int activeConnections;
+        private final int threadsAwaiting;
+        private final int maximumPoolSize;
+        private final long timeouts;
+        
+        public SaturationEvent(long timestamp, int activeConnections, int threadsAwaiting, int maximumPoolSize, long timeouts) {
+            this.timestamp = timestamp;
+            this.activeConnections = activeConnections;
+            this.threadsAwaiting = threadsAwaiting;
+            this.maximumPoolSize = maximumPoolSize;
+            this.timeouts = timeouts;
+        }
+        
+        public long getTimestamp() { return timestamp; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getThreadsAwaiting() { return threadsAwaiting; }
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public long getTimeouts() { return timeouts; }
+    }
+    
+    /**
+     * Acquisition measurements for one autoscaler sampling interval
+     */
+    public static class AcquireSample {
+        private final long count;
+        private final long totalNanos;
+        
+        public AcquireSample(long count, long totalNanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+        }
+        
+        public long getCount() { return count; }
+        public long getTotalNanos() { return totalNanos; }
+        
+        public double getAverageMillis() {
+            return count > 0 ? totalNanos / 1_000_000.0 / count : 0;
+        }
+    }
+    
     /**
      * Connection pool configuration
      */
@@ -324,15 +509,45 @@ public class EnhancedConnectionPoolService {
         private final String connectionId;
         private final String cloudProvider;
         private final HikariConfig hikariConfig;
-        
-        public ConnectionPoolConfig(String connectionId, String cloudProvider, HikariConfig hikariConfig) {
+        private final boolean autoscale;
+        private final LongAdder acquireCount = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAdder pendingTimeouts = new LongAdder();
+        private final List<Meter> meters = new ArrayList<>();
+        private final Deque<SaturationEvent> saturationEvents = new ArrayDeque<>();
+        private Timer acquireTimer;
+        private Timer acquireFailureTimer;
+        private Counter saturationCounter;
+        private CloudMonitoringService.ConnectionMetrics connectionMetrics;
+        // Only written by the saturation check
+        private volatile long saturatedSince;
+        
+        public ConnectionPoolConfig(String connectionId, String cloudProvider, HikariConfig hikariConfig, boolean autoscale) {
             this.connectionId = connectionId;
             this.cloudProvider = cloudProvider;
             this.hikariConfig = hikariConfig;
+            this.autoscale = autoscale;
+        }
+        
+        void recordAcquire(long durationNanos) {
+            acquireCount.increment();
+            acquireNanos.add(durationNanos);
+        }
+        
+        synchronized void addSaturationEvent(SaturationEvent event, int maxEvents) {
+            saturationEvents.addLast(event);
+            while (saturationEvents.size() > maxEvents) {
+                saturationEvents.removeFirst();
+            }
+        }
+        
+        synchronized List<SaturationEvent> getSaturationEvents() {
+            return new ArrayList<>(saturationEvents);
         }
         
         public String getConnectionId() { return connectionId; }
         public String getCloudProvider() { return cloudProvider; }
         public HikariConfig getHikariConfig() { return hikariConfig; }
+        public boolean isAutoscale() { return autoscale; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,729 @@
+package com.dbconnector.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.Date;
+import java.util.*;
+import java.util.regex.Pattern;
+
+@Service
+public class ExplainPlanService {
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Autowired
+    private DialectService dialectService;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final int MAX_FINGERPRINTS = 500;
+    private static final int MAX_VERSIONS_PER_FINGERPRINT = 10;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern READ_STATEMENT = Pattern.compile("^\\s*\\(*\\s*(SELECT|WITH|VALUES|TABLE)\\b");
+    private static final Pattern WRITE_KEYWORD = Pattern.compile(
+        "\\b(INSERT|UPDATE|DELETE|MERGE|UPSERT|TRUNCATE|DROP|ALTER|CREATE|GRANT|REVOKE|CALL|EXEC|EXECUTE|INTO|LOCK)\\b");
+
+    // Plan history keyed by connectionId + query fingerprint, oldest entries evicted first
+    private final Map<String, List<PlanVersion>> planHistory = Collections.synchronizedMap(
+        new LinkedHashMap<String, List<PlanVersion>>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<PlanVersion>> eldest) {
+                return size() > MAX_FINGERPRINTS;
+            }
+        });
+
+    /**
+     * Explain a query using the dialect of the given connection. Analyze runs the statement, so it is
+     * limited to read-only queries and, on a connection the caller has to itself, rolled back afterwards.
+     * SQL Server switches the session into plan mode, so it needs such an exclusive connection.
+     */
+    public Map<String, Object> explain(String connectionId, Connection connection, String query, boolean analyze,
+                                       boolean exclusive) throws SQLException {
+        String dialect = dialectService.forConnection(connection).getName();
+        String fingerprint = fingerprint(query);
+
+        boolean executes = analyze && supportsAnalyze(dialect);
+        if (executes && !isReadOnly(query)) {
+            throw new IllegalArgumentException("Analyze executes the statement; only read-only queries can be analyzed");
+        }
+        if ("sqlserver".equals(dialect) && !exclusive) {
+            throw new IllegalArgumentException("SQL Server plans need an exclusive connection; " +
+                "SET SHOWPLAN_XML would apply to every request sharing this connection");
+        }
+        
+        boolean rollback = executes && exclusive && connection.getAutoCommit();
+        if (rollback) {
+            connection.setAutoCommit(false);
+        }
+        PlanNode root;
+        try {
+            switch (dialect) {
+                case "postgresql":
+                    root = explainPostgres(connection, query, analyze);
+                    break;
+                case "mysql":
+                case "mariadb":
+                    root = explainMySQL(connection, query, analyze);
+                    break;
+                case "oracle":
+                    root = explainOracle(connection, query);
+                    break;
+                case "sqlserver":
+                    root = explainSqlServer(connection, query, analyze);
+                    break;
+                case "sqlite":
+                    root = explainTabular(connection, "EXPLAIN QUERY PLAN " + query, "SQLite plan");
+                    break;
+                default:
+                    root = explainTabular(connection, "EXPLAIN " + query, "Plan");
+            }
+        } finally {
+            if (rollback) {
+                try {
+                    connection.rollback();
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+
+        PlanVersion version = recordPlan(connectionId, fingerprint, root);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("dialect", dialect);
+        result.put("analyze", executes);
+        result.put("fingerprint", fingerprint);
+        result.put("planHash", version.getPlanHash());
+        result.put("planVersion", version.getVersion());
+        result.put("totalCost", root.getTotalCost());
+        result.put("estimatedRows", root.getEstimatedRows());
+        result.put("plan", root.toMap());
+        if (version.getDiff() != null) {
+            result.put("planChanged", true);
+            result.put("diff", version.getDiff());
+        } else {
+            result.put("planChanged", false);
+        }
+        return result;
+    }
+
+    /**
+     * Get the recorded plan versions for a query on a connection
+     */
+    public Map<String, Object> getPlanHistory(String connectionId, String query) {
+        String fingerprint = fingerprint(query);
+        List<PlanVersion> versions = planHistory.get(historyKey(connectionId, fingerprint));
+
+        List<Map<String, Object>> entries = new ArrayList<>();
+        if (versions != null) {
+            synchronized (versions) {
+                for (PlanVersion version : versions) {
+                    entries.add(version.toMap());
+                }
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("fingerprint", fingerprint);
+        result.put("versions", entries);
+        return result;
+    }
+
+    /**
+     * Normalize a query so that executions differing only in literals share a fingerprint
+     */
+    public String fingerprint(String query) {
+        String normalized = STRING_LITERAL.matcher(query).replaceAll("?");
+        normalized = NUMERIC_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?)");
+        normalized = WHITESPACE.matcher(normalized.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        if (normalized.endsWith(";")) {
+            normalized = normalized.substring(0, normalized.length() - 1).trim();
+        }
+        return sha256(normalized).substring(0, 16);
+    }
+
+    /**
+     * A plain read: starts like a query and, outside string literals, names no statement that writes
+     */
+    private boolean isReadOnly(String query) {
+        String text = STRING_LITERAL.matcher(query).replaceAll("''").toUpperCase(Locale.ROOT);
+        return READ_STATEMENT.matcher(text).find() && !WRITE_KEYWORD.matcher(text).find();
+    }
+
+    private boolean supportsAnalyze(String dialect) {
+        return "postgresql".equals(dialect) || "mysql".equals(dialect) || "mariadb".equals(dialect)
+            || "sqlserver".equals(dialect);
+    }
+
+    // --- PostgreSQL: EXPLAIN (FORMAT JSON) ---
+
+    private PlanNode explainPostgres(Connection connection, String query, boolean analyze) throws SQLException {
+        String options = analyze ? "(ANALYZE, BUFFERS, FORMAT JSON)" : "(FORMAT JSON)";
+        String json;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN " + options + " " + query)) {
+            StringBuilder sb = new StringBuilder();
+            while (rs.next()) {
+                sb.append(rs.getString(1));
+            }
+            json = sb.toString();
+        }
+
+        try {
+            JsonNode plan = objectMapper.readTree(json).get(0).get("Plan");
+            return parsePostgresNode(plan);
+        } catch (Exception e) {
+            throw new SQLException("Unable to parse PostgreSQL plan: " + e.getMessage(), e);
+        }
+    }
+
+    private PlanNode parsePostgresNode(JsonNode node) {
+        PlanNode planNode = new PlanNode(node.path("Node Type").asText());
+        planNode.setObject(node.path("Relation Name").asText(node.path("Index Name").asText(null)));
+        planNode.setStartupCost(doubleOrNull(node, "Startup Cost"));
+        planNode.setTotalCost(doubleOrNull(node, "Total Cost"));
+        planNode.setEstimatedRows(doubleOrNull(node, "Plan Rows"));
+        planNode.setActualRows(doubleOrNull(node, "Actual Rows"));
+        planNode.setActualTimeMs(doubleOrNull(node, "Actual Total Time"));
+        if (node.has("Filter")) {
+            planNode.getDetails().put("filter", node.get("Filter").asText());
+        }
+        if (node.has("Index Cond")) {
+            planNode.getDetails().put("indexCondition", node.get("Index Cond").asText());
+        }
+        if (node.has("Join Type")) {
+            planNode.getDetails().put("joinType", node.get("Join Type").asText());
+        }
+
+        for (JsonNode child : node.path("Plans")) {
+            planNode.getChildren().add(parsePostgresNode(child));
+        }
+        return planNode;
+    }
+
+    // --- MySQL / MariaDB: tabular EXPLAIN, EXPLAIN ANALYZE for actuals ---
+
+    private PlanNode explainMySQL(Connection connection, String query, boolean analyze) throws SQLException {
+        PlanNode root = new PlanNode("Query");
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN " + query)) {
+            double totalRows = 0;
+            while (rs.next()) {
+                PlanNode step = new PlanNode(stringColumn(rs, "select_type") + " " + stringColumn(rs, "type"));
+                step.setObject(stringColumn(rs, "table"));
+                Double rows = doubleColumn(rs, "rows");
+                step.setEstimatedRows(rows);
+                Double filtered = doubleColumn(rs, "filtered");
+                if (filtered != null) {
+                    step.getDetails().put("filtered", filtered);
+                }
+                step.getDetails().put("key", stringColumn(rs, "key"));
+                step.getDetails().put("extra", stringColumn(rs, "Extra"));
+                if (rows != null) {
+                    totalRows = totalRows == 0 ? rows : totalRows * rows;
+                }
+                root.getChildren().add(step);
+            }
+            root.setEstimatedRows(totalRows);
+        }
+
+        if (analyze) {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("EXPLAIN ANALYZE " + query)) {
+                StringBuilder tree = new StringBuilder();
+                while (rs.next()) {
+                    tree.append(rs.getString(1));
+                }
+                root.getDetails().put("analyzeTree", tree.toString());
+            } catch (SQLException e) {
+                // EXPLAIN ANALYZE requires MySQL 8.0.18+
+                root.getDetails().put("analyzeError", e.getMessage());
+            }
+        }
+        return root;
+    }
+
+    // --- Oracle: EXPLAIN PLAN FOR + PLAN_TABLE / DBMS_XPLAN ---
+
+    private PlanNode explainOracle(Connection connection, String query) throws SQLException {
+        String statementId = "DBC" + Long.toHexString(System.nanoTime());
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + query);
+        }
+
+        Map<Integer, PlanNode> nodesById = new LinkedHashMap<>();
+        Map<Integer, Integer> parentIds = new HashMap<>();
+        String planSql = "SELECT id, parent_id, operation, options, object_name, cost, cardinality " +
+                         "FROM plan_table WHERE statement_id = ? ORDER BY id";
+        try (PreparedStatement stmt = connection.prepareStatement(planSql)) {
+            stmt.setString(1, statementId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String operation = rs.getString("operation");
+                    String options = rs.getString("options");
+                    PlanNode node = new PlanNode(options != null ? operation + " " + options : operation);
+                    node.setObject(rs.getString("object_name"));
+                    node.setTotalCost(doubleColumn(rs, "cost"));
+                    node.setEstimatedRows(doubleColumn(rs, "cardinality"));
+                    int id = rs.getInt("id");
+                    nodesById.put(id, node);
+                    int parentId = rs.getInt("parent_id");
+                    if (!rs.wasNull()) {
+                        parentIds.put(id, parentId);
+                    }
+                }
+            }
+        }
+
+        PlanNode root = null;
+        for (Map.Entry<Integer, PlanNode> entry : nodesById.entrySet()) {
+            Integer parentId = parentIds.get(entry.getKey());
+            PlanNode parent = parentId != null ? nodesById.get(parentId) : null;
+            if (parent != null) {
+                parent.getChildren().add(entry.getValue());
+            } else if (root == null) {
+                root = entry.getValue();
+            }
+        }
+        if (root == null) {
+            root = new PlanNode("Plan");
+        }
+
+        String xplanSql = "SELECT plan_table_output FROM TABLE(DBMS_XPLAN.DISPLAY('PLAN_TABLE', ?, 'TYPICAL'))";
+        try (PreparedStatement stmt = connection.prepareStatement(xplanSql)) {
+            stmt.setString(1, statementId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                StringBuilder text = new StringBuilder();
+                while (rs.next()) {
+                    text.append(rs.getString(1)).append('\n');
+                }
+                root.getDetails().put("xplan", text.toString());
+            }
+        } catch (SQLException e) {
+            loggingService.logDebug("DBMS_XPLAN output unavailable: " + e.getMessage());
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM plan_table WHERE statement_id = ?")) {
+            stmt.setString(1, statementId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            loggingService.logDebug("Unable to clean up plan_table: " + e.getMessage());
+        }
+
+        return root;
+    }
+
+    // --- SQL Server: SET SHOWPLAN_XML / SET STATISTICS XML ---
+
+    private PlanNode explainSqlServer(Connection connection, String query, boolean analyze) throws SQLException {
+        String option = analyze ? "STATISTICS XML" : "SHOWPLAN_XML";
+        String planXml = null;
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SET " + option + " ON");
+            try {
+                boolean hasResults = stmt.execute(query);
+                while (true) {
+                    if (hasResults) {
+                        try (ResultSet rs = stmt.getResultSet()) {
+                            ResultSetMetaData metaData = rs.getMetaData();
+                            boolean isPlan = metaData.getColumnCount() == 1 &&
+                                metaData.getColumnName(1).toLowerCase(Locale.ROOT).contains("showplan");
+                            while (rs.next()) {
+                                if (isPlan) {
+                                    planXml = rs.getString(1);
+                                }
+                            }
+                        }
+                    } else if (stmt.getUpdateCount() == -1) {
+                        break;
+                    }
+                    hasResults = stmt.getMoreResults();
+                }
+            } finally {
+                stmt.execute("SET " + option + " OFF");
+            }
+        }
+
+        if (planXml == null) {
+            throw new SQLException("SQL Server did not return an XML plan");
+        }
+        return parseShowPlanXml(planXml);
+    }
+
+    private PlanNode parseShowPlanXml(String planXml) throws SQLException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Document document = builder.parse(new InputSource(new StringReader(planXml)));
+
+            NodeList statements = document.getElementsByTagNameNS("*", "StmtSimple");
+            PlanNode root = new PlanNode("Query");
+            for (int i = 0; i < statements.getLength(); i++) {
+                Element statement = (Element) statements.item(i);
+                root.setTotalCost(attributeDouble(statement, "StatementSubTreeCost"));
+                root.setEstimatedRows(attributeDouble(statement, "StatementEstRows"));
+                Element relOp = firstDescendant(statement, "RelOp");
+                if (relOp != null) {
+                    root.getChildren().add(parseRelOp(relOp));
+                }
+            }
+            return root;
+        } catch (Exception e) {
+            throw new SQLException("Unable to parse SQL Server plan: " + e.getMessage(), e);
+        }
+    }
+
+    private PlanNode parseRelOp(Element relOp) {
+        PlanNode node = new PlanNode(relOp.getAttribute("PhysicalOp"));
+        node.getDetails().put("logicalOp", relOp.getAttribute("LogicalOp"));
+        node.setTotalCost(attributeDouble(relOp, "EstimatedTotalSubtreeCost"));
+        node.setEstimatedRows(attributeDouble(relOp, "EstimateRows"));
+
+        Element object = firstDescendant(relOp, "Object");
+        if (object != null && object.hasAttribute("Table")) {
+            node.setObject(object.getAttribute("Table").replace("[", "").replace("]", ""));
+        }
+
+        NodeList counters = relOp.getElementsByTagNameNS("*", "RunTimeCountersPerThread");
+        if (counters.getLength() > 0) {
+            double actualRows = 0;
+            for (int i = 0; i < counters.getLength(); i++) {
+                Element counter = (Element) counters.item(i);
+                if (counter.getParentNode().getParentNode() == relOp) {
+                    Double rows = attributeDouble(counter, "ActualRows");
+                    actualRows += rows != null ? rows : 0;
+                }
+            }
+            node.setActualRows(actualRows);
+        }
+
+        // Child operators are RelOp elements nested directly under this operator's body
+        for (Element child : childRelOps(relOp)) {
+            node.getChildren().add(parseRelOp(child));
+        }
+        return node;
+    }
+
+    private List<Element> childRelOps(Element relOp) {
+        List<Element> result = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        for (Node child = relOp.getFirstChild(); child != null; child = child.getNextSibling()) {
+            pending.add(child);
+        }
+        while (!pending.isEmpty()) {
+            Node current = pending.poll();
+            if (current.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            if ("RelOp".equals(current.getLocalName())) {
+                result.add((Element) current);
+            } else {
+                for (Node child = current.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    pending.add(child);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Element firstDescendant(Element element, String localName) {
+        NodeList nodes = element.getElementsByTagNameNS("*", localName);
+        return nodes.getLength() > 0 ? (Element) nodes.item(0) : null;
+    }
+
+    private Double attributeDouble(Element element, String name) {
+        String value = element.getAttribute(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // --- Generic fallback: one plan step per row ---
+
+    private PlanNode explainTabular(Connection connection, String explainQuery, String rootName) throws SQLException {
+        PlanNode root = new PlanNode(rootName);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(explainQuery)) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            while (rs.next()) {
+                PlanNode step = new PlanNode(String.valueOf(rs.getObject(columnCount)));
+                for (int i = 1; i < columnCount; i++) {
+                    step.getDetails().put(metaData.getColumnLabel(i), rs.getObject(i));
+                }
+                root.getChildren().add(step);
+            }
+        }
+        return root;
+    }
+
+    // --- Plan history and diffing ---
+
+    private PlanVersion recordPlan(String connectionId, String fingerprint, PlanNode root) {
+        String planHash = sha256(root.signature()).substring(0, 16);
+        List<PlanVersion> versions = planHistory.computeIfAbsent(historyKey(connectionId, fingerprint),
+            k -> new ArrayList<>());
+
+        synchronized (versions) {
+            PlanVersion latest = versions.isEmpty() ? null : versions.get(versions.size() - 1);
+            if (latest != null && latest.getPlanHash().equals(planHash)) {
+                latest.touch(root);
+                return latest;
+            }
+
+            Map<String, Object> diff = latest != null ? diffPlans(latest.getRoot(), root) : null;
+            PlanVersion version = new PlanVersion(latest != null ? latest.getVersion() + 1 : 1, planHash, root, diff);
+            versions.add(version);
+            if (versions.size() > MAX_VERSIONS_PER_FINGERPRINT) {
+                versions.remove(0);
+            }
+            if (diff != null) {
+                loggingService.logInfo("Plan change detected for query fingerprint " + fingerprint +
+                    " on connection " + connectionId + " (version " + version.getVersion() + ")");
+            }
+            return version;
+        }
+    }
+
+    private Map<String, Object> diffPlans(PlanNode previous, PlanNode current) {
+        Map<String, PlanNode> before = new LinkedHashMap<>();
+        Map<String, PlanNode> after = new LinkedHashMap<>();
+        previous.flatten("", before);
+        current.flatten("", after);
+
+        List<String> removed = new ArrayList<>();
+        List<String> added = new ArrayList<>();
+        for (String path : before.keySet()) {
+            if (!after.containsKey(path)) {
+                removed.add(path);
+            }
+        }
+        for (String path : after.keySet()) {
+            if (!before.containsKey(path)) {
+                added.add(path);
+            }
+        }
+
+        Map<String, Object> diff = new HashMap<>();
+        diff.put("removedOperators", removed);
+        diff.put("addedOperators", added);
+        diff.put("previousCost", previous.getTotalCost());
+        diff.put("currentCost", current.getTotalCost());
+        if (previous.getTotalCost() != null && current.getTotalCost() != null && previous.getTotalCost() > 0) {
+            diff.put("costChangePercent", (current.getTotalCost() - previous.getTotalCost()) / previous.getTotalCost() * 100);
+        }
+        diff.put("previousRows", previous.getEstimatedRows());
+        diff.put("currentRows", current.getEstimatedRows());
+        return diff;
+    }
+
+    private String historyKey(String connectionId, String fingerprint) {
+        return connectionId + ":" + fingerprint;
+    }
+
+    // --- Helpers ---
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Double doubleOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isNumber() ? value.asDouble() : null;
+    }
+
+    private static String stringColumn(ResultSet rs, String column) {
+        try {
+            return rs.getString(column);
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static Double doubleColumn(ResultSet rs, String column) {
+        try {
+            double value = rs.getDouble(column);
+            return rs.wasNull() ? null : value;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Normalized plan operator
+     */
+    public static class PlanNode {
+        private final String operation;
+        private String object;
+        private Double startupCost;
+        private Double totalCost;
+        private Double estimatedRows;
+        private Double actualRows;
+        private Double actualTimeMs;
+        private final Map<String, Object> details = new LinkedHashMap<>();
+        private final List<PlanNode> children = new ArrayList<>();
+
+        public PlanNode(String operation) {
+            this.operation = operation != null ? operation.trim() : "";
+        }
+
+        public String getOperation() { return operation; }
+
+        public String getObject() { return object; }
+        public void setObject(String object) { this.object = object; }
+
+        public Double getStartupCost() { return startupCost; }
+        public void setStartupCost(Double startupCost) { this.startupCost = startupCost; }
+
+        public Double getTotalCost() { return totalCost; }
+        public void setTotalCost(Double totalCost) { this.totalCost = totalCost; }
+
+        public Double getEstimatedRows() { return estimatedRows; }
+        public void setEstimatedRows(Double estimatedRows) { this.estimatedRows = estimatedRows; }
+
+        public Double getActualRows() { return actualRows; }
+        public void setActualRows(Double actualRows) { this.actualRows = actualRows; }
+
+        public Double getActualTimeMs() { return actualTimeMs; }
+        public void setActualTimeMs(Double actualTimeMs) { this.actualTimeMs = actualTimeMs; }
+
+        public Map<String, Object> getDetails() { return details; }
+        public List<PlanNode> getChildren() { return children; }
+
+        /**
+         * Structural signature: operators and objects only, so cost drift alone is not a new plan
+         */
+        String signature() {
+            StringBuilder sb = new StringBuilder();
+            sb.append('(').append(operation).append('|').append(object != null ? object : "");
+            for (PlanNode child : children) {
+                sb.append(child.signature());
+            }
+            return sb.append(')').toString();
+        }
+
+        void flatten(String parentPath, Map<String, PlanNode> target) {
+            String path = parentPath + "/" + operation + (object != null ? "[" + object + "]" : "");
+            String uniquePath = path;
+            int suffix = 2;
+            while (target.containsKey(uniquePath)) {
+                uniquePath = path + "#" + suffix++;
+            }
+            target.put(uniquePath, this);
+            for (PlanNode child : children) {
+                child.flatten(uniquePath, target);
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("operation", operation);
+            if (object != null) map.put("object", object);
+            if (startupCost != null) map.put("startupCost", startupCost);
+            if (totalCost != null) map.put("totalCost", totalCost);
+            if (estimatedRows != null) map.put("estimatedRows", estimatedRows);
+            if (actualRows != null) map.put("actualRows", actualRows);
+            if (actualTimeMs != null) map.put("actualTimeMs", actualTimeMs);
+            if (!details.isEmpty()) map.put("details", details);
+
+            List<Map<String, Object>> childMaps = new ArrayList<>();
+            for (PlanNode child : children) {
+                childMaps.add(child.toMap());
+            }
+            map.put("children", childMaps);
+            return map;
+        }
+    }
+
+    /**
+     * A distinct plan observed for a query fingerprint
+     */
+    private static class PlanVersion {
+        private final int version;
+        private final String planHash;
+        private final Map<String, Object> diff;
+        private final long firstSeen;
+        private volatile long lastSeen;
+        private volatile PlanNode root;
+        private volatile int timesSeen = 1;
+
+        PlanVersion(int version, String planHash, PlanNode root, Map<String, Object> diff) {
+            this.version = version;
+            this.planHash = planHash;
+            this.root = root;
+            this.diff = diff;
+            this.firstSeen = System.currentTimeMillis();
+            this.lastSeen = firstSeen;
+        }
+
+        void touch(PlanNode latestRoot) {
+            this.root = latestRoot;
+            this.lastSeen = System.currentTimeMillis();
+            this.timesSeen++;
+        }
+
+        int getVersion() { return version; }
+        String getPlanHash() { return planHash; }
+        PlanNode getRoot() { return root; }
+        Map<String, Object> getDiff() { return diff; }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("version", version);
+            map.put("planHash", planHash);
+            map.put("firstSeen", new Date(firstSeen));
+            map.put("lastSeen", new Date(lastSeen));
+            map.put("timesSeen", timesSeen);
+            map.put("totalCost", root.getTotalCost());
+            map.put("plan", root.toMap());
+            if (diff != null) {
+                map.put("diff", diff);
+            }
+            return map;
+        }
+    }
+}
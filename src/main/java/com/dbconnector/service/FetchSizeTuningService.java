@@ -0,0 +1,199 @@
+package com.dbconnector.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class FetchSizeTuningService {
+
+    public static final String MODE_CURSOR = Dialect.FETCH_CURSOR;
+    public static final String MODE_STREAMING = Dialect.FETCH_STREAMING;
+    public static final String MODE_BUFFERED = Dialect.FETCH_BUFFERED;
+
+    private static final int MIN_FETCH_SIZE = 50;
+    private static final int MAX_FETCH_SIZE = 10000;
+    private static final double SMOOTHING = 0.3;
+
+    @Autowired
+    private DialectService dialectService;
+
+    private final long fetchBufferBytes;
+    private final double targetRoundTripMs;
+
+    // Observed row width and per-batch latency, keyed by connectionId + query fingerprint
+    private final Map<String, FetchStats> statistics = new ConcurrentHashMap<>();
+
+    public FetchSizeTuningService(@Value("${app.query.fetch-buffer-bytes:2097152}") long fetchBufferBytes,
+                                  @Value("${app.query.fetch-target-roundtrip-ms:5}") double targetRoundTripMs) {
+        this.fetchBufferBytes = fetchBufferBytes;
+        this.targetRoundTripMs = targetRoundTripMs;
+    }
+
+    /**
+     * Put the statement in the dialect's streaming mode and apply the tuned fetch size.
+     * Streaming holds the connection (and may open a transaction on it) until the read finishes,
+     * so it is only used when the caller has the connection to itself; otherwise the read fetches buffered.
+     */
+    public FetchSession prepare(Connection connection, Statement stmt, String key, String query,
+                                Integer defaultFetchSize, Integer maxRows, boolean exclusive) throws SQLException {
+        Dialect dialect = dialectService.forConnection(connection);
+        boolean readQuery = isReadQuery(query);
+        int fetchSize = recommendFetchSize(key, defaultFetchSize);
+        if (maxRows != null && maxRows > 0) {
+            fetchSize = Math.min(fetchSize, maxRows + 1);
+        }
+
+        FetchSession session = new FetchSession(key, dialect.getName(), fetchSize);
+        if (!readQuery) {
+            session.mode = MODE_BUFFERED;
+            return session;
+        }
+        if (!exclusive) {
+            stmt.setFetchSize(fetchSize);
+            session.mode = MODE_BUFFERED;
+            return session;
+        }
+
+        // Some dialects only stream inside a transaction; remember to end it when the read finishes
+        boolean autoCommit = connection.getAutoCommit();
+        session.mode = dialect.applyFetchMode(connection, stmt, fetchSize);
+        if (autoCommit && !connection.getAutoCommit()) {
+            session.restoreAutoCommit = connection;
+        }
+        return session;
+    }
+
+    /**
+     * Fold the measurements of a finished read into the per-query statistics
+     */
+    public void complete(FetchSession session, long rowsRead, long sampledRows, long sampledBytes, long readNanos) {
+        if (rowsRead == 0 || sampledRows == 0) {
+            return;
+        }
+
+        double rowWidth = (double) sampledBytes / sampledRows;
+        int effectiveFetch = MODE_STREAMING.equals(session.mode) ? 1 : session.fetchSize;
+        long batches = Math.max(1, (rowsRead + effectiveFetch - 1) / effectiveFetch);
+        double batchMs = readNanos / 1_000_000.0 / batches;
+
+        statistics.computeIfAbsent(session.key, k -> new FetchStats()).update(rowWidth, batchMs);
+    }
+
+    /**
+     * Recommended rows-per-fetch: fill the buffer budget for the observed row width,
+     * scaled down when round trips are cheap enough that smaller batches cost nothing
+     */
+    public int recommendFetchSize(String key, Integer defaultFetchSize) {
+        FetchStats stats = statistics.get(key);
+        int fallback = defaultFetchSize != null && defaultFetchSize > 0 ? defaultFetchSize : MIN_FETCH_SIZE;
+        if (stats == null) {
+            return fallback;
+        }
+
+        double rowWidth = Math.max(1.0, stats.rowWidth);
+        double rowsForBudget = fetchBufferBytes / rowWidth;
+        double latencyFactor = Math.max(0.25, Math.min(1.0, stats.batchMs / targetRoundTripMs));
+        long recommended = Math.round(rowsForBudget * latencyFactor);
+
+        return (int) Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, recommended));
+    }
+
+    /**
+     * Get tuning statistics for all observed queries
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<String, FetchStats> entry : statistics.entrySet()) {
+            FetchStats stats = entry.getValue();
+            Map<String, Object> values = new HashMap<>();
+            values.put("avgRowWidthBytes", stats.rowWidth);
+            values.put("avgBatchMs", stats.batchMs);
+            values.put("samples", stats.samples);
+            values.put("recommendedFetchSize", recommendFetchSize(entry.getKey(), null));
+            result.put(entry.getKey(), values);
+        }
+        return result;
+    }
+
+    private boolean isReadQuery(String query) {
+        String trimmed = query.trim().toUpperCase(Locale.ROOT);
+        return trimmed.startsWith("SELECT") || trimmed.startsWith("WITH") || trimmed.startsWith("VALUES")
+            || trimmed.startsWith("TABLE");
+    }
+
+    /**
+     * Smoothed per-query fetch measurements
+     */
+    private static class FetchStats {
+        private double rowWidth;
+        private double batchMs;
+        private long samples;
+
+        synchronized void update(double observedRowWidth, double observedBatchMs) {
+            if (samples == 0) {
+                rowWidth = observedRowWidth;
+                batchMs = observedBatchMs;
+            } else {
+                rowWidth += SMOOTHING * (observedRowWidth - rowWidth);
+                batchMs += SMOOTHING * (observedBatchMs - batchMs);
+            }
+            samples++;
+        }
+    }
+
+    /**
+     * Fetch settings applied to one statement execution
+     */
+    public static class FetchSession {
+        private final String key;
+        private final String dialect;
+        private final int fetchSize;
+        private String mode;
+        private Connection restoreAutoCommit;
+
+        FetchSession(String key, String dialect, int fetchSize) {
+            this.key = key;
+            this.dialect = dialect;
+            this.fetchSize = fetchSize;
+        }
+
+        public String getDialect() { return dialect; }
+        public int getFetchSize() { return fetchSize; }
+        public String getMode() { return mode; }
+
+        /**
+         * End the implicit read transaction opened for cursor mode, if any
+         */
+        void finish() {
+            if (restoreAutoCommit == null) {
+                return;
+            }
+            Connection connection = restoreAutoCommit;
+            restoreAutoCommit = null;
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException ignored) {
+                    // Connection is unusable; setAutoCommit below will surface it
+                }
+            } finally {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                    // Reported on next use of the connection
+                }
+            }
+        }
+    }
+}
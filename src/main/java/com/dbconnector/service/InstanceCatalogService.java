@@ -0,0 +1,325 @@
+package com.dbconnector.service;
+
+import com.dbconnector.service.CloudServiceDiscoveryService.CloudDatabaseInstance;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+public class InstanceCatalogService {
+
+    public static final String ATTR_PROVIDER = "provider";
+    public static final String ATTR_ENGINE = "engine";
+    public static final String ATTR_REGION = "region";
+    public static final String ATTR_STATUS = "status";
+    public static final String ATTR_SERVICE_TYPE = "serviceType";
+
+    private static final List<String> ATTRIBUTES = Arrays.asList(
+        ATTR_PROVIDER, ATTR_ENGINE, ATTR_REGION, ATTR_STATUS, ATTR_SERVICE_TYPE);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Instances are interned to dense slot numbers so every index is a BitSet over slots
+    private final Map<String, Integer> slotsByKey = new HashMap<>();
+    private final List<CloudDatabaseInstance> slots = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+
+    // attribute -> normalized value -> slots holding it
+    private final Map<String, Map<String, BitSet>> indexes = new HashMap<>();
+    private long version;
+
+    // Groupings are rebuilt at most once per catalog version
+    private final Map<String, Map<String, List<CloudDatabaseInstance>>> groupCache = new HashMap<>();
+    private long groupCacheVersion = -1;
+
+    public InstanceCatalogService() {
+        for (String attribute : ATTRIBUTES) {
+            indexes.put(attribute, new HashMap<>());
+        }
+    }
+
+    /**
+     * Add or replace instances, updating only the index entries whose values changed
+     */
+    public void upsert(Collection<CloudDatabaseInstance> instances) {
+        lock.writeLock().lock();
+        try {
+            for (CloudDatabaseInstance instance : instances) {
+                String key = keyOf(instance.getCloudProvider(), instance.getInstanceId());
+                Integer slot = slotsByKey.get(key);
+                if (slot != null) {
+                    CloudDatabaseInstance previous = slots.get(slot);
+                    for (String attribute : ATTRIBUTES) {
+                        String before = normalize(valueOf(previous, attribute));
+                        String after = normalize(valueOf(instance, attribute));
+                        if (!before.equals(after)) {
+                            unindex(attribute, before, slot);
+                            index(attribute, after, slot);
+                        }
+                    }
+                    slots.set(slot, instance);
+                } else {
+                    slot = allocateSlot(instance);
+                    slotsByKey.put(key, slot);
+                    live.set(slot);
+                    for (String attribute : ATTRIBUTES) {
+                        index(attribute, normalize(valueOf(instance, attribute)), slot);
+                    }
+                }
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove instances of a provider by id
+     */
+    public void remove(String provider, Collection<String> instanceIds) {
+        lock.writeLock().lock();
+        try {
+            for (String instanceId : instanceIds) {
+                Integer slot = slotsByKey.remove(keyOf(provider, instanceId));
+                if (slot == null) {
+                    continue;
+                }
+                CloudDatabaseInstance instance = slots.get(slot);
+                for (String attribute : ATTRIBUTES) {
+                    unindex(attribute, normalize(valueOf(instance, attribute)), slot);
+                }
+                live.clear(slot);
+                slots.set(slot, null);
+                freeSlots.push(slot);
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Instances matching every filter (case-insensitive equality per attribute), computed as a bitmap intersection
+     */
+    public List<CloudDatabaseInstance> query(Map<String, Object> filters) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(filters);
+            List<CloudDatabaseInstance> result = new ArrayList<>(matches.cardinality());
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                result.add(slots.get(slot));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of instances matching every filter
+     */
+    public int count(Map<String, Object> filters) {
+        lock.readLock().lock();
+        try {
+            return match(filters).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Instances grouped by one attribute; the grouping is reused until the catalog changes
+     */
+    public Map<String, List<CloudDatabaseInstance>> groupBy(String attribute) {
+        lock.readLock().lock();
+        try {
+            // Concurrent readers may both rebuild; the result is identical
+            synchronized (groupCache) {
+                if (groupCacheVersion != version) {
+                    groupCache.clear();
+                    groupCacheVersion = version;
+                }
+                Map<String, List<CloudDatabaseInstance>> cached = groupCache.get(attribute);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            Map<String, BitSet> index = indexFor(attribute);
+            Map<String, List<CloudDatabaseInstance>> groups = new HashMap<>();
+            for (BitSet members : index.values()) {
+                List<CloudDatabaseInstance> group = new ArrayList<>(members.cardinality());
+                for (int slot = members.nextSetBit(0); slot >= 0; slot = members.nextSetBit(slot + 1)) {
+                    group.add(slots.get(slot));
+                }
+                if (!group.isEmpty()) {
+                    groups.put(valueOf(group.get(0), attribute), Collections.unmodifiableList(group));
+                }
+            }
+            Map<String, List<CloudDatabaseInstance>> result = Collections.unmodifiableMap(groups);
+
+            synchronized (groupCache) {
+                if (groupCacheVersion == version) {
+                    groupCache.put(attribute, result);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Instance counts per value of one attribute, read straight from the index cardinalities
+     */
+    public Map<String, Integer> counts(String attribute) {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Map.Entry<String, BitSet> entry : indexFor(attribute).entrySet()) {
+                int cardinality = entry.getValue().cardinality();
+                if (cardinality > 0) {
+                    counts.put(entry.getKey(), cardinality);
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Instances grouped by provider together with the catalog version they were read at
+     */
+    public Snapshot snapshot() {
+        lock.readLock().lock();
+        try {
+            // The read lock is reentrant, so the grouping and the version come from the same state
+            return new Snapshot(version, groupBy(ATTR_PROVIDER));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet match(Map<String, Object> filters) {
+        BitSet result = (BitSet) live.clone();
+        if (filters == null) {
+            return result;
+        }
+        for (String attribute : ATTRIBUTES) {
+            Object wanted = filters.get(attribute);
+            if (wanted == null) {
+                continue;
+            }
+            BitSet members = indexFor(attribute).get(normalize(wanted.toString()));
+            if (members == null) {
+                return new BitSet();
+            }
+            result.and(members);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private Map<String, BitSet> indexFor(String attribute) {
+        Map<String, BitSet> index = indexes.get(attribute);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown catalog attribute: " + attribute);
+        }
+        return index;
+    }
+
+    private void index(String attribute, String value, int slot) {
+        indexes.get(attribute).computeIfAbsent(value, v -> new BitSet()).set(slot);
+    }
+
+    private void unindex(String attribute, String value, int slot) {
+        Map<String, BitSet> index = indexes.get(attribute);
+        BitSet members = index.get(value);
+        if (members != null) {
+            members.clear(slot);
+            if (members.isEmpty()) {
+                index.remove(value);
+            }
+        }
+    }
+
+    private int allocateSlot(CloudDatabaseInstance instance) {
+        Integer free = freeSlots.poll();
+        if (free != null) {
+            slots.set(free, instance);
+            return free;
+        }
+        slots.add(instance);
+        return slots.size() - 1;
+    }
+
+    private static String keyOf(String provider, String instanceId) {
+        return provider + ":" + instanceId;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String valueOf(CloudDatabaseInstance instance, String attribute) {
+        switch (attribute) {
+            case ATTR_PROVIDER:
+                return instance.getCloudProvider();
+            case ATTR_ENGINE:
+                return instance.getEngine();
+            case ATTR_REGION:
+                return instance.getRegion();
+            case ATTR_STATUS:
+                return instance.getStatus();
+            case ATTR_SERVICE_TYPE:
+                return instance.getServiceType();
+            default:
+                throw new IllegalArgumentException("Unknown catalog attribute: " + attribute);
+        }
+    }
+
+    /**
+     * A consistent view of the catalog at one version
+     */
+    public static class Snapshot {
+        private final long version;
+        private final Map<String, List<CloudDatabaseInstance>> instancesByProvider;
+
+        Snapshot(long version, Map<String, List<CloudDatabaseInstance>> instancesByProvider) {
+            this.version = version;
+            this.instancesByProvider = instancesByProvider;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public Map<String, List<CloudDatabaseInstance>> getInstancesByProvider() {
+            return instancesByProvider;
+        }
+    }
+}
@@ -4,9 +4,6 @@ import com.dbconnector.model.LocalConnectionInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -23,8 +20,13 @@ public class LocalDatabaseService {
     @Autowired
     private EnhancedConnectionPoolService connectionPoolService;
     
+    @Autowired
+    private DriverRegistryService driverRegistryService;
+    
+    @Autowired
+    private DialectService dialectService;
+    
     private final Map<String, Connection> activeConnections = new ConcurrentHashMap<>();
-    private final Map<String, URLClassLoader> customClassLoaders = new ConcurrentHashMap<>();
     
     /**
      * Connect to local database with enhanced driver support
@@ -34,7 +36,7 @@ public class LocalDatabaseService {
         
         try {
             // Load appropriate driver
-            loadDatabaseDriver(connectionInfo);
+            Driver customDriver = loadDatabaseDriver(connectionInfo);
             
             // Build connection URL
             String connectionUrl = buildConnectionUrl(connectionInfo);
@@ -42,8 +44,10 @@ public class LocalDatabaseService {
             // Create connection properties
             Properties props = createConnectionProperties(connectionInfo);
             
-            // Establish connection
-            Connection connection = DriverManager.getConnection(connectionUrl, props);
+            // Establish connection; custom drivers are called directly instead of through the DriverManager scan
+            Connection connection = customDriver != null
+                ? driverRegistryService.connect(customDriver, connectionUrl, props)
+                : DriverManager.getConnection(connectionUrl, props);
             
             // Configure connection
             configureConnection(connection, connectionInfo);
@@ -101,17 +105,18 @@ public class LocalDatabaseService {
     }
     
     /**
-     * Load database driver (built-in or custom)
+     * Load database driver (built-in or custom); returns the custom driver, or null for built-in drivers
      */
-    private void loadDatabaseDriver(LocalConnectionInfo connectionInfo) throws Exception {
+    private Driver loadDatabaseDriver(LocalConnectionInfo connectionInfo) throws Exception {
         String dbType = connectionInfo.getDbType();
         
         if (connectionInfo.isUseCustomDriver() && connectionInfo.getCustomDriverId() != null) {
             // Load custom driver
-            loadCustomDriver(connectionInfo.getCustomDriverId());
+            return loadCustomDriver(connectionInfo.getCustomDriverId());
         } else {
             // Load built-in driver
             loadBuiltInDriver(dbType);
+            return null;
         }
     }
     
@@ -130,42 +135,10 @@ public class LocalDatabaseService {
     }
     
     /**
-     * Load custom JDBC driver
+     * Load custom JDBC driver through the registry, which keeps one class loader per JAR
      */
-    private void loadCustomDriver(String customDriverId) throws Exception {
-        CustomDriverService.CustomDriverInfo driverInfo = customDriverService.getCustomDriver(customDriverId);
-        
-        if (driverInfo == null) {
-            throw new Exception("Custom driver not found: " + customDriverId);
-        }
-        
-        // Check if already loaded
-        if (customClassLoaders.containsKey(customDriverId)) {
-            loggingService.logInfo("Custom driver already loaded: " + driverInfo.getName());
-            return;
-        }
-        
-        // Load JAR file
-        File jarFile = new File(driverInfo.getJarFilePath());
-        if (!jarFile.exists()) {
-            throw new Exception("Driver JAR file not found: " + driverInfo.getJarFilePath());
-        }
-        
-        // Create custom class loader
-        URL[] urls = { jarFile.toURI().toURL() };
-        URLClassLoader classLoader = new URLClassLoader(urls, this.getClass().getClassLoader());
-        
-        // Load driver class
-        Class<?> driverClass = classLoader.loadClass(driverInfo.getDriverClassName());
-        Driver driver = (Driver) driverClass.getDeclaredConstructor().newInstance();
-        
-        // Register driver
-        DriverManager.registerDriver(new DriverWrapper(driver));
-        
-        // Store class loader
-        customClassLoaders.put(customDriverId, classLoader);
-        
-        loggingService.logInfo("Loaded custom driver: " + driverInfo.getName());
+    private Driver loadCustomDriver(String customDriverId) throws SQLException {
+        return driverRegistryService.getDriver(customDriverId);
     }
     
     /**
@@ -404,11 +377,16 @@ public class LocalDatabaseService {
                 props.setProperty("cachePrepStmts", "true");
                 props.setProperty("prepStmtCacheSize", "250");
                 props.setProperty("prepStmtCacheSqlLimit", "2048");
+                if ("mysql".equals(dbType)) {
+                    // Server-side cursors so a positive fetch size streams instead of buffering the result
+                    props.setProperty("useCursorFetch", "true");
+                }
                 break;
                 
             case "sqlserver":
                 props.setProperty("applicationName", "DB Connector");
                 props.setProperty("selectMethod", "cursor");
+                props.setProperty("responseBuffering", "adaptive");
                 break;
                 
             case "oracle":
@@ -496,13 +474,11 @@ public class LocalDatabaseService {
         try {
             Connection connection = connectToLocalDatabase(connectionInfo);
             
-            // Test with a simple query
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute("SELECT 1");
-            }
+            // Validate through the dialect; SELECT 1 is not valid everywhere (Oracle, Derby)
+            boolean valid = dialectService.forConnection(connection).validate(connection, 5);
             
             connection.close();
-            return true;
+            return valid;
             
         } catch (Exception e) {
             loggingService.logError("Connection test failed", e);
@@ -566,50 +542,4 @@ public class LocalDatabaseService {
         
         return metadata;
     }
-    
-    /**
-     * Driver wrapper for custom drivers
-     */
-    private static class DriverWrapper implements Driver {
-        private final Driver driver;
-        
-        public DriverWrapper(Driver driver) {
-            this.driver = driver;
-        }
-        
-        @Override
-        public Connection connect(String url, Properties info) throws SQLException {
-            return driver.connect(url, info);
-        }
-        
-        @Override
-        public boolean acceptsURL(String url) throws SQLException {
-            return driver.acceptsURL(url);
-        }
-        
-        @Override
-        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
-            return driver.getPropertyInfo(url, info);
-        }
-        
-        @Override
-        public int getMajorVersion() {
-            return driver.getMajorVersion();
-        }
-        
-        @Override
-        public int getMinorVersion() {
-            return driver.getMinorVersion();
-        }
-        
-        @Override
-        public boolean jdbcCompliant() {
-            return driver.jdbcCompliant();
-        }
-        
-        @Override
-        public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
-            return driver.getParentLogger();
-        }
-    }
 }
\ No newline at end of file
@@ -2,12 +2,22 @@ package com.dbconnector.service;
 
 import com.dbconnector.model.CloudConnectionInfo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class MultiCloudManagementService {
@@ -24,32 +34,77 @@ public class MultiCloudManagementService {
     @Autowired
     private EnhancedConnectionPoolService connectionPoolService;
     
+    @Autowired
+    private WorkloadExecutorService executorService;
+    
+    @Autowired
+    private InstanceCatalogService catalogService;
+    
+    @Autowired
+    private CloudConnectionService cloudConnectionService;
+    
+    @Autowired
+    private Environment environment;
+    
+    @Value("${app.multicloud.connect.timeout-ms:15000}")
+    private long connectTimeoutMs;
+    
+    @Value("${app.multicloud.connect.max-attempts:3}")
+    private int connectMaxAttempts;
+    
+    @Value("${app.multicloud.connect.backoff-ms:500}")
+    private long connectBackoffMs;
+    
+    @Value("${app.multicloud.connect.max-backoff-ms:8000}")
+    private long connectMaxBackoffMs;
+    
+    private static final Set<String> SUPPORTED_PROVIDERS = new HashSet<>(Arrays.asList("aws", "azure", "gcp"));
+    private static final Object ABANDONED = new Object();
+    
     private final Map<String, CloudConnectionInfo> managedConnections = new ConcurrentHashMap<>();
+    
+    // Per-provider admission for connection establishment, shared by every batch in flight
+    private final Map<String, ConnectionLane> connectionLanes = new ConcurrentHashMap<>();
     private final Map<String, String> connectionToProvider = new ConcurrentHashMap<>();
     
+    // Running totals kept up to date as connections are managed, and a version bumped on every change
+    private final Map<String, AtomicLong> connectionsPerProvider = new ConcurrentHashMap<>();
+    private final AtomicLong managedVersion = new AtomicLong();
+    
+    // Materialized aggregates, each stamped with the source version it was computed from
+    private final AtomicReference<VersionedValue<Map<String, Object>>> crossCloudAnalyticsCache = new AtomicReference<>();
+    private final AtomicReference<VersionedValue<Map<String, Map<String, Object>>>> providerStatisticsCache = new AtomicReference<>();
+    private final AtomicReference<VersionedValue<Map<String, Object>>> costComparisonCache = new AtomicReference<>();
+    
     /**
      * Get unified view of all cloud database instances
      */
-    public CompletableFuture<Map<String, Object>> getUnifiedCloudView(Map<String, Object> credentials) {
+    public CompletableFuture<Map<String, Object>> getUnifiedCloudView() {
         loggingService.logInfo("Generating unified multi-cloud database view");
         
-        return discoveryService.discoverAllInstances(credentials)
-            .thenApply(discoveredInstances -> {
+        // Aggregation runs on its own pool rather than on the thread that completed discovery
+        return discoveryService.discoverAllInstances()
+            .thenApplyAsync(discoveredInstances -> {
                 Map<String, Object> unifiedView = new HashMap<>();
                 
                 // Aggregate instances by type
                 Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> byEngine = 
-                    aggregateInstancesByEngine(discoveredInstances);
+                    aggregateInstancesByEngine();
                 
                 // Aggregate instances by region
                 Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> byRegion = 
-                    aggregateInstancesByRegion(discoveredInstances);
+                    aggregateInstancesByRegion();
+                
+                // Cached aggregates are keyed by catalog version, so compute them from that same version
+                InstanceCatalogService.Snapshot catalog = catalogService.snapshot();
                 
                 // Calculate provider statistics
-                Map<String, Map<String, Object>> providerStats = calculateProviderStatistics(discoveredInstances);
+                Map<String, Map<String, Object>> providerStats = memoize(providerStatisticsCache, catalog.getVersion(),
+                    () -> calculateProviderStatistics(catalog.getInstancesByProvider()));
                 
                 // Get cost comparison (mock data)
-                Map<String, Object> costComparison = generateCostComparison(discoveredInstances);
+                Map<String, Object> costComparison = memoize(costComparisonCache,
+                    catalog.getVersion(), () -> generateCostComparison(catalog.getInstancesByProvider()), true);
                 
                 // Get performance comparison
                 Map<String, Object> performanceComparison = generatePerformanceComparison();
@@ -62,11 +117,12 @@ public class MultiCloudManagementService {
                 unifiedView.put("costComparison", costComparison);
                 unifiedView.put("performanceComparison", performanceComparison);
                 unifiedView.put("recommendations", generateRecommendations(discoveredInstances));
+                unifiedView.put("version", catalog.getVersion());
                 
                 loggingService.logInfo("Unified cloud view generated successfully");
                 
                 return unifiedView;
-            });
+            }, executorService.executor(WorkloadExecutorService.WORKLOAD_AGGREGATION));
     }
     
     /**
@@ -109,70 +165,286 @@ public class MultiCloudManagementService {
     }
     
     /**
-     * Manage multi-cloud connections
+     * Manage multiple cloud connections, establishing them concurrently
      */
     public Map<String, Object> manageMultiCloudConnections(List<CloudConnectionInfo> connections) {
-        loggingService.logInfo("Managing " + connections.size() + " multi-cloud connections");
+        return establishConnections(connections, result -> { }).join();
+    }
+    
+    /**
+     * Establish connections concurrently, at most app.multicloud.connect.parallelism.&lt;provider&gt; at a time
+     * per provider, retrying connection-level failures with exponential backoff. Each connection's result is
+     * handed to onResult as soon as it settles; the returned future completes with the summary.
+     */
+    public CompletableFuture<Map<String, Object>> establishConnections(List<CloudConnectionInfo> connections,
+            Consumer<Map<String, Object>> onResult) {
+        // One task per id, so two attempts never race to register the same connection
+        Set<String> ids = new HashSet<>();
+        List<CloudConnectionInfo> unique = new ArrayList<>(connections.size());
+        for (CloudConnectionInfo connection : connections) {
+            if (connection.getId() == null || ids.add(connection.getId())) {
+                unique.add(connection);
+            } else {
+                loggingService.logInfo("Skipping repeated connection id " + connection.getId());
+            }
+        }
+        connections = unique;
         
-        Map<String, Object> result = new HashMap<>();
-        List<String> successful = new ArrayList<>();
-        List<String> failed = new ArrayList<>();
+        loggingService.logInfo("Establishing " + connections.size() + " multi-cloud connections");
+        long startNanos = System.nanoTime();
         
+        List<CompletableFuture<Map<String, Object>>> pending = new ArrayList<>(connections.size());
         for (CloudConnectionInfo connection : connections) {
-            try {
-                // Store connection info
-                managedConnections.put(connection.getId(), connection);
-                connectionToProvider.put(connection.getId(), connection.getCloudProvider());
-                
-                // Initialize monitoring for provider
-                monitoringService.initializeProviderMonitoring(connection.getCloudProvider());
-                
-                successful.add(connection.getId());
-                
-            } catch (Exception e) {
-                loggingService.logError("Failed to manage connection: " + connection.getId(), e);
-                failed.add(connection.getId());
+            EstablishTask task = new EstablishTask(connection);
+            pending.add(task.result.thenApply(result -> {
+                try {
+                    onResult.accept(result);
+                } catch (RuntimeException e) {
+                    loggingService.logError("Connection result listener failed for " + connection.getId(), e);
+                }
+                return result;
+            }));
+            
+            if (connection.getId() == null || !SUPPORTED_PROVIDERS.contains(connection.getCloudProvider())) {
+                finish(task, new IllegalArgumentException("Unsupported cloud provider: " + connection.getCloudProvider()));
+            } else {
+                connectionLanes.computeIfAbsent(connection.getCloudProvider(), this::createLane).enqueue(task);
             }
         }
         
-        result.put("successful", successful);
-        result.put("failed", failed);
-        result.put("totalManaged", managedConnections.size());
-        
-        return result;
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<String, Object> summary = new HashMap<>();
+            List<String> successful = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            List<Map<String, Object>> results = new ArrayList<>(pending.size());
+            
+            for (CompletableFuture<Map<String, Object>> future : pending) {
+                Map<String, Object> result = future.join();
+                results.add(result);
+                if (Boolean.TRUE.equals(result.get("success"))) {
+                    successful.add((String) result.get("id"));
+                } else {
+                    failed.add((String) result.get("id"));
+                }
+            }
+            
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            summary.put("successful", successful);
+            summary.put("failed", failed);
+            summary.put("results", results);
+            summary.put("totalManaged", managedConnections.size());
+            summary.put("durationMs", durationMs);
+            
+            loggingService.logInfo("Established " + successful.size() + " of " + results.size() +
+                " multi-cloud connections in " + durationMs + "ms");
+            return summary;
+        });
+    }
+    
+    private ConnectionLane createLane(String provider) {
+        int parallelism = environment.getProperty("app.multicloud.connect.parallelism." + provider, Integer.class,
+            environment.getProperty("app.multicloud.connect.parallelism.default", Integer.class, 8));
+        return new ConnectionLane(Math.max(1, parallelism));
     }
     
     /**
-     * Get cross-cloud analytics
+     * Run one connection attempt; on failure either schedule a retry or settle the task
+     */
+    private void attempt(EstablishTask task, ConnectionLane lane) {
+        task.attempts++;
+        CloudConnectionInfo connection = task.connection;
+        // Settled once: with the attempt's connection when it hands it over, or ABANDONED when the caller gives up
+        AtomicReference<Object> outcome = new AtomicReference<>();
+        long attemptStart = System.nanoTime();
+        
+        executorService.submit(WorkloadExecutorService.WORKLOAD_CONNECTIONS,
+                () -> openConnection(connection, outcome), connectTimeoutMs)
+            .whenComplete((opened, error) -> {
+                lane.inFlight.decrementAndGet();
+                long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attemptStart);
+                
+                if (error == null) {
+                    monitoringService.recordConnectionAttempt(connection.getCloudProvider(), true, durationMs);
+                    // Registered only here, so an abandoned attempt that finishes late never replaces it
+                    cloudConnectionService.register(connection.getId(), opened);
+                    managedConnections.put(connection.getId(), connection);
+                    trackConnectionProvider(connection.getId(), connection.getCloudProvider());
+                    monitoringService.initializeProviderMonitoring(connection.getCloudProvider());
+                    finish(task, null);
+                } else {
+                    // A timed-out attempt may still complete; whichever side settles second closes its connection
+                    Object late = outcome.getAndSet(ABANDONED);
+                    if (late instanceof Connection) {
+                        closeQuietly((Connection) late);
+                    }
+                    Throwable cause = unwrap(error);
+                    if (!(cause instanceof RejectedExecutionException)) {
+                        monitoringService.recordConnectionAttempt(connection.getCloudProvider(), false, durationMs);
+                    }
+                    
+                    if (task.attempts < connectMaxAttempts && isRetryable(cause)) {
+                        long delay = backoffDelay(task.attempts);
+                        loggingService.logDebug("Connection " + connection.getId() + " attempt " + task.attempts +
+                            " failed (" + cause.getMessage() + "), retrying in " + delay + "ms");
+                        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> lane.enqueue(task));
+                    } else {
+                        loggingService.logError("Failed to establish connection: " + connection.getId(), cause);
+                        finish(task, cause);
+                    }
+                }
+                lane.pump();
+            });
+    }
+    
+    private Connection openConnection(CloudConnectionInfo connectionInfo, AtomicReference<Object> outcome) {
+        Connection connection = null;
+        try {
+            connection = cloudConnectionService.open(connectionInfo);
+            int validationSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(connectTimeoutMs));
+            if (!connection.isValid(validationSeconds) || !outcome.compareAndSet(null, connection)) {
+                throw new SQLTransientConnectionException("Connection " + connectionInfo.getId() +
+                    " was not usable within " + connectTimeoutMs + "ms");
+            }
+            return connection;
+        } catch (SQLException e) {
+            // Only this attempt's connection: the id may already belong to a retry that succeeded
+            closeQuietly(connection);
+            throw new CompletionException(e);
+        }
+    }
+    
+    private void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            loggingService.logDebug("Error closing abandoned connection: " + e.getMessage());
+        }
+    }
+    
+    private void finish(EstablishTask task, Throwable error) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", task.connection.getId());
+        result.put("provider", task.connection.getCloudProvider());
+        result.put("success", error == null);
+        result.put("attempts", task.attempts);
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.startNanos));
+        if (error != null) {
+            result.put("error", error.getMessage());
+        }
+        task.result.complete(result);
+    }
+    
+    /**
+     * Timeouts, saturated executors, transient SQL errors and SQLState class 08 (connection exception) are retried;
+     * authentication and configuration errors will not go away on retry.
+     */
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof TimeoutException || error instanceof RejectedExecutionException ||
+                error instanceof SQLTransientException || error instanceof SQLRecoverableException) {
+            return true;
+        }
+        if (error instanceof SQLException) {
+            String sqlState = ((SQLException) error).getSQLState();
+            return sqlState != null && sqlState.startsWith("08");
+        }
+        return false;
+    }
+    
+    /**
+     * Exponential backoff capped at the configured maximum, with the upper half jittered so retries spread out
+     */
+    private long backoffDelay(int attempt) {
+        long delay = Math.min(connectMaxBackoffMs, connectBackoffMs << Math.min(attempt - 1, 20));
+        long half = Math.max(1, delay / 2);
+        return half + ThreadLocalRandom.current().nextLong(half);
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+    
+    /**
+     * Get cross-cloud analytics, recomputed only after the managed connections have changed
      */
     public Map<String, Object> getCrossCloudAnalytics() {
-        loggingService.logInfo("Generating cross-cloud analytics");
-        
-        Map<String, Object> analytics = new HashMap<>();
-        
-        // Connection distribution
-        Map<String, Long> connectionDistribution = connectionToProvider.values().stream()
-            .collect(Collectors.groupingBy(provider -> provider, Collectors.counting()));
-        
-        analytics.put("connectionDistribution", connectionDistribution);
-        
-        // Performance analytics
-        Map<String, Object> performanceAnalytics = generatePerformanceAnalytics();
-        analytics.put("performance", performanceAnalytics);
-        
-        // Cost analytics
-        Map<String, Object> costAnalytics = generateCostAnalytics();
-        analytics.put("cost", costAnalytics);
-        
-        // Usage patterns
-        Map<String, Object> usagePatterns = generateUsagePatterns();
-        analytics.put("usage", usagePatterns);
-        
-        // Recommendations
-        List<String> recommendations = generateCrossCloudRecommendations();
-        analytics.put("recommendations", recommendations);
-        
-        return analytics;
+        return memoize(crossCloudAnalyticsCache, managedVersion.get(), () -> {
+            loggingService.logInfo("Generating cross-cloud analytics");
+            
+            Map<String, Object> analytics = new HashMap<>();
+            
+            // Connection distribution
+            Map<String, Long> connectionDistribution = new HashMap<>();
+            for (Map.Entry<String, AtomicLong> entry : connectionsPerProvider.entrySet()) {
+                if (entry.getValue().get() > 0) {
+                    connectionDistribution.put(entry.getKey(), entry.getValue().get());
+                }
+            }
+            
+            analytics.put("connectionDistribution", connectionDistribution);
+            
+            // Performance analytics
+            Map<String, Object> performanceAnalytics = generatePerformanceAnalytics();
+            analytics.put("performance", performanceAnalytics);
+            
+            // Cost analytics
+            Map<String, Object> costAnalytics = generateCostAnalytics();
+            analytics.put("cost", costAnalytics);
+            
+            // Usage patterns
+            Map<String, Object> usagePatterns = generateUsagePatterns();
+            analytics.put("usage", usagePatterns);
+            
+            // Recommendations
+            List<String> recommendations = generateCrossCloudRecommendations();
+            analytics.put("recommendations", recommendations);
+            
+            return analytics;
+        }, true);
+    }
+    
+    /**
+     * Record which provider a managed connection belongs to, keeping the per-provider totals current
+     */
+    private void trackConnectionProvider(String connectionId, String provider) {
+        String previous = connectionToProvider.put(connectionId, provider);
+        if (provider.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            connectionsPerProvider.computeIfAbsent(previous, p -> new AtomicLong()).decrementAndGet();
+        }
+        connectionsPerProvider.computeIfAbsent(provider, p -> new AtomicLong()).incrementAndGet();
+        managedVersion.incrementAndGet();
+    }
+    
+    /**
+     * Return the cached aggregate if it was computed from the current source version, otherwise recompute it
+     */
+    private <T> T memoize(AtomicReference<VersionedValue<T>> cache, long version, Supplier<T> compute) {
+        return memoize(cache, version, compute, false);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T memoize(AtomicReference<VersionedValue<T>> cache, long version, Supplier<T> compute, boolean stamp) {
+        VersionedValue<T> cached = cache.get();
+        if (cached != null && cached.version == version) {
+            return cached.value;
+        }
+        T value = compute.get();
+        if (stamp && value instanceof Map) {
+            Map<String, Object> stamped = new HashMap<>((Map<String, Object>) value);
+            stamped.put("version", version);
+            stamped.put("computedAt", System.currentTimeMillis());
+            value = (T) Collections.unmodifiableMap(stamped);
+        }
+        cache.set(new VersionedValue<>(version, value));
+        return value;
     }
     
     /**
@@ -209,32 +481,14 @@ public class MultiCloudManagementService {
     
     // Helper methods
     
-    private Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> aggregateInstancesByEngine(
-            Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> discoveredInstances) {
-        
-        Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> byEngine = new HashMap<>();
-        
-        discoveredInstances.values().stream()
-            .flatMap(List::stream)
-            .forEach(instance -> {
-                byEngine.computeIfAbsent(instance.getEngine(), k -> new ArrayList<>()).add(instance);
-            });
-        
-        return byEngine;
+    private Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> aggregateInstancesByEngine() {
+        // Maintained by the catalog as discovery deltas arrive
+        return catalogService.groupBy(InstanceCatalogService.ATTR_ENGINE);
     }
     
-    private Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> aggregateInstancesByRegion(
-            Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> discoveredInstances) {
-        
-        Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> byRegion = new HashMap<>();
-        
-        discoveredInstances.values().stream()
-            .flatMap(List::stream)
-            .forEach(instance -> {
-                byRegion.computeIfAbsent(instance.getRegion(), k -> new ArrayList<>()).add(instance);
-            });
-        
-        return byRegion;
+    private Map<String, List<CloudServiceDiscoveryService.CloudDatabaseInstance>> aggregateInstancesByRegion() {
+        // Maintained by the catalog as discovery deltas arrive
+        return catalogService.groupBy(InstanceCatalogService.ATTR_REGION);
     }
     
     private Map<String, Map<String, Object>> calculateProviderStatistics(
@@ -477,4 +731,67 @@ public class MultiCloudManagementService {
         
         return assessment;
     }
-}
\ No newline at end of file
+    
+    /**
+     * One connection being established, possibly across several attempts
+     */
+    private static class EstablishTask {
+        private final CloudConnectionInfo connection;
+        private final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        private final long startNanos = System.nanoTime();
+        private volatile int attempts;
+        
+        EstablishTask(CloudConnectionInfo connection) {
+            this.connection = connection;
+        }
+    }
+    
+    /**
+     * Queue of connection attempts for one provider, admitting at most parallelism at a time
+     */
+    private class ConnectionLane {
+        private final int parallelism;
+        private final Queue<EstablishTask> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        
+        ConnectionLane(int parallelism) {
+            this.parallelism = parallelism;
+        }
+        
+        void enqueue(EstablishTask task) {
+            pending.add(task);
+            pump();
+        }
+        
+        void pump() {
+            while (!pending.isEmpty()) {
+                int running = inFlight.get();
+                if (running >= parallelism) {
+                    return;
+                }
+                if (!inFlight.compareAndSet(running, running + 1)) {
+                    continue;
+                }
+                EstablishTask task = pending.poll();
+                if (task == null) {
+                    inFlight.decrementAndGet();
+                    continue;
+                }
+                attempt(task, this);
+            }
+        }
+    }
+    
+    /**
+     * An aggregate together with the version of the data it was computed from
+     */
+    private static class VersionedValue<T> {
+        private final long version;
+        private final T value;
+        
+        VersionedValue(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
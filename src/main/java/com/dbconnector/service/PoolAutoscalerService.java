@@ -0,0 +1,261 @@
+package com.dbconnector.service;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class PoolAutoscalerService {
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EnhancedConnectionPoolService connectionPoolService;
+
+    @Value("${app.pool.autoscale.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.pool.autoscale.min-size:2}")
+    private int minPoolSize;
+
+    @Value("${app.pool.autoscale.max-size:50}")
+    private int maxPoolSize;
+
+    @Value("${app.pool.autoscale.db-connection-share:0.5}")
+    private double dbConnectionShare;
+
+    @Value("${app.pool.autoscale.scale-up-utilization:0.85}")
+    private double scaleUpUtilization;
+
+    @Value("${app.pool.autoscale.scale-down-utilization:0.3}")
+    private double scaleDownUtilization;
+
+    @Value("${app.pool.autoscale.acquire-latency-threshold-ms:10}")
+    private double acquireLatencyThresholdMs;
+
+    @Value("${app.pool.autoscale.scale-up-samples:2}")
+    private int scaleUpSamples;
+
+    @Value("${app.pool.autoscale.scale-down-samples:6}")
+    private int scaleDownSamples;
+
+    @Value("${app.pool.autoscale.cooldown-ms:30000}")
+    private long cooldownMs;
+
+    @Value("${app.pool.autoscale.min-idle-ratio:0.25}")
+    private double minIdleRatio;
+
+    private final Map<String, PoolState> poolStates = new ConcurrentHashMap<>();
+    private final Map<String, Counter> resizeCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Sample every pool and resize those whose load has moved outside the hysteresis band
+     */
+    @Scheduled(fixedDelayString = "${app.pool.autoscale.interval-ms:5000}")
+    public void evaluatePools() {
+        if (!enabled) {
+            return;
+        }
+
+        Set<String> poolIds = connectionPoolService.getPoolIds();
+        for (String connectionId : new ArrayList<>(poolStates.keySet())) {
+            if (!poolIds.contains(connectionId)) {
+                removeState(connectionId);
+            }
+        }
+
+        for (String connectionId : poolIds) {
+            if (!connectionPoolService.isAutoscaleEnabled(connectionId)) {
+                continue;
+            }
+            HikariDataSource dataSource = connectionPoolService.getDataSource(connectionId);
+            if (dataSource == null || dataSource.isClosed() || dataSource.getHikariPoolMXBean() == null) {
+                continue;
+            }
+            try {
+                evaluatePool(connectionId, dataSource);
+            } catch (Exception e) {
+                loggingService.logError("Pool autoscaler failed for " + connectionId, e);
+            }
+        }
+    }
+
+    private void evaluatePool(String connectionId, HikariDataSource dataSource) {
+        HikariPoolMXBean poolBean = dataSource.getHikariPoolMXBean();
+        HikariConfigMXBean configBean = dataSource.getHikariConfigMXBean();
+        PoolState state = poolStates.computeIfAbsent(connectionId, id -> createState(id, configBean));
+
+        int active = poolBean.getActiveConnections();
+        int waiting = poolBean.getThreadsAwaitingConnection();
+        int currentMax = configBean.getMaximumPoolSize();
+        EnhancedConnectionPoolService.AcquireSample sample = connectionPoolService.drainAcquireSample(connectionId);
+        double acquireMs = sample.getAverageMillis();
+        double utilization = currentMax > 0 ? (double) active / currentMax : 0;
+
+        state.lastUtilization = utilization;
+        state.lastAcquireMs = acquireMs;
+        state.peakActive = Math.max(state.peakActive, active);
+
+        boolean pressure = waiting > 0 || utilization >= scaleUpUtilization || acquireMs > acquireLatencyThresholdMs;
+        boolean slack = waiting == 0 && utilization <= scaleDownUtilization && acquireMs <= acquireLatencyThresholdMs;
+
+        if (pressure) {
+            state.pressureSamples++;
+            state.slackSamples = 0;
+        } else if (slack) {
+            state.slackSamples++;
+            state.pressureSamples = 0;
+        } else {
+            state.pressureSamples = 0;
+            state.slackSamples = 0;
+        }
+
+        int upperBound = upperBound(connectionId, dataSource, state);
+        long now = System.currentTimeMillis();
+
+        if (state.pressureSamples >= scaleUpSamples && currentMax < upperBound) {
+            int step = Math.max(1, (int) Math.ceil(currentMax * 0.25)) + waiting;
+            resize(connectionId, configBean, state, Math.min(upperBound, currentMax + step), "up");
+            state.pressureSamples = 0;
+            state.lastResize = now;
+        } else if (state.slackSamples >= scaleDownSamples && currentMax > minPoolSize
+                && now - state.lastResize >= cooldownMs) {
+            int step = Math.max(1, (int) Math.floor(currentMax * 0.2));
+            int target = Math.max(Math.max(minPoolSize, state.peakActive + 1), currentMax - step);
+            if (target < currentMax) {
+                resize(connectionId, configBean, state, target, "down");
+                state.lastResize = now;
+            }
+            state.slackSamples = 0;
+            state.peakActive = active;
+        } else if (currentMax > upperBound) {
+            // Database-side limit discovered after the pool was sized
+            resize(connectionId, configBean, state, upperBound, "down");
+            state.lastResize = now;
+        }
+    }
+
+    private void resize(String connectionId, HikariConfigMXBean configBean, PoolState state, int newMax, String direction) {
+        int oldMax = configBean.getMaximumPoolSize();
+        int newMinIdle = Math.max(1, Math.min(newMax, (int) Math.ceil(newMax * minIdleRatio)));
+
+        // Hikari requires minimumIdle <= maximumPoolSize at every step
+        if (newMax > oldMax) {
+            configBean.setMaximumPoolSize(newMax);
+            configBean.setMinimumIdle(newMinIdle);
+        } else {
+            configBean.setMinimumIdle(newMinIdle);
+            configBean.setMaximumPoolSize(newMax);
+        }
+
+        state.maxPoolSize.set(newMax);
+        state.minimumIdle.set(newMinIdle);
+        resizeCounters.computeIfAbsent(direction, d ->
+            Counter.builder("pool.autoscale.resizes")
+                .tag("direction", d)
+                .register(meterRegistry))
+            .increment();
+
+        loggingService.logInfo("Resized pool " + connectionId + " from " + oldMax + " to " + newMax +
+            " (minimumIdle " + newMinIdle + ", utilization " + String.format("%.2f", state.lastUtilization) +
+            ", acquire " + String.format("%.2f", state.lastAcquireMs) + "ms)");
+    }
+
+    /**
+     * Configured ceiling, further limited to a share of the database's connection limit when it reports one
+     */
+    private int upperBound(String connectionId, HikariDataSource dataSource, PoolState state) {
+        if (state.databaseMaxConnections == null) {
+            state.databaseMaxConnections = readDatabaseMaxConnections(connectionId, dataSource);
+        }
+        int bound = maxPoolSize;
+        if (state.databaseMaxConnections > 0) {
+            bound = Math.min(bound, Math.max(minPoolSize, (int) (state.databaseMaxConnections * dbConnectionShare)));
+        }
+        return bound;
+    }
+
+    private int readDatabaseMaxConnections(String connectionId, HikariDataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getMaxConnections();
+        } catch (SQLException e) {
+            loggingService.logDebug("Unable to read max connections for " + connectionId + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private PoolState createState(String connectionId, HikariConfigMXBean configBean) {
+        PoolState state = new PoolState();
+        state.maxPoolSize.set(configBean.getMaximumPoolSize());
+        state.minimumIdle.set(configBean.getMinimumIdle());
+        state.meters.add(Gauge.builder("pool.autoscale.max_size", state.maxPoolSize, AtomicInteger::get)
+            .tag("pool", connectionId)
+            .register(meterRegistry));
+        state.meters.add(Gauge.builder("pool.autoscale.min_idle", state.minimumIdle, AtomicInteger::get)
+            .tag("pool", connectionId)
+            .register(meterRegistry));
+        return state;
+    }
+
+    private void removeState(String connectionId) {
+        PoolState state = poolStates.remove(connectionId);
+        if (state != null) {
+            for (Meter meter : state.meters) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+
+    /**
+     * Get current autoscaler state for all pools
+     */
+    public Map<String, Object> getAutoscalerStatus() {
+        Map<String, Object> status = new HashMap<>();
+        for (Map.Entry<String, PoolState> entry : poolStates.entrySet()) {
+            PoolState state = entry.getValue();
+            Map<String, Object> poolStatus = new HashMap<>();
+            poolStatus.put("maximumPoolSize", state.maxPoolSize.get());
+            poolStatus.put("minimumIdle", state.minimumIdle.get());
+            poolStatus.put("utilization", state.lastUtilization);
+            poolStatus.put("avgAcquireMs", state.lastAcquireMs);
+            poolStatus.put("databaseMaxConnections", state.databaseMaxConnections);
+            poolStatus.put("lastResize", state.lastResize > 0 ? new Date(state.lastResize) : null);
+            status.put(entry.getKey(), poolStatus);
+        }
+        return status;
+    }
+
+    /**
+     * Per-pool autoscaler bookkeeping; only touched from the scheduler thread
+     */
+    private static class PoolState {
+        private final AtomicInteger maxPoolSize = new AtomicInteger();
+        private final AtomicInteger minimumIdle = new AtomicInteger();
+        private final List<Meter> meters = new ArrayList<>();
+        private int pressureSamples;
+        private int slackSamples;
+        private int peakActive;
+        private long lastResize;
+        private double lastUtilization;
+        private double lastAcquireMs;
+        private Integer databaseMaxConnections;
+    }
+}
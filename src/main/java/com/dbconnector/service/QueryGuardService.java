@@ -0,0 +1,226 @@
+package com.dbconnector.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class QueryGuardService {
+
+    public static final String LIMIT_TIMEOUT = "timeout";
+    public static final String LIMIT_ROWS = "rows";
+    public static final String LIMIT_BYTES = "bytes";
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final QueryPolicy defaultPolicy;
+    private final Map<String, QueryPolicy> connectionPolicies = new ConcurrentHashMap<>();
+    private final Map<String, Counter> violationCounters = new ConcurrentHashMap<>();
+
+    public QueryGuardService(@Value("${app.query.timeout-seconds:60}") int timeoutSeconds,
+                             @Value("${app.query.max-rows:100000}") int maxRows,
+                             @Value("${app.query.max-result-bytes:67108864}") long maxResultBytes,
+                             @Value("${app.query.fetch-size:500}") int fetchSize) {
+        this.defaultPolicy = new QueryPolicy(timeoutSeconds, maxRows, maxResultBytes, fetchSize);
+    }
+
+    /**
+     * Resolve the effective policy; connection settings override defaults
+     */
+    public QueryPolicy resolvePolicy(String connectionId) {
+        QueryPolicy effective = defaultPolicy;
+        if (connectionId != null) {
+            effective = effective.overriddenBy(connectionPolicies.get(connectionId));
+        }
+        return effective;
+    }
+
+    /**
+     * Apply timeout, row cap and fetch size to a statement before execution
+     */
+    public void applyPolicy(Statement stmt, QueryPolicy policy) throws SQLException {
+        if (policy.getTimeoutSeconds() != null && policy.getTimeoutSeconds() > 0) {
+            stmt.setQueryTimeout(policy.getTimeoutSeconds());
+        }
+        if (policy.getMaxRows() != null && policy.getMaxRows() > 0) {
+            // One extra row lets the caller tell "exactly at the cap" from "cap reached"
+            stmt.setMaxRows(policy.getMaxRows() == Integer.MAX_VALUE ? Integer.MAX_VALUE : policy.getMaxRows() + 1);
+        }
+        if (policy.getFetchSize() != null && policy.getFetchSize() > 0) {
+            stmt.setFetchSize(policy.getFetchSize());
+        }
+    }
+
+    public void setConnectionPolicy(String connectionId, QueryPolicy policy) {
+        connectionPolicies.put(connectionId, policy);
+        loggingService.logAudit("Query policy updated for connection " + connectionId + ": " + policy);
+    }
+
+    public void removeConnectionPolicy(String connectionId) {
+        connectionPolicies.remove(connectionId);
+    }
+
+    public QueryPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Whether a driver exception reports a statement cancelled by its timeout. Not every driver throws
+     * SQLTimeoutException: pgjdbc uses SQLState 57014, ODBC-style drivers HYT00/HYT01, Oracle ORA-01013.
+     */
+    public static boolean isTimeout(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                String sqlState = ((SQLException) t).getSQLState();
+                if ("57014".equals(sqlState) || "HYT00".equals(sqlState) || "HYT01".equals(sqlState)
+                        || ((SQLException) t).getErrorCode() == 1013 && "72000".equals(sqlState)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record a limit violation and build the exception reported to the caller
+     */
+    public QueryLimitExceededException violation(String limit, String connectionId, String message) {
+        violationCounters.computeIfAbsent(limit, l ->
+            Counter.builder("query.guard.violations")
+                .tag("limit", l)
+                .register(meterRegistry))
+            .increment();
+        loggingService.logInfo("Query guard violation (" + limit + ") on connection " + connectionId + ": " + message);
+        return new QueryLimitExceededException(limit, message);
+    }
+
+    /**
+     * Rough in-memory footprint of a column value, used for the result byte budget
+     */
+    public static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof CharSequence) {
+            return 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof java.util.Date) {
+            return 8;
+        }
+        return 2L * String.valueOf(value).length();
+    }
+
+    /**
+     * Per-query resource limits; null fields inherit from the next policy level
+     */
+    public static class QueryPolicy {
+        private Integer timeoutSeconds;
+        private Integer maxRows;
+        private Long maxResultBytes;
+        private Integer fetchSize;
+
+        public QueryPolicy() {
+        }
+
+        public QueryPolicy(Integer timeoutSeconds, Integer maxRows, Long maxResultBytes, Integer fetchSize) {
+            this.timeoutSeconds = timeoutSeconds;
+            this.maxRows = maxRows;
+            this.maxResultBytes = maxResultBytes;
+            this.fetchSize = fetchSize;
+        }
+
+        public static QueryPolicy fromMap(Map<String, Object> values) {
+            QueryPolicy policy = new QueryPolicy();
+            if (values.get("timeoutSeconds") instanceof Number) {
+                policy.timeoutSeconds = ((Number) values.get("timeoutSeconds")).intValue();
+            }
+            if (values.get("maxRows") instanceof Number) {
+                policy.maxRows = ((Number) values.get("maxRows")).intValue();
+            }
+            if (values.get("maxResultBytes") instanceof Number) {
+                policy.maxResultBytes = ((Number) values.get("maxResultBytes")).longValue();
+            }
+            if (values.get("fetchSize") instanceof Number) {
+                policy.fetchSize = ((Number) values.get("fetchSize")).intValue();
+            }
+            return policy;
+        }
+
+        QueryPolicy overriddenBy(QueryPolicy override) {
+            if (override == null) {
+                return this;
+            }
+            return new QueryPolicy(
+                override.timeoutSeconds != null ? override.timeoutSeconds : timeoutSeconds,
+                override.maxRows != null ? override.maxRows : maxRows,
+                override.maxResultBytes != null ? override.maxResultBytes : maxResultBytes,
+                override.fetchSize != null ? override.fetchSize : fetchSize);
+        }
+
+        public Integer getTimeoutSeconds() { return timeoutSeconds; }
+        public void setTimeoutSeconds(Integer timeoutSeconds) { this.timeoutSeconds = timeoutSeconds; }
+
+        public Integer getMaxRows() { return maxRows; }
+        public void setMaxRows(Integer maxRows) { this.maxRows = maxRows; }
+
+        public Long getMaxResultBytes() { return maxResultBytes; }
+        public void setMaxResultBytes(Long maxResultBytes) { this.maxResultBytes = maxResultBytes; }
+
+        public Integer getFetchSize() { return fetchSize; }
+        public void setFetchSize(Integer fetchSize) { this.fetchSize = fetchSize; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("timeoutSeconds", timeoutSeconds);
+            map.put("maxRows", maxRows);
+            map.put("maxResultBytes", maxResultBytes);
+            map.put("fetchSize", fetchSize);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return "QueryPolicy{" +
+                    "timeoutSeconds=" + timeoutSeconds +
+                    ", maxRows=" + maxRows +
+                    ", maxResultBytes=" + maxResultBytes +
+                    ", fetchSize=" + fetchSize +
+                    '}';
+        }
+    }
+
+    /**
+     * Raised when a query hits one of its policy limits
+     */
+    public static class QueryLimitExceededException extends SQLException {
+        private final String limit;
+
+        public QueryLimitExceededException(String limit, String message) {
+            super(message);
+            this.limit = limit;
+        }
+
+        public String getLimit() {
+            return limit;
+        }
+    }
+}
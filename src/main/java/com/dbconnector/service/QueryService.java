@@ -3,9 +3,11 @@ package com.dbconnector.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.Date;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class QueryService {
@@ -15,12 +17,36 @@ public class QueryService {
     
     @Autowired
     private LoggingService loggingService;
+    
+    @Autowired
+    private ExplainPlanService explainPlanService;
+    
+    @Autowired
+    private QueryGuardService queryGuardService;
+    
+    @Autowired
+    private FetchSizeTuningService fetchSizeTuningService;
 
+    @Autowired
+    private CloudMonitoringService monitoringService;
+
+    @Autowired
+    private ResultBufferService resultBufferService;
+    
     // In-memory storage for query history and bookmarks
     private final Map<String, List<Map<String, Object>>> queryHistory = new HashMap<>();
     private final Map<String, List<Map<String, Object>>> queryBookmarks = new HashMap<>();
 
     public Map<String, Object> executeQuery(String connectionId, String query, int page, int pageSize) throws SQLException {
+        return executeQuery(connectionId, query, page, pageSize, false);
+    }
+
+    /**
+     * Execute a query; a buffered result is read to the end and spilled to disk,
+     * so its other pages can be fetched by the returned resultHandle without re-running it
+     */
+    public Map<String, Object> executeQuery(String connectionId, String query, int page, int pageSize, boolean buffer)
+            throws SQLException {
         Connection connection = connectionService.getConnection(connectionId);
         if (connection == null) {
             throw new SQLException("No active connection found");
@@ -29,14 +55,28 @@ public class QueryService {
         // Add to query history
         addToQueryHistory(connectionId, query);
 
+        QueryGuardService.QueryPolicy policy = queryGuardService.resolvePolicy(connectionId);
         Map<String, Object> result = new HashMap<>();
         
+        String fetchKey = connectionId + ":" + explainPlanService.fingerprint(query);
+        FetchSizeTuningService.FetchSession fetchSession = null;
+        CloudMonitoringService.ConnectionMetrics connectionMetrics = monitoringService.connectionMetrics(connectionId, null);
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        
+        // Every statement runs on the one session, so SET, USE and temporary tables carry over to the
+        // next; holding it for the whole request lets a read stream and toggle autocommit in between
+        Lock session = connectionService.sessionLock(connectionId);
+        session.lock();
         try (Statement stmt = connection.createStatement()) {
+            queryGuardService.applyPolicy(stmt, policy);
+            fetchSession = fetchSizeTuningService.prepare(connection, stmt, fetchKey, query,
+                policy.getFetchSize(), policy.getMaxRows(), true);
             boolean isResultSet = stmt.execute(query);
             
             if (isResultSet) {
                 try (ResultSet rs = stmt.getResultSet()) {
-                    result = processResultSet(rs, page, pageSize);
+                    result = processResultSet(connectionId, rs, page, pageSize, policy, fetchSession, buffer);
                 }
             } else {
                 int updateCount = stmt.getUpdateCount();
@@ -44,40 +84,47 @@ public class QueryService {
                 result.put("updateCount", updateCount);
                 result.put("message", "Query executed successfully. Rows affected: " + updateCount);
             }
+            successful = true;
+        } catch (SQLException e) {
+            if (!QueryGuardService.isTimeout(e)) {
+                throw e;
+            }
+            throw queryGuardService.violation(QueryGuardService.LIMIT_TIMEOUT, connectionId,
+                "Query cancelled after exceeding the " + policy.getTimeoutSeconds() + "s statement timeout");
+        } finally {
+            if (fetchSession != null) {
+                fetchSession.finish();
+            }
+            session.unlock();
+            connectionMetrics.recordQueryExecution(System.nanoTime() - startTime, successful);
         }
 
         return result;
     }
 
     public Map<String, Object> explainQuery(String connectionId, String query) throws SQLException {
+        return explainQuery(connectionId, query, false);
+    }
+
+    public Map<String, Object> explainQuery(String connectionId, String query, boolean analyze) throws SQLException {
         Connection connection = connectionService.getConnection(connectionId);
         if (connection == null) {
             throw new SQLException("No active connection found");
         }
 
-        Map<String, Object> result = new HashMap<>();
-        String explainQuery = "EXPLAIN " + query;
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(explainQuery)) {
-            
-            List<Map<String, Object>> plan = new ArrayList<>();
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.put(metaData.getColumnName(i), rs.getObject(i));
-                }
-                plan.add(row);
-            }
-            
-            result.put("success", true);
-            result.put("plan", plan);
+        // Explained on the user's session, which the lock keeps to this request while plan mode or
+        // the analyze transaction is switched on
+        Lock session = connectionService.sessionLock(connectionId);
+        session.lock();
+        try {
+            return explainPlanService.explain(connectionId, connection, query, analyze, true);
+        } finally {
+            session.unlock();
         }
+    }
 
-        return result;
+    public Map<String, Object> getPlanHistory(String connectionId, String query) {
+        return explainPlanService.getPlanHistory(connectionId, query);
     }
 
     public Map<String, Object> validateQuery(String connectionId, String query) throws SQLException {
@@ -151,7 +198,10 @@ public class QueryService {
         }
     }
 
-    private Map<String, Object> processResultSet(ResultSet rs, int page, int pageSize) throws SQLException {
+    private Map<String, Object> processResultSet(String connectionId, ResultSet rs, int page, int pageSize,
+                                                 QueryGuardService.QueryPolicy policy,
+                                                 FetchSizeTuningService.FetchSession fetchSession,
+                                                 boolean buffer) throws SQLException {
         ResultSetMetaData metaData = rs.getMetaData();
         int columnCount = metaData.getColumnCount();
         
@@ -170,20 +220,87 @@ public class QueryService {
         int currentRow = 0;
         int startRow = (page - 1) * pageSize;
         int endRow = startRow + pageSize;
+        int maxRows = policy.getMaxRows() != null && policy.getMaxRows() > 0 ? policy.getMaxRows() : Integer.MAX_VALUE;
+        long maxBytes = policy.getMaxResultBytes() != null && policy.getMaxResultBytes() > 0 ? policy.getMaxResultBytes() : Long.MAX_VALUE;
+        long resultBytes = 0;
         
-        while (rs.next() && currentRow < endRow) {
-            if (currentRow >= startRow) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.put(metaData.getColumnName(i), rs.getObject(i));
-                }
-                data.add(row);
+        if (startRow >= maxRows) {
+            throw queryGuardService.violation(QueryGuardService.LIMIT_ROWS, connectionId,
+                "Requested page starts at row " + (startRow + 1) + " but results are capped at " + maxRows + " rows");
+        }
+        
+        ResultBufferService.BufferWriter writer = null;
+        String bufferError = null;
+        if (buffer) {
+            try {
+                writer = resultBufferService.create(connectionId, columns);
+            } catch (IOException e) {
+                loggingService.logError("Error creating result buffer for connection " + connectionId, e);
+                bufferError = "Result buffer unavailable: " + e.getMessage();
             }
-            currentRow++;
         }
         
-        // Check if there are more rows without consuming the result set
-        boolean hasMore = rs.next();
+        int lastRow = Math.min(endRow, maxRows);
+        long readStart = System.nanoTime();
+        String resultHandle = null;
+        boolean hasMore;
+        try {
+            // A buffered result is read to the end (or the row cap), the requested page is kept as it goes by
+            while ((currentRow < lastRow || (writer != null && currentRow < maxRows)) && rs.next()) {
+                boolean onPage = currentRow >= startRow && currentRow < lastRow;
+                Object[] values = writer != null ? new Object[columnCount] : null;
+                if (onPage || values != null) {
+                    Map<String, Object> row = onPage ? new HashMap<>() : null;
+                    for (int i = 1; i <= columnCount; i++) {
+                        Object value = rs.getObject(i);
+                        if (onPage) {
+                            resultBytes += QueryGuardService.estimateSize(value);
+                            row.put(metaData.getColumnName(i), value);
+                        }
+                        if (values != null) {
+                            values[i - 1] = value;
+                        }
+                    }
+                    if (onPage) {
+                        if (resultBytes > maxBytes) {
+                            throw queryGuardService.violation(QueryGuardService.LIMIT_BYTES, connectionId,
+                                "Result exceeded the " + maxBytes + " byte limit after " + data.size() + " rows");
+                        }
+                        data.add(row);
+                    }
+                    if (values != null && !writer.write(values)) {
+                        // Over a disk quota: serve this page unbuffered and stop reading past it
+                        bufferError = writer.getError();
+                        writer = null;
+                    }
+                }
+                currentRow++;
+            }
+            
+            if (writer != null) {
+                hasMore = currentRow > lastRow;
+                resultHandle = writer.complete();
+            } else {
+                // Check if there are more rows without consuming the result set
+                hasMore = currentRow > lastRow || rs.next();
+            }
+        } catch (IOException e) {
+            loggingService.logError("Error completing result buffer for connection " + connectionId, e);
+            bufferError = "Result buffer unavailable: " + e.getMessage();
+            hasMore = currentRow > lastRow;
+        } finally {
+            if (writer != null && !writer.isFinished()) {
+                writer.abort("Query failed");
+            }
+        }
+        fetchSizeTuningService.complete(fetchSession, currentRow, data.size(), resultBytes, System.nanoTime() - readStart);
+        // A buffered read stopped at the cap without looking past it
+        boolean rowLimitReached = currentRow >= maxRows && (resultHandle != null ? rs.next() : hasMore);
+        if (rowLimitReached) {
+            hasMore = currentRow > lastRow;
+            queryGuardService.violation(QueryGuardService.LIMIT_ROWS, connectionId,
+                "Result truncated at " + maxRows + " rows");
+        }
         
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
@@ -192,7 +309,17 @@ public class QueryService {
         result.put("currentPage", page);
         result.put("pageSize", pageSize);
         result.put("hasMore", hasMore);
+        result.put("rowLimitReached", rowLimitReached);
+        result.put("fetchSize", fetchSession.getFetchSize());
+        result.put("fetchMode", fetchSession.getMode());
         result.put("totalRows", currentRow); // Add total rows count
+        if (resultHandle != null) {
+            result.put("resultHandle", resultHandle);
+            result.put("expiresAt", writer.getExpiresAt());
+        }
+        if (bufferError != null) {
+            result.put("bufferError", bufferError);
+        }
         
         return result;
     }
@@ -0,0 +1,308 @@
+package com.dbconnector.service;
+
+import com.dbconnector.model.CloudConnectionInfo;
+import com.dbconnector.model.LocalConnectionInfo;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking query engine for PostgreSQL and MySQL over R2DBC. Rows are pulled from the
+ * database only as fast as the client reads them, and no thread is held while a query waits.
+ */
+@Service
+public class ReactiveQueryService implements DisposableBean {
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Autowired
+    private QueryGuardService queryGuardService;
+
+    @Autowired
+    private CloudMonitoringService monitoringService;
+
+    @Value("${app.reactive.pool.initial-size:1}")
+    private int initialSize;
+
+    @Value("${app.reactive.pool.max-size:20}")
+    private int maxSize;
+
+    @Value("${app.reactive.pool.max-idle-ms:600000}")
+    private long maxIdleMs;
+
+    @Value("${app.reactive.pool.acquire-timeout-ms:10000}")
+    private long acquireTimeoutMs;
+
+    private final Map<String, ReactiveConnection> connections = new ConcurrentHashMap<>();
+
+    /**
+     * Open a reactive pool for a local connection definition
+     */
+    public Map<String, Object> register(LocalConnectionInfo info) {
+        String driver = driverFor(info.getDbType(), info.getPort());
+        ConnectionFactoryOptions.Builder options = baseOptions(driver, info.getHost(), info.getPort(),
+            info.getDatabase(), info.getUsername(), info.getPassword(), info.getConnectionTimeout());
+        applySsl(options, driver, info.isUseSSL(), info.getSslMode());
+        if (info.getConnectionParams() != null) {
+            for (Map.Entry<String, String> param : info.getConnectionParams().entrySet()) {
+                options.option(Option.valueOf(param.getKey()), param.getValue());
+            }
+        }
+        String id = info.getId() != null ? info.getId() : UUID.randomUUID().toString();
+        return register(id, info.getName(), driver, null, options.build(), info.getMaxPoolSize());
+    }
+
+    /**
+     * Open a reactive pool for a cloud connection definition
+     */
+    public Map<String, Object> register(CloudConnectionInfo info) {
+        String driver = driverFor(info.getDbType(), info.getPort());
+        ConnectionFactoryOptions.Builder options = baseOptions(driver, info.getEndpoint(), info.getPort(),
+            info.getDatabase(), info.getUsername(), info.getPassword(), info.getConnectionTimeout());
+        applySsl(options, driver, info.isUseSSL(), info.getSslMode());
+        String id = info.getId() != null ? info.getId() : UUID.randomUUID().toString();
+        return register(id, info.getName(), driver, info.getCloudProvider(), options.build(), maxSize);
+    }
+
+    private Map<String, Object> register(String id, String name, String driver, String cloudProvider,
+                                         ConnectionFactoryOptions options, int poolSize) {
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+            .name("reactive-" + id)
+            .initialSize(Math.min(initialSize, poolSize))
+            .maxSize(poolSize > 0 ? poolSize : maxSize)
+            .maxIdleTime(Duration.ofMillis(maxIdleMs))
+            .maxAcquireTime(Duration.ofMillis(acquireTimeoutMs))
+            .build());
+
+        ReactiveConnection previous = connections.put(id, new ReactiveConnection(id, name, driver, cloudProvider, pool));
+        if (previous != null) {
+            previous.pool.dispose();
+        }
+        loggingService.logInfo("Registered reactive " + driver + " connection " + (name != null ? name : id));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("connectionId", id);
+        result.put("driver", driver);
+        return result;
+    }
+
+    public boolean isRegistered(String connectionId) {
+        return connections.containsKey(connectionId);
+    }
+
+    /**
+     * Close a reactive connection's pool once its in-flight queries have released their connections
+     */
+    public void unregister(String connectionId) {
+        ReactiveConnection connection = connections.remove(connectionId);
+        if (connection != null) {
+            connection.pool.disposeLater().subscribe(null, error ->
+                loggingService.logError("Error closing reactive pool " + connectionId, error));
+            monitoringService.removeConnectionMetrics(connectionId);
+            loggingService.logInfo("Unregistered reactive connection " + connectionId);
+        }
+    }
+
+    /**
+     * Stream a query's rows as column-name to value maps in column order. The connection is
+     * borrowed on subscribe and returned on completion, error or cancellation; the connection's query
+     * policy limits duration, row count and result bytes.
+     */
+    public Flux<Map<String, Object>> query(String connectionId, String sql) {
+        return Flux.defer(() -> {
+            ReactiveConnection connection = connections.get(connectionId);
+            if (connection == null) {
+                return Flux.error(new IllegalArgumentException("No reactive connection found: " + connectionId));
+            }
+
+            QueryGuardService.QueryPolicy policy = queryGuardService.resolvePolicy(connectionId);
+            int fetchSize = policy.getFetchSize() != null && policy.getFetchSize() > 0 ? policy.getFetchSize() : 500;
+            CloudMonitoringService.ConnectionMetrics metrics =
+                monitoringService.connectionMetrics(connectionId, connection.cloudProvider);
+            long startTime = System.nanoTime();
+
+            Flux<Map<String, Object>> rows = Flux.usingWhen(
+                connection.pool.create(),
+                c -> Flux.from(c.createStatement(sql).fetchSize(fetchSize).execute())
+                    .concatMap(result -> result.map(ReactiveQueryService::toRow)),
+                Connection::close);
+
+            // Request rows from the driver in fetch-size batches however slowly the client reads
+            rows = enforceLimits(rows.limitRate(fetchSize), connectionId, policy);
+
+            return rows
+                .doOnComplete(() -> metrics.recordQueryExecution(System.nanoTime() - startTime, true))
+                .doOnError(error -> metrics.recordQueryExecution(System.nanoTime() - startTime, false));
+        });
+    }
+
+    private Flux<Map<String, Object>> enforceLimits(Flux<Map<String, Object>> rows, String connectionId,
+                                                    QueryGuardService.QueryPolicy policy) {
+        Integer maxRows = policy.getMaxRows();
+        Long maxResultBytes = policy.getMaxResultBytes();
+        AtomicLong rowCount = new AtomicLong();
+        AtomicLong resultBytes = new AtomicLong();
+
+        rows = rows.handle((row, sink) -> {
+            if (maxRows != null && maxRows > 0 && rowCount.incrementAndGet() > maxRows) {
+                sink.error(queryGuardService.violation(QueryGuardService.LIMIT_ROWS, connectionId,
+                    "Result exceeds the " + maxRows + " row limit"));
+                return;
+            }
+            if (maxResultBytes != null && maxResultBytes > 0) {
+                long bytes = 0;
+                for (Object value : row.values()) {
+                    bytes += QueryGuardService.estimateSize(value);
+                }
+                if (resultBytes.addAndGet(bytes) > maxResultBytes) {
+                    sink.error(queryGuardService.violation(QueryGuardService.LIMIT_BYTES, connectionId,
+                        "Result exceeds the " + maxResultBytes + " byte limit"));
+                    return;
+                }
+            }
+            sink.next(row);
+        });
+
+        Integer timeoutSeconds = policy.getTimeoutSeconds();
+        if (timeoutSeconds != null && timeoutSeconds > 0) {
+            // Cancelling the stream closes the connection, which aborts the query on the server
+            rows = rows.takeUntilOther(Mono.delay(Duration.ofSeconds(timeoutSeconds))
+                .then(Mono.error(() -> queryGuardService.violation(QueryGuardService.LIMIT_TIMEOUT, connectionId,
+                    "Query cancelled after exceeding the " + timeoutSeconds + "s statement timeout"))));
+        }
+        return rows;
+    }
+
+    /**
+     * Registered connections with their pool usage
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        for (ReactiveConnection connection : connections.values()) {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("name", connection.name);
+            stats.put("driver", connection.driver);
+            connection.pool.getMetrics().ifPresent(poolMetrics -> {
+                stats.put("acquired", poolMetrics.acquiredSize());
+                stats.put("idle", poolMetrics.idleSize());
+                stats.put("pendingAcquire", poolMetrics.pendingAcquireSize());
+                stats.put("maxSize", poolMetrics.getMaxAllocatedSize());
+            });
+            statistics.put(connection.id, stats);
+        }
+        return statistics;
+    }
+
+    @Override
+    public void destroy() {
+        for (ReactiveConnection connection : connections.values()) {
+            connection.pool.dispose();
+        }
+        connections.clear();
+    }
+
+    private ConnectionFactoryOptions.Builder baseOptions(String driver, String host, int port, String database,
+                                                         String username, String password, int connectTimeoutSeconds) {
+        if (host == null) {
+            throw new IllegalArgumentException("Connection has no host");
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.builder()
+            .option(ConnectionFactoryOptions.DRIVER, driver)
+            .option(ConnectionFactoryOptions.HOST, host);
+        // The options builder rejects null values, so unset fields are left to the driver's defaults
+        if (database != null) {
+            options.option(ConnectionFactoryOptions.DATABASE, database);
+        }
+        if (username != null) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (password != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        if (port > 0) {
+            options.option(ConnectionFactoryOptions.PORT, port);
+        }
+        if (connectTimeoutSeconds > 0) {
+            options.option(ConnectionFactoryOptions.CONNECT_TIMEOUT, Duration.ofSeconds(connectTimeoutSeconds));
+        }
+        return options;
+    }
+
+    /**
+     * The sslMode names in the connection definitions ("prefer", "require", ...) are PostgreSQL's;
+     * for MySQL, SSL on means REQUIRED
+     */
+    private static void applySsl(ConnectionFactoryOptions.Builder options, String driver, boolean useSsl, String sslMode) {
+        if (!useSsl) {
+            return;
+        }
+        options.option(ConnectionFactoryOptions.SSL, true);
+        if ("postgresql".equals(driver) && sslMode != null) {
+            options.option(Option.valueOf("sslMode"), sslMode);
+        }
+    }
+
+    /**
+     * R2DBC driver name for a database type, falling back to the default port when the type is missing
+     */
+    private static String driverFor(String dbType, int port) {
+        String type = dbType != null ? dbType.toLowerCase() : port == 3306 ? "mysql" : port == 5432 ? "postgresql" : "";
+        switch (type) {
+            case "postgresql":
+            case "postgres":
+                return "postgresql";
+            case "mysql":
+            case "mariadb":
+                return "mysql";
+            default:
+                throw new IllegalArgumentException("Reactive queries support PostgreSQL and MySQL only, not " + dbType);
+        }
+    }
+
+    private static Map<String, Object> toRow(Row row, RowMetadata metadata) {
+        List<? extends ColumnMetadata> columns = metadata.getColumnMetadatas();
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            values.put(columns.get(i).getName(), row.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * A registered connection definition and its R2DBC pool
+     */
+    private static class ReactiveConnection {
+        private final String id;
+        private final String name;
+        private final String driver;
+        private final String cloudProvider;
+        private final ConnectionPool pool;
+
+        ReactiveConnection(String id, String name, String driver, String cloudProvider, ConnectionPool pool) {
+            this.id = id;
+            this.name = name;
+            this.driver = driver;
+            this.cloudProvider = cloudProvider;
+            this.pool = pool;
+        }
+    }
+}
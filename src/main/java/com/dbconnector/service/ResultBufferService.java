@@ -0,0 +1,483 @@
+package com.dbconnector.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spills query results to disk so any page can be served again without re-running the query.
+ * Each result is a compact row file plus an index of row offsets, both memory-mapped once written,
+ * so reading a page is a seek to its first row. Results expire after a period without access,
+ * and the disk they use is capped per result and in total, evicting the least recently used first.
+ */
+@Service
+public class ResultBufferService implements DisposableBean {
+
+    private static final String DATA_SUFFIX = ".rows";
+    private static final String INDEX_SUFFIX = ".idx";
+    // Quota is reserved in chunks so writers do not contend on the shared counter for every row
+    private static final long RESERVE_CHUNK = 1024 * 1024;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DECIMAL = 6;
+    private static final byte TYPE_BOOLEAN = 7;
+    private static final byte TYPE_BYTES = 8;
+    private static final byte TYPE_TIMESTAMP = 9;
+    private static final byte TYPE_DATE = 10;
+    private static final byte TYPE_TIME = 11;
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Value("${app.result-buffer.directory:${java.io.tmpdir}/dbconnector-results}")
+    private String directory;
+
+    @Value("${app.result-buffer.ttl-ms:900000}")
+    private long ttlMs;
+
+    @Value("${app.result-buffer.max-result-bytes:268435456}")
+    private long maxResultBytes;
+
+    @Value("${app.result-buffer.max-total-bytes:2147483648}")
+    private long maxTotalBytes;
+
+    private final Map<String, ResultBuffer> buffers = new ConcurrentHashMap<>();
+    // Bytes reserved by writers plus bytes held by finished buffers
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+        // Handles do not survive a restart, so files left by a previous run are unreachable
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(root, "*.{rows,idx}")) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Start spilling a result; the caller writes every row, then completes or aborts the writer
+     */
+    public BufferWriter create(String connectionId, List<Map<String, Object>> columns) throws IOException {
+        String id = UUID.randomUUID().toString();
+        return new BufferWriter(id, connectionId, columns, root.resolve(id + DATA_SUFFIX), root.resolve(id + INDEX_SUFFIX));
+    }
+
+    /**
+     * One page of a buffered result, in the same shape as an executed query's result
+     */
+    public Map<String, Object> getPage(String handle, int page, int pageSize) {
+        ResultBuffer buffer = buffers.get(handle);
+        if (buffer == null || buffer.isExpired(ttlMs)) {
+            throw new IllegalArgumentException("Result not found or expired: " + handle);
+        }
+        if (page < 1 || pageSize < 1) {
+            throw new IllegalArgumentException("page and pageSize must be positive");
+        }
+        buffer.lastAccess = System.currentTimeMillis();
+
+        long startRow = (long) (page - 1) * pageSize;
+        long endRow = Math.min(startRow + pageSize, buffer.rowCount);
+        List<Map<String, Object>> data = new ArrayList<>();
+        if (startRow < buffer.rowCount) {
+            // Duplicates keep their own position, so pages can be read concurrently
+            ByteBuffer rows = buffer.data.duplicate();
+            rows.position((int) buffer.index.getLong((int) (startRow * Long.BYTES)));
+            int columnCount = buffer.columnNames.size();
+            for (long row = startRow; row < endRow; row++) {
+                Map<String, Object> values = new HashMap<>();
+                for (int i = 0; i < columnCount; i++) {
+                    values.put(buffer.columnNames.get(i), readValue(rows));
+                }
+                data.add(values);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("columns", buffer.columns);
+        result.put("data", data);
+        result.put("currentPage", page);
+        result.put("pageSize", pageSize);
+        result.put("hasMore", endRow < buffer.rowCount);
+        result.put("totalRows", buffer.rowCount);
+        result.put("resultHandle", handle);
+        result.put("expiresAt", buffer.lastAccess + ttlMs);
+        return result;
+    }
+
+    public boolean release(String handle) {
+        ResultBuffer buffer = buffers.remove(handle);
+        if (buffer == null) {
+            return false;
+        }
+        delete(buffer);
+        return true;
+    }
+
+    public Map<String, Object> getStatistics() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (ResultBuffer buffer : buffers.values()) {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("resultHandle", buffer.id);
+            stats.put("connectionId", buffer.connectionId);
+            stats.put("rows", buffer.rowCount);
+            stats.put("bytes", buffer.bytes);
+            stats.put("createdAt", buffer.createdAt);
+            stats.put("expiresAt", buffer.lastAccess + ttlMs);
+            results.add(stats);
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("success", true);
+        statistics.put("results", results);
+        statistics.put("usedBytes", reservedBytes.get());
+        statistics.put("maxTotalBytes", maxTotalBytes);
+        statistics.put("maxResultBytes", maxResultBytes);
+        return statistics;
+    }
+
+    @Scheduled(fixedDelayString = "${app.result-buffer.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        for (ResultBuffer buffer : buffers.values()) {
+            if (buffer.isExpired(ttlMs) && buffers.remove(buffer.id, buffer)) {
+                delete(buffer);
+                loggingService.logDebug("Expired result buffer " + buffer.id);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (ResultBuffer buffer : buffers.values()) {
+            delete(buffer);
+        }
+        buffers.clear();
+    }
+
+    /**
+     * Reserve disk for a writer, evicting the least recently used results if the total quota is full
+     */
+    private boolean reserve(long bytes) {
+        while (true) {
+            long used = reservedBytes.get();
+            if (used + bytes <= maxTotalBytes) {
+                if (reservedBytes.compareAndSet(used, used + bytes)) {
+                    return true;
+                }
+                continue;
+            }
+            ResultBuffer oldest = null;
+            for (ResultBuffer buffer : buffers.values()) {
+                if (oldest == null || buffer.lastAccess < oldest.lastAccess) {
+                    oldest = buffer;
+                }
+            }
+            if (oldest == null) {
+                return false;
+            }
+            if (buffers.remove(oldest.id, oldest)) {
+                delete(oldest);
+                loggingService.logInfo("Evicted result buffer " + oldest.id + " to stay within the disk quota");
+            }
+        }
+    }
+
+    private void delete(ResultBuffer buffer) {
+        reservedBytes.addAndGet(-buffer.bytes);
+        deleteFiles(buffer.id);
+    }
+
+    private void deleteFiles(String id) {
+        try {
+            // A file still mapped by an in-flight page read stays readable until that mapping is collected
+            Files.deleteIfExists(root.resolve(id + DATA_SUFFIX));
+            Files.deleteIfExists(root.resolve(id + INDEX_SUFFIX));
+        } catch (IOException e) {
+            loggingService.logError("Error deleting result buffer " + id, e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TYPE_INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof BigDecimal || value instanceof java.math.BigInteger) {
+            out.writeByte(TYPE_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            out.writeByte(TYPE_BYTES);
+            out.writeInt(((byte[]) value).length);
+            out.write((byte[]) value);
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TYPE_TIMESTAMP);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof java.sql.Date) {
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte(TYPE_TIME);
+            out.writeLong(((Time) value).getTime());
+        } else {
+            // Vendor types (UUIDs, JSON, arrays, ...) are kept as their text
+            out.writeByte(TYPE_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_INT:
+                return in.getInt();
+            case TYPE_LONG:
+                return in.getLong();
+            case TYPE_DOUBLE:
+                return in.getDouble();
+            case TYPE_FLOAT:
+                return in.getFloat();
+            case TYPE_DECIMAL:
+                return new BigDecimal(readString(in));
+            case TYPE_BOOLEAN:
+                return in.get() != 0;
+            case TYPE_BYTES: {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                return bytes;
+            }
+            case TYPE_TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(in.getLong());
+                timestamp.setNanos(in.getInt());
+                return timestamp;
+            }
+            case TYPE_DATE:
+                return new java.sql.Date(in.getLong());
+            case TYPE_TIME:
+                return new Time(in.getLong());
+            default:
+                throw new IllegalStateException("Corrupt result buffer: unknown value type " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Writes one result to disk. Not thread-safe; a query's reading thread owns it.
+     */
+    public class BufferWriter {
+        private final String id;
+        private final String connectionId;
+        private final List<Map<String, Object>> columns;
+        private final List<String> columnNames = new ArrayList<>();
+        private final Path dataFile;
+        private final Path indexFile;
+        private final DataOutputStream data;
+        private final DataOutputStream index;
+        private long rowCount;
+        private long reserved;
+        private boolean finished;
+        private String error;
+
+        BufferWriter(String id, String connectionId, List<Map<String, Object>> columns, Path dataFile, Path indexFile)
+                throws IOException {
+            this.id = id;
+            this.connectionId = connectionId;
+            this.columns = columns;
+            for (Map<String, Object> column : columns) {
+                columnNames.add((String) column.get("name"));
+            }
+            this.dataFile = dataFile;
+            this.indexFile = indexFile;
+            this.data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile), 65536));
+            try {
+                this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 65536));
+            } catch (IOException e) {
+                data.close();
+                Files.deleteIfExists(dataFile);
+                throw e;
+            }
+        }
+
+        /**
+         * Append a row; returns false, and gives up on the buffer, once it cannot stay within its quotas
+         */
+        public boolean write(Object[] row) {
+            if (finished) {
+                return false;
+            }
+            try {
+                long offset = data.size();
+                index.writeLong(offset);
+                for (Object value : row) {
+                    writeValue(data, value);
+                }
+                rowCount++;
+
+                // Row offsets are read through an int-indexed mapping, so a result must stay under 2GB
+                long used = (long) data.size() + index.size();
+                if (used > Math.min(maxResultBytes, Integer.MAX_VALUE - RESERVE_CHUNK)) {
+                    abort("Result exceeds the " + maxResultBytes + " byte buffer limit");
+                    return false;
+                }
+                while (used > reserved) {
+                    if (!reserve(RESERVE_CHUNK)) {
+                        abort("Result buffer disk quota is full");
+                        return false;
+                    }
+                    reserved += RESERVE_CHUNK;
+                }
+                return true;
+            } catch (IOException e) {
+                abort("Error writing result buffer: " + e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * Finish writing and make the result available under its handle
+         */
+        public String complete() throws IOException {
+            if (finished) {
+                throw new IllegalStateException("Result buffer already " + (error != null ? "aborted" : "completed"));
+            }
+            finished = true;
+            try {
+                data.close();
+                index.close();
+                ResultBuffer buffer = new ResultBuffer(id, connectionId, columns, columnNames, rowCount,
+                    map(dataFile), map(indexFile), Files.size(dataFile) + Files.size(indexFile));
+                // Give back what was reserved beyond the final size
+                reservedBytes.addAndGet(buffer.bytes - reserved);
+                buffers.put(id, buffer);
+                loggingService.logDebug("Buffered " + rowCount + " rows (" + buffer.bytes + " bytes) as result " + id);
+                return id;
+            } catch (IOException e) {
+                reservedBytes.addAndGet(-reserved);
+                deleteFiles(id);
+                throw e;
+            }
+        }
+
+        /**
+         * Discard a partly written result
+         */
+        public void abort(String reason) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            error = reason;
+            try {
+                data.close();
+                index.close();
+            } catch (IOException e) {
+                // Being deleted anyway
+            }
+            reservedBytes.addAndGet(-reserved);
+            deleteFiles(id);
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getExpiresAt() {
+            return System.currentTimeMillis() + ttlMs;
+        }
+    }
+
+    /**
+     * A finished result on disk
+     */
+    private static class ResultBuffer {
+        private final String id;
+        private final String connectionId;
+        private final List<Map<String, Object>> columns;
+        private final List<String> columnNames;
+        private final long rowCount;
+        private final MappedByteBuffer data;
+        private final MappedByteBuffer index;
+        private final long bytes;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastAccess = createdAt;
+
+        ResultBuffer(String id, String connectionId, List<Map<String, Object>> columns, List<String> columnNames,
+                     long rowCount, MappedByteBuffer data, MappedByteBuffer index, long bytes) {
+            this.id = id;
+            this.connectionId = connectionId;
+            this.columns = columns;
+            this.columnNames = columnNames;
+            this.rowCount = rowCount;
+            this.data = data;
+            this.index = index;
+            this.bytes = bytes;
+        }
+
+        boolean isExpired(long ttlMs) {
+            return System.currentTimeMillis() - lastAccess > ttlMs;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.dbconnector.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class SchemaService {
@@ -14,6 +16,12 @@ public class SchemaService {
     
     @Autowired
     private LoggingService loggingService;
+    
+    @Value("${app.schema.structure-cache-ttl-ms:300000}")
+    private long structureCacheTtlMs;
+    
+    // Table structures by connection, schema and table, for callers that validate identifiers per request
+    private final Map<String, CachedStructure> structureCache = new ConcurrentHashMap<>();
 
     public Map<String, Object> getDatabases(String connectionId) throws SQLException {
         Connection connection = connectionService.getConnection(connectionId);
@@ -106,7 +114,9 @@ public class SchemaService {
                 Map<String, Object> column = new HashMap<>();
                 column.put("name", rs.getString("COLUMN_NAME"));
                 column.put("type", rs.getString("TYPE_NAME"));
+                column.put("sqlType", rs.getInt("DATA_TYPE"));
                 column.put("size", rs.getInt("COLUMN_SIZE"));
+                column.put("decimalDigits", rs.getInt("DECIMAL_DIGITS"));
                 column.put("nullable", rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
                 column.put("defaultValue", rs.getString("COLUMN_DEF"));
                 column.put("position", rs.getInt("ORDINAL_POSITION"));
@@ -135,6 +145,31 @@ public class SchemaService {
         return structure;
     }
 
+    /**
+     * Table structure from a short-lived cache; missing tables are not cached
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getCachedTableStructure(String connectionId, String tableName, String schema) throws SQLException {
+        String key = connectionId + "\u0000" + (schema != null ? schema : "") + "\u0000" + tableName;
+        CachedStructure cached = structureCache.get(key);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < structureCacheTtlMs) {
+            return cached.structure;
+        }
+        
+        Map<String, Object> structure = getTableStructure(connectionId, tableName, schema);
+        if (!((List<Map<String, Object>>) structure.get("columns")).isEmpty()) {
+            structureCache.put(key, new CachedStructure(structure));
+        }
+        return structure;
+    }
+
+    /**
+     * Drop cached structures for a connection, e.g. after DDL
+     */
+    public void invalidateStructureCache(String connectionId) {
+        structureCache.keySet().removeIf(key -> key.startsWith(connectionId + "\u0000"));
+    }
+
     public Map<String, Object> getTableIndexes(String connectionId, String tableName, String schema) throws SQLException {
         Connection connection = connectionService.getConnection(connectionId);
         if (connection == null) {
@@ -245,4 +280,13 @@ public class SchemaService {
         result.put("procedures", procedures);
         return result;
     }
+
+    private static class CachedStructure {
+        private final Map<String, Object> structure;
+        private final long loadedAt = System.currentTimeMillis();
+        
+        CachedStructure(Map<String, Object> structure) {
+            this.structure = structure;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,767 @@
+package com.dbconnector.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares a table on two connections without transferring it. The key range is split into
+ * segments, each server hashes its segments with one grouped aggregate query, and only segments
+ * whose row count or hash sum differ are split again, Merkle-style, until they are small enough to
+ * fetch from both sides and compare row by row. A matching segment costs one result row however
+ * many rows it holds.
+ */
+@Service
+public class TableDiffService {
+
+    public static final String STATE_RUNNING = "running";
+    public static final String STATE_COMPLETED = "completed";
+    public static final String STATE_FAILED = "failed";
+    public static final String STATE_CANCELLED = "cancelled";
+
+    public static final String DIFF_CHANGED = "changed";
+    public static final String DIFF_MISSING_IN_TARGET = "missing_in_target";
+    public static final String DIFF_MISSING_IN_SOURCE = "missing_in_source";
+
+    private static final int MAX_FINISHED_JOBS = 50;
+
+    @Autowired
+    private EnhancedConnectionPoolService connectionPoolService;
+
+    @Autowired
+    private SchemaService schemaService;
+
+    @Autowired
+    private DialectService dialectService;
+
+    @Autowired
+    private WorkloadExecutorService executorService;
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Value("${app.diff.fanout:16}")
+    private int fanout;
+
+    @Value("${app.diff.leaf-rows:500}")
+    private int leafRows;
+
+    @Value("${app.diff.max-differences:1000}")
+    private int maxDifferences;
+
+    private final Map<String, DiffJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Check both tables can be compared and start comparing them in the background
+     */
+    public Map<String, Object> startDiff(DiffRequest request) throws SQLException {
+        request.validate();
+        // The job runs for minutes on its own connections; the shared one serves every request and can be closed under it
+        if (connectionPoolService.getDataSource(request.sourceConnectionId) == null) {
+            throw new SQLException("Diffing needs a connection pool for the source; connect it as a saved connection");
+        }
+        if (connectionPoolService.getDataSource(request.targetConnectionId) == null) {
+            throw new SQLException("Diffing needs a connection pool for the target; connect it as a saved connection");
+        }
+        Map<String, Object> sourceStructure = schemaService.getTableStructure(
+            request.sourceConnectionId, request.sourceTable, request.sourceSchema);
+        Map<String, Object> targetStructure = schemaService.getTableStructure(
+            request.targetConnectionId, request.targetTable, request.targetSchema);
+
+        String keyColumn = request.keyColumn != null ? request.keyColumn : singlePrimaryKey(sourceStructure);
+        Map<String, Map<String, Object>> sourceColumns = columnsByName(sourceStructure);
+        Map<String, Map<String, Object>> targetColumns = columnsByName(targetStructure);
+        Map<String, Object> key = sourceColumns.get(keyColumn.toLowerCase(Locale.ROOT));
+        if (key == null || !targetColumns.containsKey(keyColumn.toLowerCase(Locale.ROOT))) {
+            throw new SQLException("Key column " + keyColumn + " must exist in both tables");
+        }
+
+        // Columns present on both sides, in source order, always including the key
+        Set<String> wanted = null;
+        if (request.columns != null && !request.columns.isEmpty()) {
+            wanted = new HashSet<>();
+            for (String column : request.columns) {
+                wanted.add(column.toLowerCase(Locale.ROOT));
+            }
+            wanted.add(keyColumn.toLowerCase(Locale.ROOT));
+        }
+        List<String> sourceNames = new ArrayList<>();
+        List<String> targetNames = new ArrayList<>();
+        List<Integer> sourceTypes = new ArrayList<>();
+        List<Integer> targetTypes = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> column : sourceColumns.entrySet()) {
+            Map<String, Object> targetColumn = targetColumns.get(column.getKey());
+            if (targetColumn != null && (wanted == null || wanted.contains(column.getKey()))) {
+                sourceNames.add((String) column.getValue().get("name"));
+                targetNames.add((String) targetColumn.get("name"));
+                sourceTypes.add(hashType(column.getValue()));
+                targetTypes.add(hashType(targetColumn));
+            }
+        }
+        int keyIndex = sourceNames.indexOf((String) key.get("name"));
+
+        int sqlType = (Integer) key.get("sqlType");
+        boolean integerKey = sqlType == Types.TINYINT || sqlType == Types.SMALLINT || sqlType == Types.INTEGER ||
+            sqlType == Types.BIGINT ||
+            ((sqlType == Types.NUMERIC || sqlType == Types.DECIMAL) && ((Integer) key.get("decimalDigits")) == 0);
+        boolean characterKey = sqlType == Types.CHAR || sqlType == Types.VARCHAR || sqlType == Types.LONGVARCHAR ||
+            sqlType == Types.NCHAR || sqlType == Types.NVARCHAR || sqlType == Types.LONGNVARCHAR;
+
+        TableSide source = side(request.sourceConnectionId, request.sourceSchema, request.sourceTable, sourceNames,
+            sourceTypes, keyIndex, characterKey);
+        TableSide target = null;
+        try {
+            target = side(request.targetConnectionId, request.targetSchema, request.targetTable, targetNames,
+                targetTypes, keyIndex, characterKey);
+            if (characterKey && !source.dialect.equals(target.dialect)) {
+                // Split points taken from one side must bound the same rows on the other, and byte order differs by engine
+                throw new SQLException("Character key " + keyColumn + " cannot be compared between " + source.dialect +
+                    " and " + target.dialect + "; use a numeric or date key");
+            }
+        } catch (SQLException | RuntimeException e) {
+            release(source);
+            release(target);
+            throw e;
+        }
+
+        pruneFinishedJobs();
+        DiffJob job = new DiffJob(request, source, target, sourceNames, integerKey);
+        jobs.put(job.id, job);
+        loggingService.logAudit("Started table diff " + job.id + " of " + request.sourceTable + " on " +
+            request.sourceConnectionId + " against " + request.targetTable + " on " + request.targetConnectionId);
+
+        try {
+            executorService.executor(WorkloadExecutorService.WORKLOAD_DIFF).execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            job.finish(STATE_FAILED, e);
+            release(source);
+            release(target);
+            throw new SQLException("Diff executor is not accepting work", e);
+        }
+        return job.toMap(false);
+    }
+
+    /**
+     * Progress and, once finished, the differences found
+     */
+    public Map<String, Object> getDiff(String jobId) {
+        DiffJob job = jobs.get(jobId);
+        return job != null ? job.toMap(true) : null;
+    }
+
+    public List<Map<String, Object>> getDiffs() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (DiffJob job : jobs.values()) {
+            result.add(job.toMap(false));
+        }
+        result.sort(Comparator.comparing(m -> (Long) m.get("startedAt")));
+        return result;
+    }
+
+    public boolean cancel(String jobId) {
+        DiffJob job = jobs.get(jobId);
+        if (job == null || !STATE_RUNNING.equals(job.state)) {
+            return false;
+        }
+        job.cancelled = true;
+        Statement running = job.activeStatement;
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                loggingService.logDebug("Could not cancel diff query: " + e.getMessage());
+            }
+        }
+        loggingService.logAudit("Cancelled table diff " + jobId);
+        return true;
+    }
+
+    private void run(DiffJob job) {
+        try {
+            Range root = rootRange(job);
+            Deque<Range> pending = new ArrayDeque<>();
+            if (root != null) {
+                pending.push(root);
+            }
+            while (!pending.isEmpty() && !job.isStopping()) {
+                Range range = pending.pop();
+                List<Object> checkpoints = checkpoints(job, range);
+                if (checkpoints.isEmpty()) {
+                    compareRows(job, range);
+                    continue;
+                }
+
+                Map<Integer, Bucket> sourceBuckets = hashBuckets(job, job.source, range, checkpoints);
+                Map<Integer, Bucket> targetBuckets = hashBuckets(job, job.target, range, checkpoints);
+                List<Range> mismatched = new ArrayList<>();
+                for (int i = 0; i <= checkpoints.size(); i++) {
+                    Bucket sourceBucket = sourceBuckets.getOrDefault(i, Bucket.EMPTY);
+                    Bucket targetBucket = targetBuckets.getOrDefault(i, Bucket.EMPTY);
+                    job.bucketsCompared.increment();
+                    if (sourceBucket.matches(targetBucket)) {
+                        job.rowsMatched.add(sourceBucket.rows);
+                        continue;
+                    }
+                    Range segment = range.segment(i, checkpoints, sourceBucket.rows, targetBucket.rows);
+                    if (Math.max(sourceBucket.rows, targetBucket.rows) <= leafRows) {
+                        compareRows(job, segment);
+                    } else {
+                        mismatched.add(segment);
+                    }
+                }
+                // Pushed in reverse so segments are examined in key order
+                for (int i = mismatched.size() - 1; i >= 0; i--) {
+                    pending.push(mismatched.get(i));
+                }
+            }
+            job.finish(job.cancelled ? STATE_CANCELLED : STATE_COMPLETED, null);
+        } catch (SQLException | RuntimeException e) {
+            job.finish(job.cancelled ? STATE_CANCELLED : STATE_FAILED, e);
+            if (!job.cancelled) {
+                loggingService.logError("Table diff " + job.id + " failed", e);
+            }
+        } finally {
+            release(job.source);
+            release(job.target);
+        }
+        loggingService.logInfo("Table diff " + job.id + " " + job.state + ": " + job.differences.size() +
+            " differences, " + job.rowsMatched.sum() + " rows matched by hash, " + job.rowsFetched.sum() + " rows fetched");
+    }
+
+    /**
+     * Whole-table range; integer keys get explicit bounds from both sides so they can be split arithmetically
+     */
+    private Range rootRange(DiffJob job) throws SQLException {
+        if (!job.integerKey) {
+            return new Range(null, null, true, Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+        long[] sourceBounds = keyBounds(job, job.source);
+        long[] targetBounds = keyBounds(job, job.target);
+        if (sourceBounds == null && targetBounds == null) {
+            return null;
+        }
+        long min = sourceBounds == null ? targetBounds[0] : targetBounds == null ? sourceBounds[0] : Math.min(sourceBounds[0], targetBounds[0]);
+        long max = sourceBounds == null ? targetBounds[1] : targetBounds == null ? sourceBounds[1] : Math.max(sourceBounds[1], targetBounds[1]);
+        return new Range(min, max, true, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    private long[] keyBounds(DiffJob job, TableSide side) throws SQLException {
+        String sql = "SELECT MIN(" + side.key + "), MAX(" + side.key + ") FROM " + side.table;
+        try (Statement statement = side.connection.createStatement()) {
+            job.activeStatement = statement;
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                rs.next();
+                BigDecimal min = rs.getBigDecimal(1);
+                BigDecimal max = rs.getBigDecimal(2);
+                return min == null ? null : new long[] { min.longValueExact(), max.longValueExact() };
+            }
+        } finally {
+            job.activeStatement = null;
+        }
+    }
+
+    /**
+     * Split points inside a range, or none when it cannot be split further. Integer keys are split
+     * evenly by value; other keys at row quantiles of whichever side has rows there, character keys
+     * ordered by their bytes so both sides agree on which rows a split point bounds.
+     */
+    private List<Object> checkpoints(DiffJob job, Range range) throws SQLException {
+        List<Object> checkpoints = new ArrayList<>();
+        if (job.integerKey) {
+            long lo = (Long) range.lo;
+            long end = (Long) range.hi + (range.hiInclusive ? 1 : 0);
+            long width = end - lo;
+            if (width <= 1) {
+                return checkpoints;
+            }
+            long step = (width + fanout - 1) / fanout;
+            for (long point = lo + step; point < end; point += step) {
+                checkpoints.add(point);
+            }
+            return checkpoints;
+        }
+
+        // A side with at most one row in the range cannot be split, so fall back to the other one
+        TableSide preferred = range.sourceRows > 0 ? job.source : job.target;
+        checkpoints = quantiles(job, preferred, range);
+        long otherRows = preferred == job.source ? range.targetRows : range.sourceRows;
+        if (checkpoints.isEmpty() && otherRows > 1) {
+            checkpoints = quantiles(job, preferred == job.source ? job.target : job.source, range);
+        }
+        return checkpoints;
+    }
+
+    private List<Object> quantiles(DiffJob job, TableSide side, Range range) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String where = rangePredicate(side.key, range, params);
+        String sql = "SELECT MIN(diff_key__) FROM (SELECT " + side.key + " AS diff_key__, NTILE(" + fanout + ") OVER (ORDER BY " +
+            side.key + ") AS diff_tile__ FROM " + side.table + " WHERE " + where + ") diff_range__ GROUP BY diff_tile__ ORDER BY 1";
+        List<Object> checkpoints = new ArrayList<>();
+        try (PreparedStatement statement = side.connection.prepareStatement(sql)) {
+            job.activeStatement = statement;
+            bind(statement, params, 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                // The first tile starts at the range's own lower bound
+                boolean first = true;
+                while (rs.next()) {
+                    if (!first) {
+                        checkpoints.add(rs.getObject(1));
+                    }
+                    first = false;
+                }
+            }
+        } finally {
+            job.activeStatement = null;
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Row count and hash sum of each segment of a range, in one grouped query
+     */
+    private Map<Integer, Bucket> hashBuckets(DiffJob job, TableSide side, Range range, List<Object> checkpoints)
+            throws SQLException {
+        StringBuilder bucket = new StringBuilder("CASE");
+        for (int i = 0; i < checkpoints.size(); i++) {
+            bucket.append(" WHEN ").append(side.key).append(" < ? THEN ").append(i);
+        }
+        bucket.append(" ELSE ").append(checkpoints.size()).append(" END");
+
+        List<Object> params = new ArrayList<>(checkpoints);
+        String where = rangePredicate(side.key, range, params);
+        String sql = "SELECT diff_bucket__, COUNT(*), " + side.hashSum + " FROM (SELECT " + bucket + " AS diff_bucket__, " +
+            String.join(", ", side.columns) + " FROM " + side.table + " WHERE " + where + ") diff_range__ GROUP BY diff_bucket__";
+
+        Map<Integer, Bucket> buckets = new HashMap<>();
+        try (PreparedStatement statement = side.connection.prepareStatement(sql)) {
+            job.activeStatement = statement;
+            bind(statement, params, 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    buckets.put(rs.getInt(1), new Bucket(rs.getLong(2), rs.getBigDecimal(3)));
+                }
+            }
+        } finally {
+            job.activeStatement = null;
+        }
+        job.hashQueries.increment();
+        return buckets;
+    }
+
+    /**
+     * Fetch a small range from both sides and record the rows that differ
+     */
+    private void compareRows(DiffJob job, Range range) throws SQLException {
+        Map<String, Object[]> sourceRows = fetchRows(job, job.source, range);
+        Map<String, Object[]> targetRows = fetchRows(job, job.target, range);
+        job.rangesFetched.increment();
+
+        for (Map.Entry<String, Object[]> entry : sourceRows.entrySet()) {
+            Object[] sourceRow = entry.getValue();
+            Object[] targetRow = targetRows.remove(entry.getKey());
+            if (targetRow == null) {
+                job.addDifference(sourceRow[job.source.keyIndex], DIFF_MISSING_IN_TARGET, null, maxDifferences);
+                continue;
+            }
+            List<String> changed = new ArrayList<>();
+            for (int i = 0; i < sourceRow.length; i++) {
+                if (!Objects.equals(normalize(sourceRow[i]), normalize(targetRow[i]))) {
+                    changed.add(job.columnNames.get(i));
+                }
+            }
+            if (!changed.isEmpty()) {
+                job.addDifference(sourceRow[job.source.keyIndex], DIFF_CHANGED, changed, maxDifferences);
+            }
+        }
+        for (Object[] targetRow : targetRows.values()) {
+            job.addDifference(targetRow[job.target.keyIndex], DIFF_MISSING_IN_SOURCE, null, maxDifferences);
+        }
+    }
+
+    private Map<String, Object[]> fetchRows(DiffJob job, TableSide side, Range range) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + String.join(", ", side.columns) + " FROM " + side.table + " WHERE " +
+            rangePredicate(side.key, range, params);
+        // Keyed by normalized key, since the two servers may order keys differently
+        Map<String, Object[]> rows = new LinkedHashMap<>();
+        try (PreparedStatement statement = side.connection.prepareStatement(sql)) {
+            job.activeStatement = statement;
+            bind(statement, params, 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                while (rs.next()) {
+                    Object[] row = new Object[columnCount];
+                    for (int i = 1; i <= columnCount; i++) {
+                        row[i - 1] = DataCopyService.readValue(rs, i, metaData.getColumnType(i));
+                    }
+                    rows.put(normalize(row[side.keyIndex]), row);
+                }
+            }
+        } finally {
+            job.activeStatement = null;
+        }
+        job.rowsFetched.add(rows.size());
+        return rows;
+    }
+
+    /**
+     * One side of the diff on a pooled connection of its own, which run() closes when the job ends
+     */
+    private TableSide side(String connectionId, String schema, String table, List<String> columnNames,
+                           List<Integer> sqlTypes, int keyIndex, boolean characterKey) throws SQLException {
+        Connection connection = connectionPoolService.getConnection(connectionId);
+        try {
+            return side(connection, schema, table, columnNames, sqlTypes, keyIndex, characterKey);
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private TableSide side(Connection connection, String schema, String table, List<String> columnNames,
+                           List<Integer> sqlTypes, int keyIndex, boolean characterKey) throws SQLException {
+        Dialect dialect = dialectService.forConnection(connection);
+        List<String> columns = new ArrayList<>();
+        for (String name : columnNames) {
+            columns.add(dialect.quoteIdentifier(name));
+        }
+        String hashSum = dialect.rowHashSum(columns, sqlTypes);
+        if (hashSum == null) {
+            throw new SQLException("The " + dialect.getName() + " dialect cannot hash rows on the server");
+        }
+        String key = columns.get(keyIndex);
+        if (characterKey) {
+            key = dialect.binarySortKey(key);
+            if (key == null) {
+                throw new SQLException("The " + dialect.getName() + " dialect cannot order character keys by their bytes");
+            }
+        }
+        String quotedTable = dialect.quoteIdentifier(table);
+        return new TableSide(connection, dialect.getName(),
+            schema != null && !schema.isEmpty() ? dialect.quoteIdentifier(schema) + "." + quotedTable : quotedTable,
+            columns, key, keyIndex, hashSum);
+    }
+
+    private void release(TableSide side) {
+        if (side == null) {
+            return;
+        }
+        try {
+            side.connection.close();
+        } catch (SQLException e) {
+            loggingService.logDebug("Error returning diff connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Type a column hashes as; drivers that report zoned timestamps as plain ones still name the zone in the type
+     */
+    private static int hashType(Map<String, Object> column) {
+        int sqlType = (Integer) column.get("sqlType");
+        String typeName = String.valueOf(column.get("type")).toLowerCase(Locale.ROOT);
+        if (typeName.equals("timestamptz") || typeName.contains("time zone") || typeName.equals("datetimeoffset")) {
+            return Types.TIMESTAMP_WITH_TIMEZONE;
+        }
+        return sqlType;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String singlePrimaryKey(Map<String, Object> structure) throws SQLException {
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) structure.get("primaryKeys");
+        if (keys.size() != 1) {
+            throw new SQLException("Table needs a single-column primary key or an explicit keyColumn");
+        }
+        return (String) keys.get(0).get("columnName");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> columnsByName(Map<String, Object> structure) {
+        List<Map<String, Object>> columns = new ArrayList<>((List<Map<String, Object>>) structure.get("columns"));
+        columns.sort(Comparator.comparingInt(c -> (Integer) c.get("position")));
+        Map<String, Map<String, Object>> byName = new LinkedHashMap<>();
+        for (Map<String, Object> column : columns) {
+            byName.put(((String) column.get("name")).toLowerCase(Locale.ROOT), column);
+        }
+        return byName;
+    }
+
+    private static String rangePredicate(String key, Range range, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (range.lo != null) {
+            conditions.add(key + " >= ?");
+            params.add(range.lo);
+        }
+        if (range.hi != null) {
+            conditions.add(key + (range.hiInclusive ? " <= ?" : " < ?"));
+            params.add(range.hi);
+        }
+        return conditions.isEmpty() ? "1 = 1" : String.join(" AND ", conditions);
+    }
+
+    private static void bind(PreparedStatement statement, List<Object> params, int first) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            statement.setObject(first + i, params.get(i));
+        }
+    }
+
+    /**
+     * Text form used to compare a value read from one database with one read from another
+     */
+    static String normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "1" : "0";
+        }
+        if (value instanceof Number) {
+            try {
+                BigDecimal number = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+                return number.signum() == 0 ? "0" : number.stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                // NaN and infinities
+                return value.toString();
+            }
+        }
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toString();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().toString();
+        }
+        if (value instanceof Time) {
+            return ((Time) value).toLocalTime().toString();
+        }
+        if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant().toString();
+        }
+        return value.toString();
+    }
+
+    private void pruneFinishedJobs() {
+        List<DiffJob> finished = new ArrayList<>();
+        for (DiffJob job : jobs.values()) {
+            if (!STATE_RUNNING.equals(job.state)) {
+                finished.add(job);
+            }
+        }
+        finished.sort(Comparator.comparingLong(j -> j.finishedAt));
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    /**
+     * The two tables to compare
+     */
+    public static class DiffRequest {
+        private String sourceConnectionId;
+        private String sourceSchema;
+        private String sourceTable;
+        private String targetConnectionId;
+        private String targetSchema;
+        private String targetTable;
+        private String keyColumn;
+        private List<String> columns;
+
+        @SuppressWarnings("unchecked")
+        public static DiffRequest fromMap(Map<String, Object> values) {
+            DiffRequest request = new DiffRequest();
+            request.sourceConnectionId = (String) values.get("sourceConnectionId");
+            request.sourceSchema = (String) values.get("sourceSchema");
+            request.sourceTable = (String) values.get("sourceTable");
+            request.targetConnectionId = (String) values.get("targetConnectionId");
+            request.targetSchema = (String) values.get("targetSchema");
+            request.targetTable = (String) values.get("targetTable");
+            request.keyColumn = (String) values.get("keyColumn");
+            request.columns = (List<String>) values.get("columns");
+            if (request.targetTable == null) {
+                request.targetTable = request.sourceTable;
+            }
+            return request;
+        }
+
+        void validate() {
+            if (sourceConnectionId == null || targetConnectionId == null || sourceTable == null) {
+                throw new IllegalArgumentException("sourceConnectionId, targetConnectionId and sourceTable are required");
+            }
+        }
+    }
+
+    /**
+     * One side of the comparison with its dialect-specific SQL fragments
+     */
+    private static class TableSide {
+        private final Connection connection;
+        private final String dialect;
+        private final String table;
+        private final List<String> columns;
+        // Expression ranges compare keys by: the quoted key column, or its binary sort key for character keys
+        private final String key;
+        private final int keyIndex;
+        private final String hashSum;
+
+        TableSide(Connection connection, String dialect, String table, List<String> columns, String key, int keyIndex,
+                  String hashSum) {
+            this.connection = connection;
+            this.dialect = dialect;
+            this.table = table;
+            this.columns = columns;
+            this.key = key;
+            this.keyIndex = keyIndex;
+            this.hashSum = hashSum;
+        }
+    }
+
+    /**
+     * Key range from lo (inclusive, null for unbounded) to hi, with the row counts each side reported for it
+     */
+    private static class Range {
+        private final Object lo;
+        private final Object hi;
+        private final boolean hiInclusive;
+        private final long sourceRows;
+        private final long targetRows;
+
+        Range(Object lo, Object hi, boolean hiInclusive, long sourceRows, long targetRows) {
+            this.lo = lo;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.sourceRows = sourceRows;
+            this.targetRows = targetRows;
+        }
+
+        /**
+         * The i-th of the segments the checkpoints cut this range into
+         */
+        Range segment(int i, List<Object> checkpoints, long sourceRows, long targetRows) {
+            Object segmentLo = i == 0 ? lo : checkpoints.get(i - 1);
+            if (i == checkpoints.size()) {
+                return new Range(segmentLo, hi, hiInclusive, sourceRows, targetRows);
+            }
+            return new Range(segmentLo, checkpoints.get(i), false, sourceRows, targetRows);
+        }
+    }
+
+    private static class Bucket {
+        private static final Bucket EMPTY = new Bucket(0, null);
+
+        private final long rows;
+        private final BigDecimal hashSum;
+
+        Bucket(long rows, BigDecimal hashSum) {
+            this.rows = rows;
+            this.hashSum = hashSum;
+        }
+
+        boolean matches(Bucket other) {
+            if (rows != other.rows) {
+                return false;
+            }
+            return hashSum == null ? other.hashSum == null : other.hashSum != null && hashSum.compareTo(other.hashSum) == 0;
+        }
+    }
+
+    /**
+     * A running or finished comparison
+     */
+    private static class DiffJob {
+        private final String id = UUID.randomUUID().toString();
+        private final DiffRequest request;
+        private final TableSide source;
+        private final TableSide target;
+        private final List<String> columnNames;
+        private final boolean integerKey;
+        private final long startedAt = System.currentTimeMillis();
+        private final LongAdder hashQueries = new LongAdder();
+        private final LongAdder bucketsCompared = new LongAdder();
+        private final LongAdder rowsMatched = new LongAdder();
+        private final LongAdder rangesFetched = new LongAdder();
+        private final LongAdder rowsFetched = new LongAdder();
+        private final List<Map<String, Object>> differences = Collections.synchronizedList(new ArrayList<>());
+        private volatile String state = STATE_RUNNING;
+        private volatile String error;
+        private volatile boolean truncated;
+        private volatile boolean cancelled;
+        private volatile Statement activeStatement;
+        private volatile long finishedAt;
+
+        DiffJob(DiffRequest request, TableSide source, TableSide target, List<String> columnNames, boolean integerKey) {
+            this.request = request;
+            this.source = source;
+            this.target = target;
+            this.columnNames = columnNames;
+            this.integerKey = integerKey;
+        }
+
+        boolean isStopping() {
+            return cancelled || truncated;
+        }
+
+        void addDifference(Object key, String type, List<String> columns, int maxDifferences) {
+            if (differences.size() >= maxDifferences) {
+                truncated = true;
+                return;
+            }
+            Map<String, Object> difference = new HashMap<>();
+            difference.put("key", key);
+            difference.put("type", type);
+            if (columns != null) {
+                difference.put("columns", columns);
+            }
+            differences.add(difference);
+        }
+
+        void finish(String finalState, Throwable cause) {
+            if (cause != null) {
+                error = cause.getMessage();
+            }
+            finishedAt = System.currentTimeMillis();
+            state = finalState;
+        }
+
+        Map<String, Object> toMap(boolean includeDifferences) {
+            long now = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            Map<String, Object> map = new HashMap<>();
+            map.put("success", true);
+            map.put("jobId", id);
+            map.put("state", state);
+            map.put("sourceConnectionId", request.sourceConnectionId);
+            map.put("sourceTable", request.sourceTable);
+            map.put("targetConnectionId", request.targetConnectionId);
+            map.put("targetTable", request.targetTable);
+            map.put("keyColumn", columnNames.get(source.keyIndex));
+            map.put("columns", columnNames);
+            map.put("hashQueries", hashQueries.sum());
+            map.put("bucketsCompared", bucketsCompared.sum());
+            map.put("rowsMatchedByHash", rowsMatched.sum());
+            map.put("rangesFetched", rangesFetched.sum());
+            map.put("rowsFetched", rowsFetched.sum());
+            map.put("differenceCount", differences.size());
+            map.put("truncated", truncated);
+            map.put("startedAt", startedAt);
+            map.put("elapsedMs", now - startedAt);
+            if (includeDifferences) {
+                synchronized (differences) {
+                    map.put("differences", new ArrayList<>(differences));
+                }
+            }
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+}
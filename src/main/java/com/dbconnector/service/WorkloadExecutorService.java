@@ -0,0 +1,259 @@
+package com.dbconnector.service;
+
+import com.dbconnector.config.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Service
+public class WorkloadExecutorService implements DisposableBean {
+
+    public static final String WORKLOAD_DISCOVERY = "discovery";
+    public static final String WORKLOAD_AGGREGATION = "aggregation";
+    public static final String WORKLOAD_CONNECTIONS = "connections";
+    public static final String WORKLOAD_DRIVERS = "drivers";
+    public static final String WORKLOAD_COPY = "copy";
+    public static final String WORKLOAD_DIFF = "diff";
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.executor.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${app.threads.virtual:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    /**
+     * Get the bounded executor for a workload type, creating it from app.executor.&lt;workload&gt;.* on first use
+     */
+    public Executor executor(String workload) {
+        return executors.computeIfAbsent(workload, this::createExecutor);
+    }
+
+    /**
+     * Run a provider call on the workload's executor, limited by the provider's bulkhead and timeout.
+     * A call that times out is interrupted and keeps its bulkhead permit until it actually returns.
+     */
+    public <T> CompletableFuture<T> submit(String workload, String provider, Supplier<T> task) {
+        Bulkhead bulkhead = bulkheadFor(provider);
+        return run(workload, bulkhead, task, bulkhead.timeoutMs);
+    }
+
+    /**
+     * Run a call on the workload's executor with its own timeout and no provider bulkhead; the caller
+     * is responsible for limiting how many it has in flight.
+     */
+    public <T> CompletableFuture<T> submit(String workload, Supplier<T> task, long timeoutMs) {
+        return run(workload, null, task, timeoutMs);
+    }
+
+    private <T> CompletableFuture<T> run(String workload, Bulkhead bulkhead, Supplier<T> task, long timeoutMs) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (shuttingDown) {
+            result.completeExceptionally(new RejectedExecutionException("Executor subsystem is shutting down"));
+            return result;
+        }
+
+        if (bulkhead != null && !bulkhead.permits.tryAcquire()) {
+            bulkhead.rejected.increment();
+            result.completeExceptionally(new RejectedExecutionException(
+                "Bulkhead full for provider " + bulkhead.provider + " (" + bulkhead.maxConcurrent + " concurrent calls)"));
+            return result;
+        }
+
+        Future<?> running;
+        try {
+            running = executors.computeIfAbsent(workload, this::createExecutor).submit(() -> {
+                try {
+                    result.complete(task.get());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    if (bulkhead != null) {
+                        bulkhead.permits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (bulkhead != null) {
+                bulkhead.permits.release();
+                bulkhead.rejected.increment();
+            }
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                if (bulkhead != null) {
+                    bulkhead.timeouts.increment();
+                }
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Get pool, queue and bulkhead state for every workload and provider
+     */
+    public Map<String, Object> getExecutorStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+
+        Map<String, Object> workloads = new HashMap<>();
+        for (Map.Entry<String, ThreadPoolExecutor> entry : executors.entrySet()) {
+            ThreadPoolExecutor executor = entry.getValue();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("poolSize", executor.getPoolSize());
+            stats.put("maximumPoolSize", executor.getMaximumPoolSize());
+            stats.put("activeThreads", executor.getActiveCount());
+            stats.put("queued", executor.getQueue().size());
+            stats.put("queueRemaining", executor.getQueue().remainingCapacity());
+            stats.put("completedTasks", executor.getCompletedTaskCount());
+            workloads.put(entry.getKey(), stats);
+        }
+        statistics.put("workloads", workloads);
+
+        Map<String, Object> providers = new HashMap<>();
+        for (Map.Entry<String, Bulkhead> entry : bulkheads.entrySet()) {
+            Bulkhead bulkhead = entry.getValue();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("maxConcurrent", bulkhead.maxConcurrent);
+            stats.put("inUse", bulkhead.maxConcurrent - bulkhead.permits.availablePermits());
+            stats.put("timeoutMs", bulkhead.timeoutMs);
+            stats.put("rejected", bulkhead.rejected.count());
+            stats.put("timeouts", bulkhead.timeouts.count());
+            providers.put(entry.getKey(), stats);
+        }
+        statistics.put("providers", providers);
+
+        return statistics;
+    }
+
+    /**
+     * Stop accepting work, let queued tasks drain, then interrupt whatever is still running
+     */
+    @Override
+    public void destroy() {
+        shuttingDown = true;
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        for (Map.Entry<String, ThreadPoolExecutor> entry : executors.entrySet()) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (!entry.getValue().awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                    List<Runnable> dropped = entry.getValue().shutdownNow();
+                    loggingService.logInfo("Executor " + entry.getKey() + " did not drain in time; " +
+                        dropped.size() + " queued tasks dropped");
+                }
+            } catch (InterruptedException e) {
+                entry.getValue().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        loggingService.logInfo("Workload executors shut down");
+    }
+
+    private ThreadPoolExecutor createExecutor(String workload) {
+        int threads = environment.getProperty("app.executor." + workload + ".threads", Integer.class, 4);
+        int queueCapacity = environment.getProperty("app.executor." + workload + ".queue-capacity", Integer.class, 100);
+
+        // With virtual threads the pool size still caps concurrency; blocked workers just stop holding carriers
+        ThreadFactory threadFactory = virtualThreads ? VirtualThreads.threadFactory(workload) : new NamedThreadFactory(workload);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        new ExecutorServiceMetrics(executor, workload, Tags.of("workload", workload)).bindTo(meterRegistry);
+        loggingService.logInfo("Created " + workload + " executor with " + threads + (virtualThreads ? " virtual" : "") +
+            " threads and queue capacity " + queueCapacity);
+        return executor;
+    }
+
+    private Bulkhead bulkheadFor(String provider) {
+        Bulkhead bulkhead = bulkheads.get(provider);
+        if (bulkhead != null) {
+            return bulkhead;
+        }
+        return bulkheads.computeIfAbsent(provider, p -> {
+            int maxConcurrent = environment.getProperty("app.executor.provider." + p + ".max-concurrent", Integer.class,
+                environment.getProperty("app.executor.provider.default.max-concurrent", Integer.class, 4));
+            long timeoutMs = environment.getProperty("app.executor.provider." + p + ".timeout-ms", Long.class,
+                environment.getProperty("app.executor.provider.default.timeout-ms", Long.class, 30000L));
+            return new Bulkhead(p, maxConcurrent, timeoutMs, meterRegistry);
+        });
+    }
+
+    /**
+     * Concurrency limit and timeout for calls to one provider
+     */
+    private static class Bulkhead {
+        private final String provider;
+        private final int maxConcurrent;
+        private final long timeoutMs;
+        private final Semaphore permits;
+        private final Counter rejected;
+        private final Counter timeouts;
+
+        Bulkhead(String provider, int maxConcurrent, long timeoutMs, MeterRegistry meterRegistry) {
+            this.provider = provider;
+            this.maxConcurrent = maxConcurrent;
+            this.timeoutMs = timeoutMs;
+            this.permits = new Semaphore(maxConcurrent);
+            this.rejected = Counter.builder("executor.bulkhead.rejected")
+                .tag("provider", provider)
+                .register(meterRegistry);
+            this.timeouts = Counter.builder("executor.bulkhead.timeouts")
+                .tag("provider", provider)
+                .register(meterRegistry);
+            Gauge.builder("executor.bulkhead.in_use", permits, s -> maxConcurrent - s.availablePermits())
+                .tag("provider", provider)
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Daemon threads named after their workload, e.g. discovery-3
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -33,8 +33,16 @@ function initializeDashboard() {
     
     // Set up auto-refresh
     setInterval(refreshMonitoringData, 30000); // Refresh every 30 seconds
+    setInterval(pollInventoryChanges, 30000);
 }
 
+// Discovered instances by provider and instanceId, at inventory version `version`
+const inventoryState = {
+    version: null,
+    providers: {},
+    eventSource: null
+};
+
 /**
  * Set up event listeners
  */
@@ -81,8 +89,9 @@ function discoverInstances() {
     };
     
     cloudManagement.discoverInstances(credentials)
-        .then(instances => {
-            displayDiscoveryResults(instances);
+        .then(result => {
+            replaceInventory(result.instances, result.version);
+            subscribeToInventory();
         })
         .catch(error => {
             console.error('Discovery failed:', error);
@@ -93,6 +102,110 @@ function discoverInstances() {
         });
 }
 
+/**
+ * Replace the local inventory with a full snapshot
+ */
+function replaceInventory(instances, version) {
+    inventoryState.providers = {};
+    for (const [provider, providerInstances] of Object.entries(instances)) {
+        inventoryState.providers[provider] = {};
+        providerInstances.forEach(instance => {
+            inventoryState.providers[provider][instance.instanceId] = instance;
+        });
+    }
+    inventoryState.version = version;
+    renderInventory();
+}
+
+/**
+ * Apply one discovery delta to the local inventory
+ */
+function applyInventoryDelta(delta) {
+    const instances = inventoryState.providers[delta.provider] || (inventoryState.providers[delta.provider] = {});
+    delta.added.concat(delta.changed).forEach(instance => {
+        instances[instance.instanceId] = instance;
+    });
+    delta.removed.forEach(instanceId => {
+        delete instances[instanceId];
+    });
+    inventoryState.version = delta.version;
+}
+
+/**
+ * Handle a pushed delta; a gap in versions triggers a catch-up fetch
+ */
+function onInventoryDelta(delta) {
+    if (inventoryState.version === null || delta.version <= inventoryState.version) {
+        return;
+    }
+    if (delta.fromVersion !== inventoryState.version) {
+        syncInventory();
+        return;
+    }
+    applyInventoryDelta(delta);
+    renderInventory();
+}
+
+/**
+ * Fetch the deltas missed since the local version
+ */
+function syncInventory() {
+    if (inventoryState.version === null) {
+        return Promise.resolve();
+    }
+    
+    return cloudManagement.getInventoryChanges(inventoryState.version)
+        .then(changes => {
+            if (changes.reset) {
+                replaceInventory(changes.instances, changes.version);
+                return;
+            }
+            changes.deltas.forEach(delta => {
+                if (delta.version > inventoryState.version) {
+                    applyInventoryDelta(delta);
+                }
+            });
+            renderInventory();
+        })
+        .catch(error => {
+            console.error('Inventory sync failed:', error);
+        });
+}
+
+/**
+ * Open the change event stream once an inventory has been loaded
+ */
+function subscribeToInventory() {
+    if (inventoryState.eventSource) {
+        return;
+    }
+    inventoryState.eventSource = cloudManagement.subscribeInventoryChanges(onInventoryDelta, () => {
+        // EventSource reconnects by itself; catch up on anything missed meanwhile
+        syncInventory();
+    });
+}
+
+/**
+ * Poll for deltas when no event stream is open
+ */
+function pollInventoryChanges() {
+    const source = inventoryState.eventSource;
+    if (!source || source.readyState !== EventSource.OPEN) {
+        syncInventory();
+    }
+}
+
+/**
+ * Render the local inventory
+ */
+function renderInventory() {
+    const instances = {};
+    for (const [provider, providerInstances] of Object.entries(inventoryState.providers)) {
+        instances[provider] = Object.values(providerInstances);
+    }
+    displayDiscoveryResults(instances);
+}
+
 /**
  * Display discovery results
  */
@@ -21,6 +21,8 @@ const CloudManagementModule = (function() {
         
         return {
             discoverInstances,
+            getInventoryChanges,
+            subscribeInventoryChanges,
             getMonitoringMetrics,
             getHealthStatus,
             getPoolStatistics,
@@ -34,7 +36,7 @@ const CloudManagementModule = (function() {
     /**
      * Discover cloud database instances
      * @param {Object} credentials - Cloud credentials
-     * @returns {Promise} Discovery results
+     * @returns {Promise} Discovery results and the inventory version they reflect
      */
     function discoverInstances(credentials) {
         logger.info('Starting cloud database instance discovery');
@@ -51,7 +53,7 @@ const CloudManagementModule = (function() {
             if (data.success) {
                 logger.info(`Discovery completed: ${data.totalInstances} instances found`);
                 toastManager.showToast(`Discovered ${data.totalInstances} database instances`, 'success');
-                return data.instances;
+                return { instances: data.instances, version: data.version };
             } else {
                 throw new Error(data.message || 'Discovery failed');
             }
@@ -63,6 +65,49 @@ const CloudManagementModule = (function() {
         });
     }
     
+    /**
+     * Get inventory changes since a known version
+     * @param {number} since - Inventory version the caller already has
+     * @returns {Promise} Deltas, or the full inventory when reset is true
+     */
+    function getInventoryChanges(since) {
+        return fetch(`/api/cloud-management/discover/changes?since=${since}`)
+            .then(response => response.json())
+            .then(data => {
+                if (data.success) {
+                    return data;
+                } else {
+                    throw new Error(data.message || 'Failed to retrieve inventory changes');
+                }
+            })
+            .catch(error => {
+                logger.error('Error retrieving inventory changes: ' + error.message);
+                throw error;
+            });
+    }
+    
+    /**
+     * Subscribe to inventory change events
+     * @param {Function} onDelta - Called with each inventory delta
+     * @param {Function} onError - Called when the event stream drops
+     * @returns {EventSource|null} Event source, or null when the browser has no SSE support
+     */
+    function subscribeInventoryChanges(onDelta, onError) {
+        if (typeof EventSource === 'undefined') {
+            return null;
+        }
+        
+        const source = new EventSource('/api/cloud-management/discover/events');
+        source.addEventListener('inventory', event => {
+            onDelta(JSON.parse(event.data));
+        });
+        source.onerror = () => {
+            logger.error('Inventory event stream interrupted');
+            if (onError) onError();
+        };
+        return source;
+    }
+    
     /**
      * Get monitoring metrics
      * @returns {Promise} Monitoring metrics
@@ -0,0 +1,50 @@
+package com.dbconnector.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the monitoring record calls made on every connection attempt and query. Run with the GC
+ * profiler to see allocation per call:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ *     -Dexec.args="CloudMonitoringServiceBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CloudMonitoringServiceBenchmark {
+
+    private CloudMonitoringService monitoringService;
+
+    @Setup
+    public void setUp() {
+        // The application.properties defaults
+        monitoringService = new CloudMonitoringService(10000, 60000, 60000, 0.99, 100, 1000, 5, 60, 14.4);
+        ReflectionTestUtils.setField(monitoringService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(monitoringService, "loggingService", new LoggingService());
+        // Registered up front, as initializeProviderMonitoring does once a provider connects
+        monitoringService.providerMetrics("aws");
+    }
+
+    @Benchmark
+    public void recordConnectionAttempt() {
+        monitoringService.recordConnectionAttempt("aws", true, 42);
+    }
+
+    @Benchmark
+    public void recordQueryExecution() {
+        monitoringService.recordQueryExecution("aws", 42, true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordQueryExecutionContended() {
+        monitoringService.recordQueryExecution("aws", 42, true);
+    }
+}